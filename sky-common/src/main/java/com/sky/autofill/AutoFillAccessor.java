@@ -0,0 +1,133 @@
+package com.sky.autofill;
+
+import com.sky.constant.AutoFillConstant;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDateTime;
+import java.util.function.BiConsumer;
+
+/**
+ * 公共字段赋值器
+ * 每个实体类只在第一次使用时查找一次setter，并通过LambdaMetafactory生成直接调用的函数对象，
+ * 之后的填充不再经过反射；缺少公共字段的类缓存为空操作
+ * 编译期已生成填充器(见AutoFillProcessor)的实体不会走到这里，这里只兜底其余的类
+ */
+@Slf4j
+public final class AutoFillAccessor {
+
+    private static final AutoFillAccessor NO_OP = new AutoFillAccessor(null, null, null, null);
+
+    private static final ClassValue<AutoFillAccessor> CACHE = new ClassValue<AutoFillAccessor>() {
+        @Override
+        protected AutoFillAccessor computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    private final BiConsumer<Object, Object> setCreateTime;
+    private final BiConsumer<Object, Object> setUpdateTime;
+    private final BiConsumer<Object, Object> setCreateUser;
+    private final BiConsumer<Object, Object> setUpdateUser;
+
+    private AutoFillAccessor(BiConsumer<Object, Object> setCreateTime,
+                             BiConsumer<Object, Object> setUpdateTime,
+                             BiConsumer<Object, Object> setCreateUser,
+                             BiConsumer<Object, Object> setUpdateUser) {
+        this.setCreateTime = setCreateTime;
+        this.setUpdateTime = setUpdateTime;
+        this.setCreateUser = setCreateUser;
+        this.setUpdateUser = setUpdateUser;
+    }
+
+    /**
+     * 获取实体类对应的赋值器
+     *
+     * @param type
+     * @return
+     */
+    public static AutoFillAccessor of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * 插入操作，为四个公共字段赋值
+     *
+     * @param entity
+     * @param now
+     * @param currentId
+     */
+    public void fillInsert(Object entity, LocalDateTime now, Long currentId) {
+        if (setCreateTime != null) {
+            setCreateTime.accept(entity, now);
+        }
+        if (setCreateUser != null) {
+            setCreateUser.accept(entity, currentId);
+        }
+        fillUpdate(entity, now, currentId);
+    }
+
+    /**
+     * 更新操作，为修改时间和修改人赋值
+     *
+     * @param entity
+     * @param now
+     * @param currentId
+     */
+    public void fillUpdate(Object entity, LocalDateTime now, Long currentId) {
+        if (setUpdateTime != null) {
+            setUpdateTime.accept(entity, now);
+        }
+        if (setUpdateUser != null) {
+            setUpdateUser.accept(entity, currentId);
+        }
+    }
+
+    private static AutoFillAccessor create(Class<?> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        BiConsumer<Object, Object> setCreateTime = setter(lookup, type, AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
+        BiConsumer<Object, Object> setUpdateTime = setter(lookup, type, AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
+        BiConsumer<Object, Object> setCreateUser = setter(lookup, type, AutoFillConstant.SET_CREATE_USER, Long.class);
+        BiConsumer<Object, Object> setUpdateUser = setter(lookup, type, AutoFillConstant.SET_UPDATE_USER, Long.class);
+        if (setCreateTime == null && setUpdateTime == null && setCreateUser == null && setUpdateUser == null) {
+            log.debug("{}没有需要自动填充的公共字段", type.getName());
+            return NO_OP;
+        }
+        return new AutoFillAccessor(setCreateTime, setUpdateTime, setCreateUser, setUpdateUser);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setter(MethodHandles.Lookup lookup, Class<?> type, String name, Class<?> fieldType) {
+        MethodHandle handle;
+        try {
+            handle = lookup.findVirtual(type, name, MethodType.methodType(void.class, fieldType));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+        try {
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle,
+                    handle.type());
+            return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            //无法生成函数对象时退回到方法句柄调用，仍然只查找一次
+            log.warn("生成{}.{}赋值器失败，改用方法句柄：{}", type.getName(), name, e.getMessage());
+            MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (entity, value) -> {
+                try {
+                    generic.invokeExact(entity, value);
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            };
+        }
+    }
+}
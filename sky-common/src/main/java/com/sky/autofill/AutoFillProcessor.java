@@ -0,0 +1,170 @@
+package com.sky.autofill;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 公共字段填充器的注解处理器
+ * 编译实体类时，为同时包含createTime、updateTime、createUser、updateUser四个公共字段的类
+ * 生成静态的XxxAutoFiller，并生成统一入口GeneratedAutoFillers，运行时直接调用setter，不经过反射
+ */
+@SupportedAnnotationTypes("*")
+public class AutoFillProcessor extends AbstractProcessor {
+
+    static final String REGISTRY_PACKAGE = "com.sky.autofill";
+    static final String REGISTRY_NAME = "GeneratedAutoFillers";
+
+    private static final String LOCAL_DATE_TIME = "java.time.LocalDateTime";
+    private static final String LONG = "java.lang.Long";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        //第一轮就能拿到全部源文件，只在第一轮生成一次
+        if (generated || roundEnv.processingOver()) {
+            return false;
+        }
+        generated = true;
+
+        List<TypeElement> entities = new ArrayList<>();
+        for (Element element : roundEnv.getRootElements()) {
+            if (element.getKind() == ElementKind.CLASS
+                    && !element.getModifiers().contains(Modifier.ABSTRACT)
+                    && hasAuditFields((TypeElement) element)) {
+                entities.add((TypeElement) element);
+            }
+        }
+        if (entities.isEmpty()) {
+            return false;
+        }
+
+        try {
+            for (TypeElement entity : entities) {
+                writeFiller(entity);
+            }
+            writeRegistry(entities);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "生成公共字段填充器失败：" + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 判断类中是否声明了四个公共字段
+     */
+    private boolean hasAuditFields(TypeElement type) {
+        Map<String, String> fields = new HashMap<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (!field.getModifiers().contains(Modifier.STATIC)) {
+                fields.put(field.getSimpleName().toString(), field.asType().toString());
+            }
+        }
+        return LOCAL_DATE_TIME.equals(fields.get("createTime"))
+                && LOCAL_DATE_TIME.equals(fields.get("updateTime"))
+                && LONG.equals(fields.get("createUser"))
+                && LONG.equals(fields.get("updateUser"));
+    }
+
+    private void writeFiller(TypeElement entity) throws IOException {
+        String packageName = packageOf(entity);
+        String simpleName = entity.getSimpleName().toString();
+        String fillerName = simpleName + "AutoFiller";
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + fillerName, entity);
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            out.println("package " + packageName + ";");
+            out.println();
+            out.println("import java.time.LocalDateTime;");
+            out.println();
+            out.println("/**");
+            out.println(" * " + simpleName + "公共字段填充器，由AutoFillProcessor在编译期生成，请勿修改");
+            out.println(" */");
+            out.println("public final class " + fillerName + " {");
+            out.println();
+            out.println("    private " + fillerName + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    public static void fillInsert(" + simpleName + " entity, LocalDateTime now, Long currentId) {");
+            out.println("        entity.setCreateTime(now);");
+            out.println("        entity.setCreateUser(currentId);");
+            out.println("        entity.setUpdateTime(now);");
+            out.println("        entity.setUpdateUser(currentId);");
+            out.println("    }");
+            out.println();
+            out.println("    public static void fillUpdate(" + simpleName + " entity, LocalDateTime now, Long currentId) {");
+            out.println("        entity.setUpdateTime(now);");
+            out.println("        entity.setUpdateUser(currentId);");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private void writeRegistry(List<TypeElement> entities) throws IOException {
+        Element[] origins = entities.toArray(new Element[0]);
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(REGISTRY_PACKAGE + "." + REGISTRY_NAME, origins);
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            out.println("package " + REGISTRY_PACKAGE + ";");
+            out.println();
+            out.println("import com.sky.enumeration.OperationType;");
+            out.println();
+            out.println("import java.time.LocalDateTime;");
+            out.println();
+            out.println("/**");
+            out.println(" * 公共字段填充统一入口，由AutoFillProcessor在编译期生成，请勿修改");
+            out.println(" */");
+            out.println("public final class " + REGISTRY_NAME + " {");
+            out.println();
+            out.println("    private " + REGISTRY_NAME + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * 为实体填充公共字段");
+            out.println("     *");
+            out.println("     * @return 实体类型没有生成填充器时返回false");
+            out.println("     */");
+            out.println("    public static boolean fill(Object entity, OperationType operationType, LocalDateTime now, Long currentId) {");
+            for (TypeElement entity : entities) {
+                String qualifiedName = entity.getQualifiedName().toString();
+                String fillerName = packageOf(entity) + "." + entity.getSimpleName() + "AutoFiller";
+                out.println("        if (entity instanceof " + qualifiedName + ") {");
+                out.println("            if (operationType == OperationType.INSERT) {");
+                out.println("                " + fillerName + ".fillInsert((" + qualifiedName + ") entity, now, currentId);");
+                out.println("            } else {");
+                out.println("                " + fillerName + ".fillUpdate((" + qualifiedName + ") entity, now, currentId);");
+                out.println("            }");
+                out.println("            return true;");
+                out.println("        }");
+            }
+            out.println("        return false;");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private String packageOf(TypeElement type) {
+        return processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    }
+}
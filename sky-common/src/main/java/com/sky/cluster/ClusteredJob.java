@@ -0,0 +1,39 @@
+package com.sky.cluster;
+
+/**
+ * 集群定时任务
+ * 任务的数据按分片划分，每个分片同一时间只在一个节点上执行，节点上下线时分片自动重新分配
+ */
+public interface ClusteredJob {
+
+    /**
+     * 任务名称，集群内唯一
+     *
+     * @return
+     */
+    String name();
+
+    /**
+     * 分片数量，为1时相当于只在一个节点上执行
+     *
+     * @return
+     */
+    default int shardCount() {
+        return 1;
+    }
+
+    /**
+     * 执行间隔(毫秒)
+     *
+     * @return
+     */
+    long interval();
+
+    /**
+     * 处理一个分片，如处理 id % shardCount == shard 的数据
+     * 处理时间较长时应分批处理，每批之前检查lease.isHeld()，租约失效后其他节点可能已经开始处理该分片
+     *
+     * @param lease 本次执行持有的分片租约
+     */
+    void execute(ShardLease lease);
+}
@@ -0,0 +1,245 @@
+package com.sky.cluster;
+
+import com.sky.properties.ClusterProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 集群定时任务执行器
+ * 每个节点定期心跳登记为在线成员；任务每次执行时按在线成员用rendezvous哈希计算自己负责的分片，
+ * 再为每个分片租用租约，租用成功才执行，成员变化期间各节点看到的成员不一致时也不会重复执行同一个分片；
+ * 不再负责的分片立即归还租约，下线节点的租约过期后由新的负责节点接管；
+ * 执行期间由单独的心跳线程为正在执行的分片续约，执行时间超过租约有效期也不会被其他节点接管，
+ * 续约时发现租约已被占用则标记为失效，任务通过ShardLease.isHeld()得知后停止处理
+ */
+@Slf4j
+public class ClusteredJobRunner implements AutoCloseable {
+
+    private static final String MEMBERS = "members";
+
+    private final LeaseStore leaseStore;
+    private final ClusterProperties clusterProperties;
+    private final String nodeId;
+    private final ScheduledExecutorService scheduler;
+    //心跳和续约使用单独的线程，任务线程都在执行时也能按时续约
+    private final ScheduledExecutorService heartbeater;
+
+    private final Map<String, JobState> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * @param leaseStore
+     * @param clusterProperties
+     * @param nodeId            节点标识，为null时随机生成
+     */
+    public ClusteredJobRunner(LeaseStore leaseStore, ClusterProperties clusterProperties, String nodeId) {
+        this.leaseStore = leaseStore;
+        this.clusterProperties = clusterProperties;
+        this.nodeId = nodeId != null ? nodeId : UUID.randomUUID().toString();
+        AtomicInteger index = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(1, clusterProperties.getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "clustered-job-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeater = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "clustered-job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 开始心跳，之后登记的任务在下一次心跳后开始执行
+     */
+    public void start() {
+        heartbeat();
+        long interval = clusterProperties.getHeartbeatInterval();
+        heartbeater.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("集群定时任务执行器已启动，节点：{}", nodeId);
+    }
+
+    /**
+     * 登记任务
+     *
+     * @param job
+     */
+    public void register(ClusteredJob job) {
+        JobState state = new JobState(job, clusterProperties.getMemberTtl());
+        if (jobs.putIfAbsent(job.name(), state) != null) {
+            throw new IllegalArgumentException("集群定时任务名称重复：" + job.name());
+        }
+        scheduler.scheduleWithFixedDelay(() -> run(state), clusterProperties.getHeartbeatInterval(), job.interval(), TimeUnit.MILLISECONDS);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 各任务在当前节点上的运行情况
+     *
+     * @return
+     */
+    public List<ClusteredJobStats> stats() {
+        List<ClusteredJobStats> stats = new ArrayList<>(jobs.size());
+        for (JobState state : jobs.values()) {
+            ClusteredJobStats jobStats = new ClusteredJobStats();
+            jobStats.setName(state.job.name());
+            jobStats.setShardCount(state.job.shardCount());
+            List<Integer> owned = new ArrayList<>(state.held);
+            Collections.sort(owned);
+            jobStats.setOwnedShards(owned);
+            jobStats.setMembers(state.members);
+            jobStats.setLastRunTime(state.lastRunTime);
+            jobStats.setLastError(state.lastError);
+            stats.add(jobStats);
+        }
+        return stats;
+    }
+
+    /**
+     * 停止执行，归还持有的分片并下线
+     */
+    @Override
+    public void close() {
+        heartbeater.shutdownNow();
+        scheduler.shutdownNow();
+        try {
+            for (JobState state : jobs.values()) {
+                for (Integer shard : state.held) {
+                    leaseStore.release(shardKey(state.job, shard), nodeId);
+                }
+                state.held.clear();
+            }
+            leaseStore.leave(key(MEMBERS), nodeId);
+        } catch (RuntimeException e) {
+            log.warn("归还集群租约失败：{}", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            leaseStore.heartbeat(key(MEMBERS), nodeId, clusterProperties.getMemberTtl());
+        } catch (RuntimeException e) {
+            //心跳失败时成员可能过期，其他节点会接管这里的分片
+            log.warn("集群心跳失败：{}", e.getMessage());
+        }
+        renewRunning();
+    }
+
+    /**
+     * 为正在执行的分片续约
+     */
+    private void renewRunning() {
+        for (JobState state : jobs.values()) {
+            for (ShardLease lease : state.running.values()) {
+                long requestedAt = System.currentTimeMillis();
+                try {
+                    if (leaseStore.renew(lease.getKey(), nodeId, lease.getFencingToken(), state.leaseTtl)) {
+                        lease.renewed(requestedAt + state.leaseTtl);
+                    } else {
+                        lease.lost();
+                        log.error("集群定时任务{}的分片{}租约已失效，停止处理", state.job.name(), lease.getShard());
+                    }
+                } catch (RuntimeException e) {
+                    //续约失败时下次再试，租约截止时间前仍然有效
+                    log.warn("集群定时任务{}的分片{}续约失败：{}", state.job.name(), lease.getShard(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void run(JobState state) {
+        ClusteredJob job = state.job;
+        try {
+            List<String> members = leaseStore.members(key(MEMBERS));
+            if (!members.contains(nodeId)) {
+                members.add(nodeId);
+                Collections.sort(members);
+            }
+            state.members = members;
+            //每个分片单独处理异常，一个分片失败不影响后面的分片
+            String error = null;
+            for (int shard = 0; shard < job.shardCount(); shard++) {
+                try {
+                    runShard(state, shard, members);
+                } catch (RuntimeException e) {
+                    error = "分片" + shard + "：" + e.getMessage();
+                    log.error("集群定时任务{}的分片{}执行失败：{}", job.name(), shard, e.getMessage(), e);
+                }
+            }
+            state.lastError = error;
+        } catch (RuntimeException e) {
+            state.lastError = e.getMessage();
+            log.error("集群定时任务{}执行失败：{}", job.name(), e.getMessage(), e);
+        } finally {
+            state.lastRunTime = LocalDateTime.now();
+        }
+    }
+
+    private void runShard(JobState state, int shard, List<String> members) {
+        ClusteredJob job = state.job;
+        String shardKey = shardKey(job, shard);
+        if (!nodeId.equals(RendezvousHash.owner(shardKey, members))) {
+            if (state.held.remove(shard)) {
+                leaseStore.release(shardKey, nodeId);
+            }
+            return;
+        }
+        long requestedAt = System.currentTimeMillis();
+        long token = leaseStore.tryAcquire(shardKey, nodeId, state.leaseTtl);
+        if (token == 0) {
+            //上一个负责节点的租约还没有过期
+            state.held.remove(shard);
+            return;
+        }
+        state.held.add(shard);
+        ShardLease lease = new ShardLease(shardKey, shard, job.shardCount(), token, requestedAt + state.leaseTtl);
+        state.running.put(shard, lease);
+        try {
+            job.execute(lease);
+        } finally {
+            state.running.remove(shard);
+            if (!lease.isHeld()) {
+                state.held.remove(shard);
+            }
+        }
+    }
+
+    private String shardKey(ClusteredJob job, int shard) {
+        return key("job:" + job.name() + ":" + shard);
+    }
+
+    private String key(String name) {
+        return clusterProperties.getKeyPrefix() + name;
+    }
+
+    private static class JobState {
+        private final ClusteredJob job;
+        //分片租约覆盖一次执行间隔，再留出一个成员有效期，节点下线后在这段时间内由新节点接管
+        private final long leaseTtl;
+        private final Set<Integer> held = ConcurrentHashMap.newKeySet();
+        //正在执行的分片，由心跳线程续约
+        private final Map<Integer, ShardLease> running = new ConcurrentHashMap<>();
+        private volatile List<String> members = Collections.emptyList();
+        private volatile LocalDateTime lastRunTime;
+        private volatile String lastError;
+
+        private JobState(ClusteredJob job, long memberTtl) {
+            this.job = job;
+            this.leaseTtl = job.interval() + memberTtl;
+        }
+    }
+}
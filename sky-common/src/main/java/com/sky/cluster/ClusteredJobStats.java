@@ -0,0 +1,26 @@
+package com.sky.cluster;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 集群定时任务在当前节点上的运行情况
+ */
+@Data
+public class ClusteredJobStats implements Serializable {
+
+    private String name; //任务名称
+
+    private int shardCount; //分片数量
+
+    private List<Integer> ownedShards; //当前节点持有的分片
+
+    private List<String> members; //最近一次执行时的在线节点
+
+    private LocalDateTime lastRunTime; //最近一次执行时间
+
+    private String lastError; //最近一次执行失败的原因
+}
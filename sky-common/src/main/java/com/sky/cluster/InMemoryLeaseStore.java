@@ -0,0 +1,101 @@
+package com.sky.cluster;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内的租约存储，用于单节点部署和测试，多个ClusteredJobRunner共用一个实例即可模拟多节点
+ */
+public class InMemoryLeaseStore implements LeaseStore {
+
+    private final LongSupplier clock;
+    private final Map<String, Lease> leases = new HashMap<>();
+    private final Map<String, Long> tokens = new HashMap<>();
+    private final Map<String, Map<String, Long>> groups = new HashMap<>();
+
+    public InMemoryLeaseStore() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock 时钟，测试时可以手动推进时间模拟租约过期
+     */
+    public InMemoryLeaseStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized long tryAcquire(String key, String owner, long ttl) {
+        long now = clock.getAsLong();
+        Lease lease = leases.get(key);
+        if (lease != null && lease.expiresAt > now) {
+            if (!lease.owner.equals(owner)) {
+                return 0;
+            }
+            leases.put(key, new Lease(owner, lease.token, now + ttl));
+            return lease.token;
+        }
+        long token = tokens.merge(key, 1L, Long::sum);
+        leases.put(key, new Lease(owner, token, now + ttl));
+        return token;
+    }
+
+    @Override
+    public synchronized boolean renew(String key, String owner, long token, long ttl) {
+        long now = clock.getAsLong();
+        Lease lease = leases.get(key);
+        if (lease == null || lease.expiresAt <= now || !lease.owner.equals(owner) || lease.token != token) {
+            return false;
+        }
+        leases.put(key, new Lease(owner, token, now + ttl));
+        return true;
+    }
+
+    @Override
+    public synchronized void release(String key, String owner) {
+        Lease lease = leases.get(key);
+        if (lease != null && lease.owner.equals(owner)) {
+            leases.remove(key);
+        }
+    }
+
+    @Override
+    public synchronized void heartbeat(String group, String member, long ttl) {
+        groups.computeIfAbsent(group, key -> new TreeMap<>()).put(member, clock.getAsLong() + ttl);
+    }
+
+    @Override
+    public synchronized List<String> members(String group) {
+        Map<String, Long> members = groups.get(group);
+        if (members == null) {
+            return new ArrayList<>();
+        }
+        long now = clock.getAsLong();
+        members.values().removeIf(expiresAt -> expiresAt <= now);
+        return new ArrayList<>(members.keySet());
+    }
+
+    @Override
+    public synchronized void leave(String group, String member) {
+        Map<String, Long> members = groups.get(group);
+        if (members != null) {
+            members.remove(member);
+        }
+    }
+
+    private static class Lease {
+        private final String owner;
+        private final long token;
+        private final long expiresAt;
+
+        private Lease(String owner, long token, long expiresAt) {
+            this.owner = owner;
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
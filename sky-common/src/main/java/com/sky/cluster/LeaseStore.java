@@ -0,0 +1,64 @@
+package com.sky.cluster;
+
+import java.util.List;
+
+/**
+ * 集群租约存储
+ * 租约：同一时间只属于一个节点的带有效期的key，每次被重新占用时分配递增的fencing token；成员：定期心跳的节点列表，超过有效期没有心跳的节点视为已下线
+ */
+public interface LeaseStore {
+
+    /**
+     * 租用key，key空闲时占用并分配新的fencing token，已属于owner时延长有效期
+     *
+     * @param key
+     * @param owner 节点标识
+     * @param ttl   有效期(毫秒)
+     * @return fencing token，同一个key每次被重新占用时递增，已属于owner时返回原来的token；key属于其他节点时返回0
+     */
+    long tryAcquire(String key, String owner, long ttl);
+
+    /**
+     * 续约，只有key仍属于owner且token未变时延长有效期
+     *
+     * @param key
+     * @param owner
+     * @param token tryAcquire返回的fencing token
+     * @param ttl   有效期(毫秒)
+     * @return 租约已过期或已被其他节点占用时返回false
+     */
+    boolean renew(String key, String owner, long token, long ttl);
+
+    /**
+     * 归还key，key不属于owner时不做处理
+     *
+     * @param key
+     * @param owner
+     */
+    void release(String key, String owner);
+
+    /**
+     * 成员心跳
+     *
+     * @param group  成员组
+     * @param member 节点标识
+     * @param ttl    有效期(毫秒)，超过该时间没有心跳视为已下线
+     */
+    void heartbeat(String group, String member, long ttl);
+
+    /**
+     * 在线成员
+     *
+     * @param group
+     * @return 按节点标识排序
+     */
+    List<String> members(String group);
+
+    /**
+     * 成员主动下线
+     *
+     * @param group
+     * @param member
+     */
+    void leave(String group, String member);
+}
@@ -0,0 +1,46 @@
+package com.sky.cluster;
+
+import java.util.List;
+
+/**
+ * 最高随机权重(rendezvous)哈希
+ * 每个分片分配给与它组合后哈希值最大的节点，节点下线时只有该节点的分片被重新分配，其余分片不动
+ */
+public final class RendezvousHash {
+
+    private RendezvousHash() {
+    }
+
+    /**
+     * 分片所属的节点
+     *
+     * @param shardKey 分片标识
+     * @param members  在线节点
+     * @return 没有在线节点时返回null
+     */
+    public static String owner(String shardKey, List<String> members) {
+        String owner = null;
+        long best = Long.MIN_VALUE;
+        long shardHash = mix(shardKey.hashCode());
+        for (String member : members) {
+            long weight = mix(shardHash ^ mix(member.hashCode()));
+            if (owner == null || weight > best || (weight == best && member.compareTo(owner) < 0)) {
+                owner = member;
+                best = weight;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * 64位混淆，String.hashCode在各个节点上结果一致，混淆后分布更均匀
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,70 @@
+package com.sky.cluster;
+
+/**
+ * 一次执行中持有的分片租约
+ * 执行期间由执行器的心跳线程续约；续约时发现租约已被其他节点占用，或一直续约失败超过有效期后租约失效，
+ * 任务应在处理每批数据前检查isHeld，失效后停止处理；
+ * fencingToken在每次重新租用分片时递增，任务写入外部存储时可以一起写入，由存储拒绝比已见过的token更小的写入
+ */
+public class ShardLease {
+
+    private final String key;
+    private final int shard;
+    private final int shardCount;
+    private final long fencingToken;
+
+    //租约截止时间(毫秒)，失效时为0
+    private volatile long validUntil;
+
+    ShardLease(String key, int shard, int shardCount, long fencingToken, long validUntil) {
+        this.key = key;
+        this.shard = shard;
+        this.shardCount = shardCount;
+        this.fencingToken = fencingToken;
+        this.validUntil = validUntil;
+    }
+
+    /**
+     * 分片序号，从0开始
+     *
+     * @return
+     */
+    public int getShard() {
+        return shard;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    /**
+     * 租约是否仍然有效
+     *
+     * @return
+     */
+    public boolean isHeld() {
+        return System.currentTimeMillis() < validUntil;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    long getValidUntil() {
+        return validUntil;
+    }
+
+    void renewed(long validUntil) {
+        if (this.validUntil != 0) {
+            this.validUntil = validUntil;
+        }
+    }
+
+    void lost() {
+        validUntil = 0;
+    }
+}
@@ -0,0 +1,11 @@
+package com.sky.constant;
+
+/**
+ * 缓存名称常量
+ */
+public class CacheConstant {
+
+    //按类型查询的分类列表，分类的增删改都会清除整个缓存
+    public static final String CATEGORY_CACHE = "categoryCache";
+
+}
@@ -24,5 +24,14 @@ public class MessageConstant {
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
+    public static final String PAGE_CURSOR_INVALID = "分页游标无效";
+    public static final String UPSTREAM_UNAVAILABLE = "外部服务繁忙，请稍后重试";
+    public static final String ORDER_BUSY = "下单人数过多，请稍后重试";
+    public static final String ORDER_SUBMITTING = "已有订单正在提交，请勿重复下单";
+    public static final String ORDER_SUBMIT_TIMEOUT = "下单超时，请稍后重试";
+    public static final String ORDER_SUBMIT_PENDING = "订单正在提交，请稍后在订单列表中查看";
+    public static final String EXPORT_BUSY = "导出任务过多，请稍后重试";
+    public static final String WORKER_ID_UNAVAILABLE = "编号生成暂不可用，请稍后重试";
+    public static final String ORDER_PAYMENT_TIMEOUT = "订单超时未支付，自动取消";
 
 }
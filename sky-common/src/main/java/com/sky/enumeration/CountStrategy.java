@@ -0,0 +1,45 @@
+package com.sky.enumeration;
+
+/**
+ * 分页查询的总数统计方式
+ */
+public enum CountStrategy {
+
+    /**
+     * 精确统计，每次分页都执行count(*)
+     */
+    EXACT,
+
+    /**
+     * 相同查询条件的count结果缓存一小段时间
+     */
+    CACHED,
+
+    /**
+     * 使用表的统计信息估算总数，带查询条件时退化为CACHED
+     */
+    ESTIMATED,
+
+    /**
+     * 不统计总数，多查一条用于判断是否还有下一页
+     */
+    NONE;
+
+    /**
+     * 解析请求参数，不传或无法识别时使用精确统计
+     *
+     * @param value
+     * @return
+     */
+    public static CountStrategy of(String value) {
+        if (value == null || value.isEmpty()) {
+            return EXACT;
+        }
+        for (CountStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(value)) {
+                return strategy;
+            }
+        }
+        return EXACT;
+    }
+}
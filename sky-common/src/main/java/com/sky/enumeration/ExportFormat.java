@@ -0,0 +1,51 @@
+package com.sky.enumeration;
+
+/**
+ * 数据导出格式
+ */
+public enum ExportFormat {
+
+    /**
+     * JSON Lines，每行一个json对象
+     */
+    JSONL("application/x-ndjson", "jsonl"),
+
+    /**
+     * 逗号分隔的表格，带UTF-8 BOM，可直接用Excel打开
+     */
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * 解析请求参数，不传或无法识别时使用JSON Lines
+     *
+     * @param value
+     * @return
+     */
+    public static ExportFormat of(String value) {
+        if (value == null || value.isEmpty()) {
+            return JSONL;
+        }
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        return JSONL;
+    }
+}
@@ -0,0 +1,18 @@
+package com.sky.enumeration;
+
+/**
+ * 资源类型，每种资源单独维护数据版本号
+ */
+public enum ResourceType {
+
+    /**
+     * 分类
+     */
+    CATEGORY,
+
+    /**
+     * 员工
+     */
+    EMPLOYEE
+
+}
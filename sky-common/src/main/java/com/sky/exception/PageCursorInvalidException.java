@@ -0,0 +1,9 @@
+package com.sky.exception;
+
+public class PageCursorInvalidException extends BaseException {
+
+    public PageCursorInvalidException(String msg) {
+        super(msg);
+    }
+
+}
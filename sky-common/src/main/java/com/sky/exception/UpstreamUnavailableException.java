@@ -0,0 +1,12 @@
+package com.sky.exception;
+
+/**
+ * 外部服务熔断或并发调用已满，本次调用被拒绝
+ */
+public class UpstreamUnavailableException extends BaseException {
+
+    public UpstreamUnavailableException(String msg) {
+        super(msg);
+    }
+
+}
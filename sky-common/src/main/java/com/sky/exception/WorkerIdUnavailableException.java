@@ -0,0 +1,12 @@
+package com.sky.exception;
+
+/**
+ * 机器id租约已失效或长时间未能续约，暂停生成id
+ */
+public class WorkerIdUnavailableException extends BaseException {
+
+    public WorkerIdUnavailableException(String msg) {
+        super(msg);
+    }
+
+}
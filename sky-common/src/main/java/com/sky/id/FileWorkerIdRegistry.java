@@ -0,0 +1,87 @@
+package com.sky.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于本地文件锁的机器id分配，适用于所有实例部署在同一台机器上的情况
+ * 每个机器id对应目录下的一个锁文件，持有文件锁即占用该机器id，进程退出时操作系统自动释放
+ */
+@Slf4j
+public class FileWorkerIdRegistry implements WorkerIdRegistry {
+
+    private final Path directory;
+    private final Map<Integer, FileLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory 锁文件所在目录，不存在时自动创建
+     */
+    public FileWorkerIdRegistry(String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    @Override
+    public int lease() {
+        try {
+            Files.createDirectories(directory);
+            for (int workerId = 0; workerId <= SnowflakeIdGenerator.MAX_WORKER_ID; workerId++) {
+                if (tryLock(workerId)) {
+                    log.info("从{}租用机器id：{}", directory, workerId);
+                    return workerId;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        throw new IllegalStateException("没有空闲的机器id：" + directory);
+    }
+
+    @Override
+    public boolean renew(int workerId) {
+        FileLock lock = locks.get(workerId);
+        return lock != null && lock.isValid();
+    }
+
+    @Override
+    public void release(int workerId) {
+        FileLock lock = locks.remove(workerId);
+        if (lock == null) {
+            return;
+        }
+        try {
+            lock.release();
+            lock.channel().close();
+        } catch (IOException e) {
+            log.warn("归还机器id失败：{}，{}", workerId, e.getMessage());
+        }
+    }
+
+    private boolean tryLock(int workerId) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve("worker-" + workerId + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            //同一个进程中已经租用了该机器id
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            return false;
+        }
+        locks.put(workerId, lock);
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+package com.sky.id;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 订单号格式化
+ * 由雪花id生成便于阅读的订单号：yyyyMMddHHmmssSSS + 7位数字(机器id和序列号)，共24位，
+ * 与id一一对应，同一个id总是得到同一个订单号
+ */
+public class OrderNumberFormatter {
+
+    private static final long LOW_MASK = (1L << (SnowflakeIdGenerator.WORKER_ID_BITS + SnowflakeIdGenerator.SEQUENCE_BITS)) - 1;
+
+    private final SnowflakeIdGenerator idGenerator;
+    private final ZoneId zone;
+
+    public OrderNumberFormatter(SnowflakeIdGenerator idGenerator) {
+        this(idGenerator, ZoneId.systemDefault());
+    }
+
+    public OrderNumberFormatter(SnowflakeIdGenerator idGenerator, ZoneId zone) {
+        this.idGenerator = idGenerator;
+        this.zone = zone;
+    }
+
+    /**
+     * 生成新的订单号
+     *
+     * @return
+     */
+    public String next() {
+        return format(idGenerator.nextId());
+    }
+
+    /**
+     * 将id格式化为订单号
+     *
+     * @param id
+     * @return
+     */
+    public String format(long id) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(idGenerator.timestampOf(id)), zone);
+        char[] chars = new char[24];
+        write(chars, 0, time.getYear(), 4);
+        write(chars, 4, time.getMonthValue(), 2);
+        write(chars, 6, time.getDayOfMonth(), 2);
+        write(chars, 8, time.getHour(), 2);
+        write(chars, 10, time.getMinute(), 2);
+        write(chars, 12, time.getSecond(), 2);
+        write(chars, 14, time.getNano() / 1_000_000, 3);
+        write(chars, 17, id & LOW_MASK, 7);
+        return new String(chars);
+    }
+
+    private static void write(char[] chars, int offset, long value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
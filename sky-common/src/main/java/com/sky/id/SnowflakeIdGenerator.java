@@ -0,0 +1,148 @@
+package com.sky.id;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.WorkerIdUnavailableException;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花算法id生成器，无锁实现
+ * id由 41位毫秒时间戳(相对epoch) + 10位机器id + 12位序列号 组成，同一个生成器生成的id单调递增；
+ * 上次生成的id保存在一个long中，通过CAS更新，多个线程并发生成时不加锁；
+ * 时钟回拨时继续沿用上次的时间戳递增序列号(逻辑时钟)，不等待也不生成重复id，
+ * 同一毫秒内序列号用完时借用下一毫秒，系统时钟追上后恢复使用系统时间；
+ * 机器id是租用的时，超过租约截止时间后抛出WorkerIdUnavailableException，不再用可能已被其他实例占用的机器id生成；
+ * 租约被占用后改用新租用的机器id，切换时进入下一毫秒，id仍然递增
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * 默认起始时间 2024-01-01 00:00:00 UTC，可以使用约69年
+     */
+    public static final long DEFAULT_EPOCH = 1704067200000L;
+
+    public static final int WORKER_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_WORKER_ID = (1 << WORKER_ID_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long WORKER_MASK = (long) MAX_WORKER_ID << SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+
+    private final long epoch;
+    private final int workerId;
+    private final long workerBits;
+    private final LongSupplier clock;
+    private final WorkerIdLease lease;
+
+    //上次生成的id：(时间戳 - epoch) << TIMESTAMP_SHIFT | 机器id << SEQUENCE_BITS | 序列号
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param workerId 机器id，0到MAX_WORKER_ID，同时运行的生成器不能使用相同的机器id
+     */
+    public SnowflakeIdGenerator(int workerId) {
+        this(workerId, DEFAULT_EPOCH, System::currentTimeMillis);
+    }
+
+    /**
+     * @param workerId 机器id
+     * @param epoch    起始时间(毫秒)
+     * @param clock    时钟，返回当前毫秒数
+     */
+    public SnowflakeIdGenerator(int workerId, long epoch, LongSupplier clock) {
+        this(workerId, epoch, clock, null);
+    }
+
+    /**
+     * 使用租用的机器id
+     *
+     * @param lease 机器id的租约
+     * @param epoch 起始时间(毫秒)
+     * @param clock 时钟，与租约使用相同的系统时间
+     */
+    public SnowflakeIdGenerator(WorkerIdLease lease, long epoch, LongSupplier clock) {
+        this(lease.getWorkerId(), epoch, clock, lease);
+    }
+
+    private SnowflakeIdGenerator(int workerId, long epoch, LongSupplier clock, WorkerIdLease lease) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("机器id超出范围：" + workerId);
+        }
+        this.epoch = epoch;
+        this.workerId = workerId;
+        this.workerBits = (long) workerId << SEQUENCE_BITS;
+        this.clock = clock;
+        this.lease = lease;
+    }
+
+    /**
+     * 生成下一个id
+     *
+     * @return
+     * @throws WorkerIdUnavailableException 机器id的租约已失效
+     */
+    public long nextId() {
+        for (;;) {
+            long current = state.get();
+            long last = current >>> TIMESTAMP_SHIFT;
+            long millis = clock.getAsLong();
+            long workerBits = this.workerBits;
+            if (lease != null) {
+                WorkerIdLease.Grant grant = lease.current();
+                if (millis >= grant.validUntil) {
+                    throw new WorkerIdUnavailableException(MessageConstant.WORKER_ID_UNAVAILABLE);
+                }
+                workerBits = (long) grant.workerId << SEQUENCE_BITS;
+            }
+            long now = millis - epoch;
+            long next;
+            if (now > last) {
+                next = now << TIMESTAMP_SHIFT | workerBits;
+            } else if ((current & WORKER_MASK) != workerBits || (current & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                //切换了机器id或序列号用完，进入下一毫秒
+                next = (last + 1) << TIMESTAMP_SHIFT | workerBits;
+            } else {
+                //同一毫秒或时钟回拨，在上次的时间戳上递增序列号
+                next = current + 1;
+            }
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * 当前的机器id，使用租约时可能切换为新租用的机器id
+     *
+     * @return
+     */
+    public int getWorkerId() {
+        return lease != null ? lease.getWorkerId() : workerId;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * id中的毫秒时间戳
+     *
+     * @param id
+     * @return
+     */
+    public long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + epoch;
+    }
+
+    /**
+     * id中的机器id
+     *
+     * @param id
+     * @return
+     */
+    public static int workerIdOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_WORKER_ID);
+    }
+}
@@ -0,0 +1,162 @@
+package com.sky.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已租用的机器id，后台线程定期续约，关闭时归还
+ * 记录租约的截止时间：每次租用或续约成功时，从发起请求的时间起算leaseTtl，
+ * 续约一直失败超过有效期或已关闭后租约失效，生成器不再使用该机器id；
+ * 租约被其他实例占用时，该机器id作废且不再使用，改为从registry租用新的机器id，生成器随之切换
+ */
+@Slf4j
+public class WorkerIdLease implements AutoCloseable {
+
+    private final WorkerIdRegistry registry;
+    private final long leaseTtl;
+    private final ScheduledExecutorService renewer;
+    //被其他实例占用过的机器id
+    private final Set<Integer> retired = ConcurrentHashMap.newKeySet();
+
+    //当前的机器id和租约截止时间，一起替换
+    private volatile Grant grant;
+    private boolean closed;
+
+    /**
+     * 租用机器id并开始定期续约
+     *
+     * @param registry
+     * @param leaseTtl      租约有效期(毫秒)，与registry中的有效期一致
+     * @param renewInterval 续约间隔(毫秒)，应明显小于租约有效期
+     */
+    public WorkerIdLease(WorkerIdRegistry registry, long leaseTtl, long renewInterval) {
+        this.registry = registry;
+        this.leaseTtl = leaseTtl;
+        long requestedAt = System.currentTimeMillis();
+        this.grant = new Grant(registry.lease(), requestedAt + leaseTtl, false);
+        this.renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "worker-id-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(this::renew, renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void renew() {
+        if (closed) {
+            return;
+        }
+        Grant current = grant;
+        if (current.lost) {
+            leaseAnother(current.workerId);
+            return;
+        }
+        long requestedAt = System.currentTimeMillis();
+        try {
+            if (registry.renew(current.workerId)) {
+                if (current.validUntil < requestedAt) {
+                    log.info("机器id {} 重新续约成功，恢复生成id", current.workerId);
+                }
+                grant = new Grant(current.workerId, requestedAt + leaseTtl, false);
+            } else {
+                retired.add(current.workerId);
+                grant = new Grant(current.workerId, 0, true);
+                log.error("机器id {} 的租约已被其他实例占用，停止使用并租用新的机器id", current.workerId);
+                leaseAnother(current.workerId);
+            }
+        } catch (RuntimeException e) {
+            //续约失败时下次再试，截止时间前仍可使用
+            log.warn("机器id {} 续约失败，租约截止时间：{}，{}", current.workerId, current.validUntil, e.getMessage());
+        }
+    }
+
+    /**
+     * 租用一个没有被占用过的机器id，失败时下次续约时再试
+     *
+     * @param lostWorkerId 已作废的机器id
+     */
+    private void leaseAnother(int lostWorkerId) {
+        long requestedAt = System.currentTimeMillis();
+        //registry可能再次分配作废的机器id，先占着，租到新的机器id后再归还
+        List<Integer> skipped = new ArrayList<>();
+        int workerId;
+        try {
+            workerId = registry.lease();
+            while (retired.contains(workerId)) {
+                skipped.add(workerId);
+                workerId = registry.lease();
+            }
+        } catch (RuntimeException e) {
+            log.error("机器id {} 已作废，租用新的机器id失败：{}", lostWorkerId, e.getMessage());
+            return;
+        } finally {
+            for (Integer skippedId : skipped) {
+                registry.release(skippedId);
+            }
+        }
+        grant = new Grant(workerId, requestedAt + leaseTtl, false);
+        log.info("机器id {} 已作废，改用新租用的机器id {}", lostWorkerId, workerId);
+    }
+
+    /**
+     * 当前的机器id，租约被其他实例占用后会切换到新租用的机器id
+     *
+     * @return
+     */
+    public int getWorkerId() {
+        return grant.workerId;
+    }
+
+    /**
+     * 租约截止时间(毫秒)，租约失效时为0
+     *
+     * @return
+     */
+    public long getValidUntil() {
+        return grant.validUntil;
+    }
+
+    Grant current() {
+        return grant;
+    }
+
+    @Override
+    public void close() {
+        renewer.shutdownNow();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        Grant current = grant;
+        grant = new Grant(current.workerId, 0, true);
+        if (!current.lost) {
+            registry.release(current.workerId);
+        }
+    }
+
+    /**
+     * 机器id和它的租约截止时间
+     */
+    static final class Grant {
+
+        final int workerId;
+        final long validUntil;
+        //租约已被其他实例占用
+        final boolean lost;
+
+        Grant(int workerId, long validUntil, boolean lost) {
+            this.workerId = workerId;
+            this.validUntil = validUntil;
+            this.lost = lost;
+        }
+    }
+}
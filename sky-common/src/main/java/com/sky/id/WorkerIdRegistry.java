@@ -0,0 +1,31 @@
+package com.sky.id;
+
+/**
+ * 机器id的分配，保证同时运行的多个实例使用不同的机器id
+ * 实例启动时租用一个机器id，运行期间定期续约，关闭时归还
+ */
+public interface WorkerIdRegistry {
+
+    /**
+     * 租用一个空闲的机器id
+     *
+     * @return 机器id，0到SnowflakeIdGenerator.MAX_WORKER_ID
+     * @throws IllegalStateException 没有空闲的机器id
+     */
+    int lease();
+
+    /**
+     * 续约
+     *
+     * @param workerId
+     * @return 机器id已被其他实例占用时返回false
+     */
+    boolean renew(int workerId);
+
+    /**
+     * 归还机器id
+     *
+     * @param workerId
+     */
+    void release(int workerId);
+}
@@ -0,0 +1,241 @@
+package com.sky.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 定长日期时间格式的序列化器和反序列化器
+ * 对应JacksonObjectMapper中的 yyyy-MM-dd HH:mm、yyyy-MM-dd、HH:mm:ss 三种格式，
+ * 序列化时直接把数字写入字符数组交给JsonGenerator，反序列化时直接读取解析器的字符缓冲区，
+ * 不经过DateTimeFormatter，也不创建中间字符串；
+ * 年份超出0~9999或者文本不是定长格式时，退回到DateTimeFormatter处理
+ */
+public final class FixedWidthTimeCodecs {
+
+    private static final int DATE_LENGTH = 10; //yyyy-MM-dd
+    private static final int TIME_LENGTH = 8; //HH:mm:ss
+    private static final int DATE_TIME_LENGTH = 16; //yyyy-MM-dd HH:mm
+
+    private FixedWidthTimeCodecs() {
+    }
+
+    /**
+     * LocalDateTime序列化器，格式 yyyy-MM-dd HH:mm
+     */
+    public static final class LocalDateTimeSerializer extends StdSerializer<LocalDateTime> {
+
+        private final DateTimeFormatter fallback;
+
+        public LocalDateTimeSerializer(DateTimeFormatter fallback) {
+            super(LocalDateTime.class);
+            this.fallback = fallback;
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (!inRange(value.getYear())) {
+                gen.writeString(fallback.format(value));
+                return;
+            }
+            char[] buf = new char[DATE_TIME_LENGTH];
+            writeDate(buf, 0, value.getYear(), value.getMonthValue(), value.getDayOfMonth());
+            buf[10] = ' ';
+            write2(buf, 11, value.getHour());
+            buf[13] = ':';
+            write2(buf, 14, value.getMinute());
+            gen.writeString(buf, 0, DATE_TIME_LENGTH);
+        }
+    }
+
+    /**
+     * LocalDate序列化器，格式 yyyy-MM-dd
+     */
+    public static final class LocalDateSerializer extends StdSerializer<LocalDate> {
+
+        private final DateTimeFormatter fallback;
+
+        public LocalDateSerializer(DateTimeFormatter fallback) {
+            super(LocalDate.class);
+            this.fallback = fallback;
+        }
+
+        @Override
+        public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (!inRange(value.getYear())) {
+                gen.writeString(fallback.format(value));
+                return;
+            }
+            char[] buf = new char[DATE_LENGTH];
+            writeDate(buf, 0, value.getYear(), value.getMonthValue(), value.getDayOfMonth());
+            gen.writeString(buf, 0, DATE_LENGTH);
+        }
+    }
+
+    /**
+     * LocalTime序列化器，格式 HH:mm:ss
+     */
+    public static final class LocalTimeSerializer extends StdSerializer<LocalTime> {
+
+        public LocalTimeSerializer() {
+            super(LocalTime.class);
+        }
+
+        @Override
+        public void serialize(LocalTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            char[] buf = new char[TIME_LENGTH];
+            writeTime(buf, 0, value.getHour(), value.getMinute(), value.getSecond());
+            gen.writeString(buf, 0, TIME_LENGTH);
+        }
+    }
+
+    /**
+     * LocalDateTime反序列化器，格式 yyyy-MM-dd HH:mm
+     */
+    public static final class LocalDateTimeDeserializer extends StdDeserializer<LocalDateTime> {
+
+        private final JsonDeserializer<LocalDateTime> fallback;
+
+        public LocalDateTimeDeserializer(DateTimeFormatter formatter) {
+            super(LocalDateTime.class);
+            this.fallback = new com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer(formatter);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING) && p.getTextLength() == DATE_TIME_LENGTH) {
+                char[] text = p.getTextCharacters();
+                int off = p.getTextOffset();
+                if (isDate(text, off) && text[off + 10] == ' ' && text[off + 13] == ':'
+                        && isDigits(text, off + 11, 2) && isDigits(text, off + 14, 2)) {
+                    try {
+                        return LocalDateTime.of(read(text, off, 4), read(text, off + 5, 2), read(text, off + 8, 2),
+                                read(text, off + 11, 2), read(text, off + 14, 2));
+                    } catch (DateTimeException e) {
+                        //日期不合法时交给格式化器，按格式化器的规则处理或报错
+                    }
+                }
+            }
+            return fallback.deserialize(p, ctxt);
+        }
+    }
+
+    /**
+     * LocalDate反序列化器，格式 yyyy-MM-dd
+     */
+    public static final class LocalDateDeserializer extends StdDeserializer<LocalDate> {
+
+        private final JsonDeserializer<LocalDate> fallback;
+
+        public LocalDateDeserializer(DateTimeFormatter formatter) {
+            super(LocalDate.class);
+            this.fallback = new com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer(formatter);
+        }
+
+        @Override
+        public LocalDate deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING) && p.getTextLength() == DATE_LENGTH) {
+                char[] text = p.getTextCharacters();
+                int off = p.getTextOffset();
+                if (isDate(text, off)) {
+                    try {
+                        return LocalDate.of(read(text, off, 4), read(text, off + 5, 2), read(text, off + 8, 2));
+                    } catch (DateTimeException e) {
+                        //日期不合法时交给格式化器，按格式化器的规则处理或报错
+                    }
+                }
+            }
+            return fallback.deserialize(p, ctxt);
+        }
+    }
+
+    /**
+     * LocalTime反序列化器，格式 HH:mm:ss
+     */
+    public static final class LocalTimeDeserializer extends StdDeserializer<LocalTime> {
+
+        private final JsonDeserializer<LocalTime> fallback;
+
+        public LocalTimeDeserializer(DateTimeFormatter formatter) {
+            super(LocalTime.class);
+            this.fallback = new com.fasterxml.jackson.datatype.jsr310.deser.LocalTimeDeserializer(formatter);
+        }
+
+        @Override
+        public LocalTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING) && p.getTextLength() == TIME_LENGTH) {
+                char[] text = p.getTextCharacters();
+                int off = p.getTextOffset();
+                if (isDigits(text, off, 2) && text[off + 2] == ':' && isDigits(text, off + 3, 2)
+                        && text[off + 5] == ':' && isDigits(text, off + 6, 2)) {
+                    try {
+                        return LocalTime.of(read(text, off, 2), read(text, off + 3, 2), read(text, off + 6, 2));
+                    } catch (DateTimeException e) {
+                        //时间不合法时交给格式化器，按格式化器的规则处理或报错
+                    }
+                }
+            }
+            return fallback.deserialize(p, ctxt);
+        }
+    }
+
+    private static boolean inRange(int year) {
+        return year >= 0 && year <= 9999;
+    }
+
+    private static void writeDate(char[] buf, int off, int year, int month, int day) {
+        write2(buf, off, year / 100);
+        write2(buf, off + 2, year % 100);
+        buf[off + 4] = '-';
+        write2(buf, off + 5, month);
+        buf[off + 7] = '-';
+        write2(buf, off + 8, day);
+    }
+
+    private static void writeTime(char[] buf, int off, int hour, int minute, int second) {
+        write2(buf, off, hour);
+        buf[off + 2] = ':';
+        write2(buf, off + 3, minute);
+        buf[off + 5] = ':';
+        write2(buf, off + 6, second);
+    }
+
+    private static void write2(char[] buf, int off, int value) {
+        buf[off] = (char) ('0' + value / 10);
+        buf[off + 1] = (char) ('0' + value % 10);
+    }
+
+    private static boolean isDate(char[] text, int off) {
+        return isDigits(text, off, 4) && text[off + 4] == '-' && isDigits(text, off + 5, 2)
+                && text[off + 7] == '-' && isDigits(text, off + 8, 2);
+    }
+
+    private static boolean isDigits(char[] text, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            if (text[i] < '0' || text[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int read(char[] text, int off, int len) {
+        int value = 0;
+        for (int i = off; i < off + len; i++) {
+            value = value * 10 + (text[i] - '0');
+        }
+        return value;
+    }
+}
@@ -1,14 +1,9 @@
 package com.sky.json;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
-import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
-import com.fasterxml.jackson.datatype.jsr310.deser.LocalTimeDeserializer;
-import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
-import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
-import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -30,20 +25,33 @@ public class JacksonObjectMapper extends ObjectMapper {
     public static final String DEFAULT_TIME_FORMAT = "HH:mm:ss";
 
     public JacksonObjectMapper() {
-        super();
+        this(null);
+    }
+
+    /**
+     * 使用指定的底层格式，如Smile、CBOR等二进制格式，序列化规则与json相同
+     *
+     * @param jsonFactory 为null时使用json
+     */
+    public JacksonObjectMapper(JsonFactory jsonFactory) {
+        super(jsonFactory);
         //收到未知属性时不报异常
         this.configure(FAIL_ON_UNKNOWN_PROPERTIES, false);
 
         //反序列化时，属性不存在的兼容处理
         this.getDeserializationConfig().withoutFeatures(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
+        //使用定长格式的序列化器，不经过DateTimeFormatter，格式不符时再交给DateTimeFormatter处理
+        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern(DEFAULT_DATE_TIME_FORMAT);
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern(DEFAULT_DATE_FORMAT);
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern(DEFAULT_TIME_FORMAT);
         SimpleModule simpleModule = new SimpleModule()
-                .addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer(DateTimeFormatter.ofPattern(DEFAULT_DATE_TIME_FORMAT)))
-                .addDeserializer(LocalDate.class, new LocalDateDeserializer(DateTimeFormatter.ofPattern(DEFAULT_DATE_FORMAT)))
-                .addDeserializer(LocalTime.class, new LocalTimeDeserializer(DateTimeFormatter.ofPattern(DEFAULT_TIME_FORMAT)))
-                .addSerializer(LocalDateTime.class, new LocalDateTimeSerializer(DateTimeFormatter.ofPattern(DEFAULT_DATE_TIME_FORMAT)))
-                .addSerializer(LocalDate.class, new LocalDateSerializer(DateTimeFormatter.ofPattern(DEFAULT_DATE_FORMAT)))
-                .addSerializer(LocalTime.class, new LocalTimeSerializer(DateTimeFormatter.ofPattern(DEFAULT_TIME_FORMAT)));
+                .addDeserializer(LocalDateTime.class, new FixedWidthTimeCodecs.LocalDateTimeDeserializer(dateTimeFormatter))
+                .addDeserializer(LocalDate.class, new FixedWidthTimeCodecs.LocalDateDeserializer(dateFormatter))
+                .addDeserializer(LocalTime.class, new FixedWidthTimeCodecs.LocalTimeDeserializer(timeFormatter))
+                .addSerializer(LocalDateTime.class, new FixedWidthTimeCodecs.LocalDateTimeSerializer(dateTimeFormatter))
+                .addSerializer(LocalDate.class, new FixedWidthTimeCodecs.LocalDateSerializer(dateFormatter))
+                .addSerializer(LocalTime.class, new FixedWidthTimeCodecs.LocalTimeSerializer());
 
         //注册功能模块 例如，可以添加自定义序列化器和反序列化器
         this.registerModule(simpleModule);
@@ -14,4 +14,29 @@ public class AliOssProperties {
     private String accessKeySecret;
     private String bucketName;
 
+    /**
+     * 文件达到该字节数时使用分片上传
+     */
+    private long multipartThreshold = 16 * 1024 * 1024;
+
+    /**
+     * 分片大小(字节)，OSS要求除最后一片外不小于100KB
+     */
+    private int partSize = 5 * 1024 * 1024;
+
+    /**
+     * 并行上传分片的线程数，同时在内存中的分片不超过该数量加一
+     */
+    private int uploadThreads = 4;
+
+    /**
+     * 已上传文件的索引(内容摘要 -> 访问路径)，内容相同的文件不再重复上传
+     */
+    private String uploadIndexFile = "data/upload-index.log";
+
+    /**
+     * 上传文件的隔离、熔断和重试
+     */
+    private ResilienceProperties resilience = new ResilienceProperties();
+
 }
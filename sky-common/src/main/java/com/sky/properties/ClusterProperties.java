@@ -0,0 +1,33 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cluster")
+@Data
+public class ClusterProperties {
+
+    /**
+     * 租约存储：redis 多节点部署；memory 单节点部署，只在进程内协调
+     */
+    private String store = "redis";
+
+    /**
+     * redis中成员列表和任务分片租约的key前缀
+     */
+    private String keyPrefix = "sky:cluster:";
+
+    /**
+     * 心跳间隔(毫秒)，以及超过多久没有心跳视为节点下线(毫秒)
+     */
+    private long heartbeatInterval = 5000;
+    private long memberTtl = 15000;
+
+    /**
+     * 执行集群定时任务的线程数
+     */
+    private int threads = 2;
+
+}
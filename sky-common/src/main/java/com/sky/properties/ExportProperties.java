@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.export")
+@Data
+public class ExportProperties {
+
+    /**
+     * 单次导出的最长时间(毫秒)
+     */
+    private long timeout = 600000;
+
+    /**
+     * 同时执行导出的最大线程数
+     */
+    private int threads = 4;
+
+    /**
+     * 等待执行的导出请求的最大数量，超出时直接返回繁忙
+     */
+    private int queueCapacity = 8;
+
+}
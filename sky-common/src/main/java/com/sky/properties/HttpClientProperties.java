@@ -0,0 +1,58 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "sky.http-client")
+@Data
+public class HttpClientProperties {
+
+    /**
+     * 连接池的最大连接数，以及每个目标地址默认的最大连接数
+     */
+    private int maxTotal = 200;
+    private int maxPerRoute = 20;
+
+    /**
+     * 单独指定某些目标地址的最大连接数，key为 scheme://host[:port]，如 https://api.weixin.qq.com
+     */
+    private Map<String, Integer> routes = new HashMap<>();
+
+    /**
+     * 连接、从连接池获取连接、读取数据的超时时间(毫秒)
+     */
+    private int connectTimeout = 5000;
+    private int connectionRequestTimeout = 5000;
+    private int socketTimeout = 5000;
+
+    /**
+     * 服务端没有返回Keep-Alive时连接的保持时间，服务端返回的时间更长时也不超过该值(毫秒)
+     */
+    private long keepAlive = 30000;
+
+    /**
+     * 空闲超过该时间的连接由后台线程关闭(毫秒)
+     */
+    private long maxIdleTime = 60000;
+
+    /**
+     * 连接空闲超过该时间后，再次使用前先检查是否可用(毫秒)
+     */
+    private int validateAfterInactivity = 2000;
+
+    /**
+     * 异步客户端的I/O线程数，所有异步请求共用这些线程，不随并发请求数增加
+     */
+    private int ioThreads = 2;
+
+    /**
+     * 调用外部接口的隔离、熔断和重试，每个目标主机单独统计
+     */
+    private ResilienceProperties resilience = new ResilienceProperties();
+
+}
@@ -0,0 +1,44 @@
+package com.sky.properties;
+
+import com.sky.id.SnowflakeIdGenerator;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.id")
+@Data
+public class IdGeneratorProperties {
+
+    /**
+     * 固定的机器id，不配置时从registry租用
+     */
+    private Integer workerId;
+
+    /**
+     * 机器id的分配方式：redis 多台机器部署时使用；file 所有实例在同一台机器上时使用本地文件锁
+     */
+    private String registry = "redis";
+
+    /**
+     * redis中机器id租约的key前缀和有效期(毫秒)，超过有效期仍未续约成功时停止生成id
+     */
+    private String keyPrefix = "sky:id:worker:";
+    private long leaseTtl = 30000;
+
+    /**
+     * 续约间隔(毫秒)，应明显小于租约有效期
+     */
+    private long renewInterval = 10000;
+
+    /**
+     * 使用本地文件锁分配机器id时锁文件所在目录
+     */
+    private String leaseDirectory = "data/worker-ids";
+
+    /**
+     * id时间戳的起始时间(毫秒)，上线后不能修改
+     */
+    private long epoch = SnowflakeIdGenerator.DEFAULT_EPOCH;
+
+}
@@ -16,6 +16,12 @@ public class JwtProperties {
     private long adminTtl;
     private String adminTokenName;
 
+    /**
+     * 管理端已校验令牌缓存的最大条数和有效期(毫秒)，任意一个配置为0时关闭缓存
+     */
+    private int adminTokenCacheSize = 1024;
+    private long adminTokenCacheTtl = 60000;
+
     /**
      * 用户端微信用户生成jwt令牌相关配置
      */
@@ -23,4 +29,10 @@ public class JwtProperties {
     private long userTtl;
     private String userTokenName;
 
+    /**
+     * 用户端已校验令牌缓存的最大条数和有效期(毫秒)
+     */
+    private int userTokenCacheSize = 4096;
+    private long userTokenCacheTtl = 60000;
+
 }
@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order.statistics")
+@Data
+public class OrderStatisticsProperties {
+
+    /**
+     * 集群部署时各状态订单数在redis中的hash key
+     */
+    private String redisKey = "sky:order:status-counts";
+
+    /**
+     * 写入redis失败的订单数变化重试的间隔(毫秒)，状态变化时计数已立即写入redis
+     */
+    private long flushInterval = 1000;
+
+    /**
+     * 与数据库核对计数的间隔(毫秒)
+     */
+    private long reconcileInterval = 5 * 60 * 1000;
+
+}
@@ -0,0 +1,38 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order.submit")
+@Data
+public class OrderSubmitProperties {
+
+    /**
+     * 等待提交的下单请求的最大数量，队列已满时直接拒绝
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 一个事务中最多提交的订单数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 收到第一个请求后最多再等待多久凑满一批(毫秒)
+     */
+    private long maxLinger = 5;
+
+    /**
+     * 下单请求在队列中等待的最长时间(毫秒)
+     * 超时时仍在队列中的请求被移出队列并失败，已在提交中的请求等待提交结果
+     */
+    private long timeout = 10000;
+
+    /**
+     * 一次提交事务的超时时间(毫秒)，按秒向上取整
+     */
+    private long commitTimeout = 5000;
+
+}
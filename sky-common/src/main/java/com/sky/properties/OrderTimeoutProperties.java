@@ -0,0 +1,43 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order.timeout")
+@Data
+public class OrderTimeoutProperties {
+
+    /**
+     * 下单后超过该时间未支付自动取消(毫秒)
+     */
+    private long payment = 15 * 60 * 1000;
+
+    /**
+     * 派送中的订单超过预计送达时间该时长后自动完成(毫秒)，没有预计送达时间时从下单时间算起
+     */
+    private long autoComplete = 60 * 60 * 1000;
+
+    /**
+     * 时间轮每格的时长(毫秒)和每层的格数
+     */
+    private long tick = 1000;
+    private int wheelSize = 64;
+
+    /**
+     * 每条update语句最多更新的订单数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 更新失败时重新登记的延迟(毫秒)
+     */
+    private long retryDelay = 30000;
+
+    /**
+     * 查找已过期但未处理的订单的间隔(毫秒)，接管已下线节点时间轮中的订单，集群中只由一个节点执行
+     */
+    private long recoveryInterval = 60000;
+
+}
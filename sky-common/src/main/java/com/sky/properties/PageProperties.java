@@ -0,0 +1,18 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.page")
+@Data
+public class PageProperties {
+
+    /**
+     * 分页count结果缓存的有效期(毫秒)和最大条数
+     */
+    private long countCacheTtl = 10000;
+    private int countCacheSize = 1024;
+
+}
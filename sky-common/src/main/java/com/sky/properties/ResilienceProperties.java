@@ -0,0 +1,41 @@
+package com.sky.properties;
+
+import lombok.Data;
+
+/**
+ * 调用外部服务时的隔离、熔断和重试配置，作为WeChatProperties、AliOssProperties等配置类的resilience属性使用
+ */
+@Data
+public class ResilienceProperties {
+
+    /**
+     * 同时调用该服务的最大请求数，以及没有空位时的最长等待时间(毫秒)，为0时直接拒绝
+     */
+    private int maxConcurrentCalls = 20;
+    private long maxWait = 0;
+
+    /**
+     * 熔断统计最近多少次调用的结果，至少有多少次调用后才计算失败率
+     */
+    private int windowSize = 20;
+    private int minimumCalls = 10;
+
+    /**
+     * 失败率达到该百分比时熔断，熔断期间直接拒绝调用
+     */
+    private int failureRateThreshold = 50;
+
+    /**
+     * 熔断持续时间(毫秒)，之后放行halfOpenCalls次试探调用，全部成功才恢复
+     */
+    private long openDuration = 30000;
+    private int halfOpenCalls = 3;
+
+    /**
+     * 幂等调用失败时的最大尝试次数(含第一次)，以及重试等待时间的基数和上限(毫秒)，实际等待时间在0到上限之间随机
+     */
+    private int maxAttempts = 3;
+    private long retryBackoff = 100;
+    private long retryMaxBackoff = 2000;
+
+}
@@ -0,0 +1,32 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.search")
+@Data
+public class SearchProperties {
+
+    /**
+     * 是否启用名称索引，关闭时分页查询直接使用数据库模糊查询
+     */
+    private boolean enabled = true;
+
+    /**
+     * 索引命中的id超过该数量时，退回到数据库模糊查询
+     */
+    private int maxIds = 1000;
+
+    /**
+     * 通知其他节点同步名称索引的redis频道
+     */
+    private String channel = "sky:search:sync";
+
+    /**
+     * 定期从数据库重建索引的间隔(毫秒)，修正丢失的同步通知，小于等于0表示不重建
+     */
+    private long reloadInterval = 600000;
+
+}
@@ -0,0 +1,24 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.shopping-cart")
+@Data
+public class ShoppingCartProperties {
+
+    /**
+     * 购物车商品的保留天数，超过后被清理
+     */
+    private int retentionDays = 7;
+
+    /**
+     * 清理任务的执行间隔(毫秒)、分片数和每条delete语句最多删除的行数
+     */
+    private long cleanupInterval = 60 * 60 * 1000;
+    private int cleanupShards = 8;
+    private int cleanupBatchSize = 1000;
+
+}
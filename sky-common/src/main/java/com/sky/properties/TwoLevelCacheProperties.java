@@ -0,0 +1,48 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cache")
+@Data
+public class TwoLevelCacheProperties {
+
+    /**
+     * 本地一级缓存(Caffeine)的最大条数和有效期(毫秒)
+     */
+    private long localMaximumSize = 1000;
+    private long localTtl = 60000;
+
+    /**
+     * redis二级缓存的有效期(毫秒)
+     */
+    private long redisTtl = 1800000;
+
+    /**
+     * redis中缓存key的前缀
+     */
+    private String keyPrefix = "sky:cache:";
+
+    /**
+     * 通知其他节点清理本地缓存的redis频道
+     */
+    private String channel = "sky:cache:invalidate";
+
+    /**
+     * 保存各资源版本号的redis hash
+     */
+    private String versionKey = "sky:cache:versions";
+
+    /**
+     * 预序列化响应体缓存的最大条数
+     */
+    private long responseMaximumSize = 256;
+
+    /**
+     * 响应体达到该字节数时同时缓存gzip压缩结果，小于0表示不压缩
+     */
+    private int responseGzipMinSize = 1024;
+
+}
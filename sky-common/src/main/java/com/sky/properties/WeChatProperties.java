@@ -19,5 +19,7 @@ public class WeChatProperties {
     private String weChatPayCertFilePath; //平台证书
     private String notifyUrl; //支付成功的回调地址
     private String refundNotifyUrl; //退款成功的回调地址
+    private long keyCheckInterval = 60000; //检查私钥、平台证书文件是否更新的间隔(毫秒)
+    private ResilienceProperties resilience = new ResilienceProperties(); //调用微信支付接口的隔离、熔断和重试
 
 }
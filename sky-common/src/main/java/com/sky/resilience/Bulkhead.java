@@ -0,0 +1,68 @@
+package com.sky.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 信号量隔离，限制同时调用同一个外部服务的请求数，服务变慢时最多占住这些线程
+ */
+public class Bulkhead {
+
+    private final int maxConcurrentCalls;
+    private final long maxWait;
+    private final Semaphore semaphore;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxConcurrentCalls 最大并发调用数
+     * @param maxWait            没有空位时的最长等待时间(毫秒)
+     */
+    public Bulkhead(int maxConcurrentCalls, long maxWait) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWait = maxWait;
+        this.semaphore = new Semaphore(maxConcurrentCalls);
+    }
+
+    /**
+     * 占用一个空位，没有空位时最多等待maxWait
+     *
+     * @return 占用失败返回false
+     */
+    public boolean tryAcquire() {
+        boolean acquired;
+        if (maxWait <= 0) {
+            acquired = semaphore.tryAcquire();
+        } else {
+            try {
+                acquired = semaphore.tryAcquire(maxWait, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+        }
+        if (!acquired) {
+            rejected.increment();
+        }
+        return acquired;
+    }
+
+    /**
+     * 调用结束后归还空位
+     */
+    public void release() {
+        semaphore.release();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getActiveCalls() {
+        return maxConcurrentCalls - semaphore.availablePermits();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,178 @@
+package com.sky.resilience;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于滑动窗口的熔断器
+ * 统计最近windowSize次调用的结果，失败率达到阈值后熔断，熔断期间直接拒绝；
+ * 熔断时间过后放行少量试探调用，全部成功则恢复，任意一次失败则重新熔断；
+ * 每次状态变化时代数加一，调用结果只计入放行时所在的代，放行后状态已变化的调用结果直接忽略
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * tryAcquire拒绝调用时的返回值
+     */
+    public static final long REJECTED = -1;
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openDuration;
+    private final int halfOpenCalls;
+
+    //环形缓冲区，true表示失败
+    private final boolean[] window;
+    private int next;
+    private int buffered;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param windowSize           统计的调用次数
+     * @param minimumCalls         至少有多少次调用后才计算失败率
+     * @param failureRateThreshold 熔断的失败率(百分比)
+     * @param openDuration         熔断持续时间(毫秒)
+     * @param halfOpenCalls        恢复前放行的试探调用次数
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, long openDuration, int halfOpenCalls) {
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    /**
+     * 判断本次调用是否放行
+     *
+     * @return 放行时返回当前代数，调用结束后传给onSuccess、onError或release；熔断期间返回REJECTED
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDuration) {
+                rejected.increment();
+                return REJECTED;
+            }
+            transition(State.HALF_OPEN);
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                rejected.increment();
+                return REJECTED;
+            }
+            halfOpenPermits--;
+        }
+        return generation;
+    }
+
+    /**
+     * 已放行的调用最终没有执行时归还放行名额，不计入统计
+     *
+     * @param permit tryAcquire的返回值
+     */
+    public synchronized void release(long permit) {
+        if (permit == generation && state == State.HALF_OPEN && halfOpenPermits < halfOpenCalls) {
+            halfOpenPermits++;
+        }
+    }
+
+    /**
+     * @param permit tryAcquire的返回值
+     */
+    public synchronized void onSuccess(long permit) {
+        if (permit != generation) {
+            //放行后状态已变化，如熔断前放行、试探期间才结束的调用，不算作试探结果
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * @param permit tryAcquire的返回值
+     */
+    public synchronized void onError(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (buffered >= minimumCalls && failures * 100 >= failureRateThreshold * buffered) {
+                open();
+            }
+        }
+    }
+
+    private void record(boolean failed) {
+        if (buffered == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            buffered++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void transition(State to) {
+        state = to;
+        generation++;
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void close() {
+        transition(State.CLOSED);
+        next = 0;
+        buffered = 0;
+        failures = 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return buffered;
+    }
+
+    /**
+     * 窗口内的失败率(百分比)，调用次数不足minimumCalls时返回-1
+     *
+     * @return
+     */
+    public synchronized double getFailureRate() {
+        return buffered < minimumCalls ? -1 : failures * 100.0 / buffered;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,53 @@
+package com.sky.resilience;
+
+import com.sky.properties.ResilienceProperties;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 外部服务调用保护的注册表，同一个名称的服务在整个进程中共用一个隔离和熔断器
+ */
+public final class ResilienceRegistry {
+
+    public static final String WECHAT_PAY = "wechat-pay";
+    public static final String ALI_OSS = "ali-oss";
+    public static final String HTTP_PREFIX = "http:";
+
+    private static final Map<String, Upstream> UPSTREAMS = new ConcurrentHashMap<>();
+
+    private ResilienceRegistry() {
+    }
+
+    /**
+     * 获取服务的调用保护，第一次获取时按配置创建，之后配置变化不再生效
+     *
+     * @param name
+     * @param properties
+     * @return
+     */
+    public static Upstream upstream(String name, ResilienceProperties properties) {
+        Upstream upstream = UPSTREAMS.get(name);
+        if (upstream != null) {
+            return upstream;
+        }
+        return UPSTREAMS.computeIfAbsent(name, key -> new Upstream(key, properties));
+    }
+
+    /**
+     * 所有服务的状态，按名称排序
+     *
+     * @return
+     */
+    public static List<UpstreamStats> stats() {
+        List<UpstreamStats> stats = new ArrayList<>(UPSTREAMS.size());
+        for (Upstream upstream : UPSTREAMS.values()) {
+            stats.add(upstream.stats());
+        }
+        stats.sort(Comparator.comparing(UpstreamStats::getName));
+        return stats;
+    }
+}
@@ -0,0 +1,40 @@
+package com.sky.resilience;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 重试策略，等待时间按次数指数增长，并在0到该值之间随机，避免大量请求同时重试
+ */
+public class Retry {
+
+    private final int maxAttempts;
+    private final long backoff;
+    private final long maxBackoff;
+
+    /**
+     * @param maxAttempts 最大尝试次数(含第一次)
+     * @param backoff     第一次重试等待时间的上限(毫秒)
+     * @param maxBackoff  等待时间上限的最大值(毫秒)
+     */
+    public Retry(int maxAttempts, long backoff, long maxBackoff) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoff = Math.max(0, backoff);
+        this.maxBackoff = Math.max(this.backoff, maxBackoff);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * 第attempt次尝试失败后的等待时间
+     *
+     * @param attempt 从1开始
+     * @return 等待时间(毫秒)
+     */
+    public long delay(int attempt) {
+        int shift = Math.min(attempt - 1, 20);
+        long cap = Math.min(maxBackoff, backoff << shift);
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -0,0 +1,178 @@
+package com.sky.resilience;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.BaseException;
+import com.sky.exception.UpstreamUnavailableException;
+import com.sky.properties.ResilienceProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 一个外部服务的调用保护
+ * 每次调用先经过熔断器，再占用隔离空位，幂等调用失败时按重试策略重试；
+ * 熔断或隔离空位已满时抛出UpstreamUnavailableException，不再等待外部服务
+ */
+@Slf4j
+public class Upstream {
+
+    /**
+     * 对外部服务的一次调用
+     */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    private final String name;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    public Upstream(String name, ResilienceProperties properties) {
+        this.name = name;
+        this.bulkhead = new Bulkhead(properties.getMaxConcurrentCalls(), properties.getMaxWait());
+        this.circuitBreaker = new CircuitBreaker(properties.getWindowSize(), properties.getMinimumCalls(),
+                properties.getFailureRateThreshold(), properties.getOpenDuration(), properties.getHalfOpenCalls());
+        this.retry = new Retry(properties.getMaxAttempts(), properties.getRetryBackoff(), properties.getRetryMaxBackoff());
+    }
+
+    /**
+     * 同步调用
+     *
+     * @param idempotent 是否幂等，只有幂等调用失败后才重试
+     * @param call
+     * @return 调用结果
+     * @throws E 最后一次调用抛出的异常
+     */
+    @SuppressWarnings("unchecked")
+    public <T, E extends Exception> T execute(boolean idempotent, Call<T, E> call) throws E {
+        int maxAttempts = idempotent ? retry.getMaxAttempts() : 1;
+        Exception last = null;
+        for (int attempt = 1; ; attempt++) {
+            long permit = acquire();
+            if (permit == CircuitBreaker.REJECTED) {
+                //重试过程中熔断时抛出上一次的真实异常
+                if (last != null) {
+                    throw (E) last;
+                }
+                throw new UpstreamUnavailableException(MessageConstant.UPSTREAM_UNAVAILABLE);
+            }
+            calls.increment();
+            try {
+                T result = call.call();
+                circuitBreaker.onSuccess(permit);
+                return result;
+            } catch (Exception e) {
+                failures.increment();
+                circuitBreaker.onError(permit);
+                if (attempt >= maxAttempts || !retryable(e)) {
+                    throw (E) e;
+                }
+                last = e;
+            } finally {
+                bulkhead.release();
+            }
+
+            retries.increment();
+            long delay = retry.delay(attempt);
+            log.warn("调用{}失败，{}毫秒后第{}次重试：{}", name, delay, attempt, last.getMessage());
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw (E) last;
+            }
+        }
+    }
+
+    /**
+     * 异步调用，不重试；熔断或隔离空位已满时返回异常完成的future
+     *
+     * @param call 发起调用并返回结果的future
+     * @return
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        long permit = acquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new UpstreamUnavailableException(MessageConstant.UPSTREAM_UNAVAILABLE));
+            return rejected;
+        }
+        calls.increment();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            failures.increment();
+            circuitBreaker.onError(permit);
+            throw e;
+        }
+        return future.whenComplete((result, e) -> {
+            bulkhead.release();
+            if (e == null) {
+                circuitBreaker.onSuccess(permit);
+            } else {
+                failures.increment();
+                circuitBreaker.onError(permit);
+            }
+        });
+    }
+
+    /**
+     * 依次通过熔断器和隔离，隔离空位已满时归还熔断器的放行名额
+     *
+     * @return 熔断器的放行代数，未放行时返回CircuitBreaker.REJECTED
+     */
+    private long acquire() {
+        long permit = circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            return permit;
+        }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.release(permit);
+            return CircuitBreaker.REJECTED;
+        }
+        return permit;
+    }
+
+    /**
+     * 业务异常、调用被拒绝和线程中断不重试
+     */
+    private static boolean retryable(Exception e) {
+        return !(e instanceof BaseException) && !(e instanceof InterruptedIOException);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 当前状态和累计调用统计
+     *
+     * @return
+     */
+    public UpstreamStats stats() {
+        UpstreamStats stats = new UpstreamStats();
+        stats.setName(name);
+        stats.setState(circuitBreaker.getState().name());
+        stats.setFailureRate(circuitBreaker.getFailureRate());
+        stats.setBufferedCalls(circuitBreaker.getBufferedCalls());
+        stats.setMaxConcurrentCalls(bulkhead.getMaxConcurrentCalls());
+        stats.setActiveCalls(bulkhead.getActiveCalls());
+        stats.setCalls(calls.sum());
+        stats.setFailures(failures.sum());
+        stats.setRetries(retries.sum());
+        stats.setBulkheadRejected(bulkhead.getRejected());
+        stats.setCircuitRejected(circuitBreaker.getRejected());
+        return stats;
+    }
+}
@@ -0,0 +1,34 @@
+package com.sky.resilience;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 外部服务的熔断状态和调用统计
+ */
+@Data
+public class UpstreamStats implements Serializable {
+
+    private String name; //外部服务名称
+
+    private String state; //熔断器状态 CLOSED OPEN HALF_OPEN
+
+    private double failureRate; //窗口内的失败率(百分比)，调用次数不足时为-1
+
+    private int bufferedCalls; //窗口内的调用次数
+
+    private int maxConcurrentCalls; //最大并发调用数
+
+    private int activeCalls; //正在进行的调用数
+
+    private long calls; //累计调用次数，含重试
+
+    private long failures; //累计失败次数
+
+    private long retries; //累计重试次数
+
+    private long bulkheadRejected; //并发已满被拒绝的次数
+
+    private long circuitRejected; //熔断期间被拒绝的次数
+}
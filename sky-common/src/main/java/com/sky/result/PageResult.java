@@ -15,8 +15,17 @@ import java.util.List;
 @NoArgsConstructor
 public class PageResult implements Serializable {
 
-    private long total; //总记录数
+    private long total; //总记录数，不统计总数时为-1
 
     private List records; //当前页数据集合
 
+    private String cursor; //游标分页时下一页的游标，没有下一页时为null
+
+    private Boolean hasNext; //是否还有下一页，不统计总数时返回
+
+    public PageResult(long total, List records) {
+        this.total = total;
+        this.records = records;
+    }
+
 }
@@ -0,0 +1,64 @@
+package com.sky.result;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.PageCursorInvalidException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 游标分页(seek分页)的位置
+ * 记录上一页最后一行的排序键，下一页直接按 (sort, time, id) 定位，不再使用 limit offset
+ * time 对应列表的时间排序列，如分类、员工的create_time，订单的order_time
+ * sort、time 允许为null(历史数据可能缺少这两列)，编码为空串，查询条件中按MySQL的null排序规则单独处理
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeekCursor {
+
+    private Integer sort; //排序字段，不按sort排序的列表为null
+
+    private LocalDateTime time; //时间排序字段，可能为null
+
+    private Long id; //主键，保证排序键唯一
+
+    /**
+     * 编码为对客户端不透明的游标
+     *
+     * @return
+     */
+    public String encode() {
+        String raw = (sort == null ? "" : sort.toString()) + "," + (time == null ? "" : time.toString()) + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端传回的游标，空串表示第一页，返回null
+     *
+     * @param cursor
+     * @return
+     */
+    public static SeekCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(",", -1);
+            if (parts.length != 3) {
+                throw new PageCursorInvalidException(MessageConstant.PAGE_CURSOR_INVALID);
+            }
+            Integer sort = parts[0].isEmpty() ? null : Integer.valueOf(parts[0]);
+            LocalDateTime time = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new SeekCursor(sort, time, Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new PageCursorInvalidException(MessageConstant.PAGE_CURSOR_INVALID);
+        }
+    }
+}
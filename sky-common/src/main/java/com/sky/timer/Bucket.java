@@ -0,0 +1,65 @@
+package com.sky.timer;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 时间轮的一格，格子中的key在同一时间到期
+ */
+class Bucket<K> implements Delayed {
+
+    private final Set<Entry<K>> entries = ConcurrentHashMap.newKeySet();
+    private final AtomicLong expiration = new AtomicLong(-1);
+    private final LongSupplier clock;
+
+    Bucket(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    void add(Entry<K> entry) {
+        entry.bucket = this;
+        entries.add(entry);
+    }
+
+    void remove(Entry<K> entry) {
+        entries.remove(entry);
+    }
+
+    /**
+     * @return 到期时间发生变化时返回true
+     */
+    boolean setExpiration(long expiration) {
+        return this.expiration.getAndSet(expiration) != expiration;
+    }
+
+    long getExpiration() {
+        return expiration.get();
+    }
+
+    /**
+     * 取出格子中的所有key，格子恢复为空
+     */
+    void flush(Consumer<Entry<K>> consumer) {
+        for (Entry<K> entry : entries) {
+            entries.remove(entry);
+            entry.bucket = null;
+            consumer.accept(entry);
+        }
+        expiration.set(-1);
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(Math.max(0, expiration.get() - clock.getAsLong()), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        return Long.compare(expiration.get(), ((Bucket<?>) other).expiration.get());
+    }
+}
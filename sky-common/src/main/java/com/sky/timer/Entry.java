@@ -0,0 +1,26 @@
+package com.sky.timer;
+
+/**
+ * 时间轮中登记的一个key
+ */
+class Entry<K> {
+
+    final K key;
+    final long expiration;
+    volatile Bucket<K> bucket;
+
+    Entry(K key, long expiration) {
+        this.key = key;
+        this.expiration = expiration;
+    }
+
+    /**
+     * 从所在格子中移除
+     */
+    void remove() {
+        Bucket<K> current = bucket;
+        if (current != null) {
+            current.remove(this);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.sky.timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 分层时间轮
+ * 每个key对应一个到期时间，到期的key按批交给处理器，不会提前，最多延迟约一格；同一个key重复登记时以最后一次为准，可以随时取消；
+ * 最底层时间轮的每格为tickMs，共wheelSize格，超出范围的放入上一层(每格为下一层的一圈)，层数按需增加；
+ * 只有放了key的格子才进入DelayQueue，后台线程一直睡眠到最近的格子到期，不做周期性扫描
+ *
+ * @param <K> key类型，需要正确实现equals和hashCode
+ */
+@Slf4j
+public class TimingWheel<K> implements AutoCloseable {
+
+    private final long tickMs;
+    private final int batchSize;
+    private final Consumer<List<K>> handler;
+
+    private final Map<K, Entry<K>> entries = new ConcurrentHashMap<>();
+    private final DelayQueue<Bucket<K>> queue = new DelayQueue<>();
+    //登记时已经到期的key，放入这个格子后立即到期
+    private final Bucket<K> overdue;
+    private final Wheel<K> root;
+    //登记时持有读锁，推进时间和处理到期格子时持有写锁
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    //到期的key只在推进时间的线程中使用
+    private final List<Entry<K>> expired = new ArrayList<>();
+
+    private final Thread driver;
+    private volatile boolean running = true;
+
+    /**
+     * @param name      后台线程名称
+     * @param tickMs    最底层每格的时长(毫秒)，也是到期时间的精度
+     * @param wheelSize 每层的格数
+     * @param batchSize 每次交给处理器的最大key数量
+     * @param handler   到期key的处理器，在后台线程中调用
+     */
+    public TimingWheel(String name, long tickMs, int wheelSize, int batchSize, Consumer<List<K>> handler) {
+        this(name, tickMs, wheelSize, batchSize, handler, System::currentTimeMillis);
+    }
+
+    /**
+     * @param name      后台线程名称
+     * @param tickMs    最底层每格的时长(毫秒)，也是到期时间的精度
+     * @param wheelSize 每层的格数
+     * @param batchSize 每次交给处理器的最大key数量
+     * @param handler   到期key的处理器，在后台线程中调用
+     * @param clock     时钟，返回当前毫秒数，与到期时间使用相同的时间
+     */
+    public TimingWheel(String name, long tickMs, int wheelSize, int batchSize, Consumer<List<K>> handler, LongSupplier clock) {
+        this(tickMs, wheelSize, batchSize, handler, clock, name);
+    }
+
+    /**
+     * name为null时不启动后台线程，由调用方通过advance()推进时间
+     */
+    TimingWheel(long tickMs, int wheelSize, int batchSize, Consumer<List<K>> handler, LongSupplier clock, String name) {
+        this.tickMs = tickMs;
+        this.batchSize = Math.max(1, batchSize);
+        this.handler = handler;
+        this.overdue = new Bucket<>(clock);
+        this.root = new Wheel<>(tickMs, wheelSize, clock.getAsLong(), queue, clock);
+        if (name == null) {
+            this.driver = null;
+            return;
+        }
+        this.driver = new Thread(this::run, name);
+        driver.setDaemon(true);
+        driver.start();
+    }
+
+    /**
+     * 登记key的到期时间，已登记的key替换为新的到期时间
+     *
+     * @param key
+     * @param deadline 到期时间(毫秒)，已经过去的时间会尽快到期
+     */
+    public void schedule(K key, long deadline) {
+        //向上取整到tickMs的整数倍，保证不会提前到期
+        long remainder = deadline % tickMs;
+        Entry<K> entry = new Entry<>(key, remainder == 0 ? deadline : deadline - remainder + tickMs);
+        Entry<K> previous = entries.put(key, entry);
+        if (previous != null) {
+            previous.remove();
+        }
+        lock.readLock().lock();
+        try {
+            if (!root.add(entry)) {
+                overdue.add(entry);
+                if (overdue.setExpiration(0)) {
+                    queue.offer(overdue);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 取消key，已经交给处理器的key无法取消
+     *
+     * @param key
+     * @return key未登记或已到期时返回false
+     */
+    public boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.remove();
+        return true;
+    }
+
+    /**
+     * 已登记未到期的key数量
+     *
+     * @return
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (driver != null) {
+            driver.interrupt();
+        }
+    }
+
+    /**
+     * 处理按时钟已经到期的格子，不等待
+     * 没有后台线程时由调用方推进时间
+     */
+    void advance() {
+        Bucket<K> bucket = queue.poll();
+        if (bucket != null) {
+            advance(bucket);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                advance(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 一次处理所有已到期的格子，未到期的key重新放入下层时间轮，到期的key按批交给处理器
+     *
+     * @param bucket 已经到期的第一个格子
+     */
+    private void advance(Bucket<K> bucket) {
+        try {
+            lock.writeLock().lock();
+            try {
+                while (bucket != null) {
+                    root.advanceClock(bucket.getExpiration());
+                    bucket.flush(entry -> {
+                        if (entries.get(entry.key) == entry && !root.add(entry)) {
+                            expired.add(entry);
+                        }
+                    });
+                    bucket = queue.poll();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            deliver();
+        } finally {
+            expired.clear();
+        }
+    }
+
+    private void deliver() {
+        List<K> batch = new ArrayList<>(Math.min(batchSize, expired.size()));
+        for (Entry<K> entry : expired) {
+            //交给处理器之前被取消或重新登记的key跳过
+            if (!entries.remove(entry.key, entry)) {
+                continue;
+            }
+            batch.add(entry.key);
+            if (batch.size() == batchSize) {
+                handle(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            handle(batch);
+        }
+    }
+
+    private void handle(List<K> batch) {
+        try {
+            handler.accept(batch);
+        } catch (RuntimeException e) {
+            log.error("处理{}个到期key失败：{}", batch.size(), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.sky.timer;
+
+import java.util.concurrent.DelayQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * 时间轮的一层，范围不够时创建上一层
+ */
+class Wheel<K> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final Bucket<K>[] buckets;
+    private final DelayQueue<Bucket<K>> queue;
+    private final LongSupplier clock;
+
+    //当前时间，tickMs的整数倍，只在持有写锁时修改
+    private long currentTime;
+    private volatile Wheel<K> overflow;
+
+    @SuppressWarnings("unchecked")
+    Wheel(long tickMs, int wheelSize, long startMs, DelayQueue<Bucket<K>> queue, LongSupplier clock) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.queue = queue;
+        this.clock = clock;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket<>(clock);
+        }
+    }
+
+    /**
+     * 放入对应的格子
+     *
+     * @return 已经到期时返回false
+     */
+    boolean add(Entry<K> entry) {
+        long expiration = entry.expiration;
+        if (expiration < currentTime + tickMs) {
+            return false;
+        }
+        if (expiration < currentTime + interval) {
+            long virtualId = expiration / tickMs;
+            Bucket<K> bucket = buckets[(int) (virtualId % wheelSize)];
+            bucket.add(entry);
+            //格子的到期时间变化说明是空格子或上一圈已经处理完，需要重新放入DelayQueue
+            if (bucket.setExpiration(virtualId * tickMs)) {
+                queue.offer(bucket);
+            }
+            return true;
+        }
+        return overflow().add(entry);
+    }
+
+    void advanceClock(long time) {
+        if (time >= currentTime + tickMs) {
+            currentTime = time - (time % tickMs);
+            Wheel<K> wheel = overflow;
+            if (wheel != null) {
+                wheel.advanceClock(currentTime);
+            }
+        }
+    }
+
+    private Wheel<K> overflow() {
+        Wheel<K> wheel = overflow;
+        if (wheel == null) {
+            synchronized (this) {
+                wheel = overflow;
+                if (wheel == null) {
+                    wheel = new Wheel<>(interval, wheelSize, currentTime, queue, clock);
+                    overflow = wheel;
+                }
+            }
+        }
+        return wheel;
+    }
+}
@@ -4,13 +4,45 @@ import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
 import com.aliyun.oss.OSSException;
-import lombok.AllArgsConstructor;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.sky.exception.UpstreamUnavailableException;
+import com.sky.properties.ResilienceProperties;
+import com.sky.resilience.ResilienceRegistry;
+import com.sky.resilience.Upstream;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * 阿里云OSS文件上传
+ * 整个生命周期共用一个OSS客户端，销毁时调用shutdown关闭；
+ * 大文件边读边分片，多个分片并行上传，同时在内存中的分片数量有上限；
+ * 上传经过隔离和熔断，字节数组上传失败时按配置重试，流只能读取一次，失败时不重试
+ */
 @Data
-@AllArgsConstructor
 @Slf4j
 public class AliOssUtil {
 
@@ -19,39 +51,244 @@ public class AliOssUtil {
     private String accessKeySecret;
     private String bucketName;
 
+    private long multipartThreshold = 16 * 1024 * 1024; //文件达到该字节数时使用分片上传
+    private int partSize = 5 * 1024 * 1024; //分片大小(字节)
+    private int uploadThreads = 4; //并行上传分片的线程数
+    private ResilienceProperties resilience = new ResilienceProperties(); //上传的隔离、熔断和重试
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile OSS ossClient;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile ExecutorService uploadExecutor;
+
+    public AliOssUtil(String endpoint, String accessKeyId, String accessKeySecret, String bucketName) {
+        this.endpoint = endpoint;
+        this.accessKeyId = accessKeyId;
+        this.accessKeySecret = accessKeySecret;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * 使用外部创建的客户端，如本地的OSS兼容服务或测试用的实现
+     *
+     * @param ossClient
+     * @param endpoint   用于拼接文件访问路径
+     * @param bucketName
+     */
+    public AliOssUtil(OSS ossClient, String endpoint, String bucketName) {
+        this.ossClient = ossClient;
+        this.endpoint = endpoint;
+        this.bucketName = bucketName;
+    }
+
     /**
      * 文件上传
      *
      * @param bytes
      * @param objectName
-     * @return
+     * @return 文件访问路径，上传失败时返回null
      */
     public String upload(byte[] bytes, String objectName) {
-
-        // 创建OSSClient实例。
-        OSS ossClient = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret);
-
         try {
-            // 创建PutObject请求。
-            ossClient.putObject(bucketName, objectName, new ByteArrayInputStream(bytes));
+            return upstream().execute(true, () -> doUpload(new ByteArrayInputStream(bytes), bytes.length, objectName));
         } catch (OSSException oe) {
-            System.out.println("Caught an OSSException, which means your request made it to OSS, "
-                    + "but was rejected with an error response for some reason.");
-            System.out.println("Error Message:" + oe.getErrorMessage());
-            System.out.println("Error Code:" + oe.getErrorCode());
-            System.out.println("Request ID:" + oe.getRequestId());
-            System.out.println("Host ID:" + oe.getHostId());
+            //请求到达了OSS，但被拒绝
+            log.error("文件上传失败：{}，Error Message:{}，Error Code:{}，Request ID:{}，Host ID:{}",
+                    objectName, oe.getErrorMessage(), oe.getErrorCode(), oe.getRequestId(), oe.getHostId());
         } catch (ClientException ce) {
-            System.out.println("Caught an ClientException, which means the client encountered "
-                    + "a serious internal problem while trying to communicate with OSS, "
-                    + "such as not being able to access the network.");
-            System.out.println("Error Message:" + ce.getMessage());
-        } finally {
-            if (ossClient != null) {
-                ossClient.shutdown();
+            //客户端与OSS通信时出现问题，如网络不可用
+            log.error("文件上传失败：{}，Error Message:{}", objectName, ce.getMessage());
+        } catch (IOException | UpstreamUnavailableException e) {
+            log.error("文件上传失败：{}，Error Message:{}", objectName, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 流式上传，不需要把整个文件读入内存
+     * 长度小于multipartThreshold时一次上传，否则分片并行上传；上传失败时抛出异常，已上传的分片会被清理
+     *
+     * @param in         文件内容，由调用方关闭
+     * @param length     文件长度，未知时传-1，按分片上传
+     * @param objectName
+     * @return 文件访问路径
+     * @throws IOException
+     */
+    public String upload(InputStream in, long length, String objectName) throws IOException {
+        return upstream().execute(false, () -> doUpload(in, length, objectName));
+    }
+
+    private String doUpload(InputStream in, long length, String objectName) throws IOException {
+        if (length >= 0 && length < multipartThreshold) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(length);
+            // 创建PutObject请求。
+            client().putObject(bucketName, objectName, in, metadata);
+        } else {
+            multipartUpload(in, objectName);
+        }
+        String url = url(objectName);
+        log.info("文件上传到:{}", url);
+        return url;
+    }
+
+    /**
+     * 关闭OSS客户端和分片上传线程
+     */
+    public synchronized void shutdown() {
+        if (ossClient != null) {
+            ossClient.shutdown();
+            ossClient = null;
+        }
+        if (uploadExecutor != null) {
+            uploadExecutor.shutdownNow();
+            uploadExecutor = null;
+        }
+    }
+
+    /**
+     * 分片上传，读取线程每读满一个分片交给上传线程，分片缓冲区用完时等待上传线程归还
+     */
+    private void multipartUpload(InputStream in, String objectName) throws IOException {
+        OSS client = client();
+        ExecutorService executor = executor();
+        String uploadId = client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, objectName)).getUploadId();
+        List<Future<PartETag>> parts = new ArrayList<>();
+        Semaphore buffers = new Semaphore(uploadThreads);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        try {
+            int partNumber = 1;
+            while (failure.get() == null) {
+                buffers.acquire();
+                byte[] buffer = new byte[partSize];
+                int read = readFully(in, buffer);
+                if (read == 0) {
+                    buffers.release();
+                    break;
+                }
+                int number = partNumber++;
+                parts.add(executor.submit(() -> {
+                    try {
+                        UploadPartRequest request = new UploadPartRequest(bucketName, objectName, uploadId, number,
+                                new ByteArrayInputStream(buffer, 0, read), read);
+                        return client.uploadPart(request).getPartETag();
+                    } catch (RuntimeException e) {
+                        //一个分片失败后不再继续读取后面的分片
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    } finally {
+                        buffers.release();
+                    }
+                }));
+                if (read < partSize) {
+                    break;
+                }
+            }
+
+            if (parts.isEmpty()) {
+                //长度未知的空流，OSS不能完成没有分片的分片上传，改为上传空文件
+                abort(client, objectName, uploadId, parts);
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(0);
+                client.putObject(bucketName, objectName, new ByteArrayInputStream(new byte[0]), metadata);
+                return;
+            }
+            List<PartETag> partETags = new ArrayList<>(parts.size());
+            for (Future<PartETag> part : parts) {
+                partETags.add(part.get());
+            }
+            client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, partETags));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(client, objectName, uploadId, parts);
+            throw new InterruptedIOException("分片上传被中断：" + objectName);
+        } catch (ExecutionException e) {
+            abort(client, objectName, uploadId, parts);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (IOException | RuntimeException e) {
+            abort(client, objectName, uploadId, parts);
+            throw e;
+        }
+    }
+
+    private void abort(OSS client, String objectName, String uploadId, List<Future<PartETag>> parts) {
+        for (Future<PartETag> part : parts) {
+            part.cancel(true);
+        }
+        try {
+            client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectName, uploadId));
+        } catch (RuntimeException e) {
+            log.warn("取消分片上传失败：{}，{}", objectName, e.getMessage());
+        }
+    }
+
+    /**
+     * 读满缓冲区或读到流末尾
+     *
+     * @return 实际读取的字节数
+     */
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int n = in.read(buffer, total, buffer.length - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    private Upstream upstream() {
+        return ResilienceRegistry.upstream(ResilienceRegistry.ALI_OSS, resilience);
+    }
+
+    private OSS client() {
+        OSS client = ossClient;
+        if (client == null) {
+            synchronized (this) {
+                client = ossClient;
+                if (client == null) {
+                    // 创建OSSClient实例。
+                    client = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret);
+                    ossClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private ExecutorService executor() {
+        ExecutorService executor = uploadExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = uploadExecutor;
+                if (executor == null) {
+                    AtomicInteger index = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(uploadThreads, runnable -> {
+                        Thread thread = new Thread(runnable, "oss-upload-" + index.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    uploadExecutor = executor;
+                }
             }
         }
+        return executor;
+    }
 
+    private String url(String objectName) {
         //文件访问路径规则 https://BucketName.Endpoint/ObjectName
         StringBuilder stringBuilder = new StringBuilder("https://");
         stringBuilder
@@ -60,9 +297,6 @@ public class AliOssUtil {
                 .append(endpoint)
                 .append("/")
                 .append(objectName);
-
-        log.info("文件上传到:{}", stringBuilder.toString());
-
         return stringBuilder.toString();
     }
 }
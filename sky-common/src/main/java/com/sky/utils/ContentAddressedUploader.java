@@ -0,0 +1,144 @@
+package com.sky.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按内容去重的文件上传
+ * 先计算文件内容的SHA-256摘要，以 摘要+扩展名 作为对象名，索引中已有该对象时直接返回之前的访问路径，不再上传；
+ * 否则上传，并把 对象名 -> 访问路径 追加到索引文件，重启后从索引文件恢复
+ * 内容相同但扩展名不同的文件分别上传，访问路径的扩展名与上传的文件一致
+ */
+@Slf4j
+public class ContentAddressedUploader {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final AliOssUtil aliOssUtil;
+    private final Path indexFile;
+    private final Map<String, String> index = new ConcurrentHashMap<>();
+
+    /**
+     * @param aliOssUtil
+     * @param indexFile 索引文件路径，不存在时自动创建
+     * @throws IOException
+     */
+    public ContentAddressedUploader(AliOssUtil aliOssUtil, String indexFile) throws IOException {
+        this.aliOssUtil = aliOssUtil;
+        this.indexFile = Paths.get(indexFile);
+        load();
+    }
+
+    /**
+     * 上传文件，内容相同的文件只上传一次
+     *
+     * @param source    文件内容，会读取两次：一次计算摘要，未命中时再读取一次上传
+     * @param length    文件长度，未知时传-1
+     * @param extension 文件扩展名，如 .png，没有时传空串
+     * @return 文件访问路径
+     * @throws IOException
+     */
+    public String upload(InputStreamSource source, long length, String extension) throws IOException {
+        String objectName = digest(source) + extension;
+        String url = index.get(objectName);
+        if (url != null) {
+            log.info("文件已存在，跳过上传：{}", url);
+            return url;
+        }
+        try (InputStream in = source.getInputStream()) {
+            url = aliOssUtil.upload(in, length, objectName);
+        }
+        record(objectName, url);
+        return url;
+    }
+
+    /**
+     * 已索引的文件数量
+     *
+     * @return
+     */
+    public int size() {
+        return index.size();
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                //每行为 对象名 空格 访问路径，写了一半的行直接跳过
+                int space = line.indexOf(' ');
+                if (space >= 64 && line.length() > space + 1) {
+                    String url = line.substring(space + 1);
+                    index.put(space == 64 ? objectName(url) : line.substring(0, space), url);
+                }
+            }
+        }
+        log.info("上传文件索引加载完成，共{}条", index.size());
+    }
+
+    /**
+     * 旧索引文件每行以摘要开头，对象名取访问路径的最后一段
+     */
+    private static String objectName(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+
+    private synchronized void record(String objectName, String url) {
+        if (index.putIfAbsent(objectName, url) != null) {
+            return;
+        }
+        try {
+            Path parent = indexFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(objectName + " " + url + "\n");
+            }
+        } catch (IOException e) {
+            //索引写入失败不影响本次上传，重启后该文件会再上传一次
+            log.warn("写入上传文件索引失败：{}", e.getMessage());
+        }
+    }
+
+    private static String digest(InputStreamSource source) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new DigestInputStream(source.getInputStream(), messageDigest)) {
+            while (in.read(buffer) >= 0) {
+                //读取过程中计算摘要
+            }
+        }
+        byte[] hash = messageDigest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,56 @@
+package com.sky.utils;
+
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 将异步结果转换为DeferredResult
+ * controller返回DeferredResult后立即释放请求线程，结果就绪时再由Spring MVC写出响应
+ */
+public class DeferredResultUtil {
+
+    /**
+     * 超时只结束本次请求，不会停止future对应的操作，需要停止时由产生future的一方自行处理超时
+     *
+     * @param future
+     * @param timeout 超时时间(毫秒)，超时后按Spring MVC的异步超时处理
+     * @return
+     */
+    public static <T> DeferredResult<T> of(CompletableFuture<T> future, long timeout) {
+        return bind(new DeferredResult<>(timeout), future);
+    }
+
+    /**
+     * 超时只结束本次请求，不会停止future对应的操作
+     *
+     * @param future
+     * @param timeout       超时时间(毫秒)
+     * @param timeoutResult 超时时返回的结果
+     * @return
+     */
+    public static <T> DeferredResult<T> of(CompletableFuture<T> future, long timeout, T timeoutResult) {
+        return bind(new DeferredResult<>(timeout, timeoutResult), future);
+    }
+
+    private static <T> DeferredResult<T> bind(DeferredResult<T> deferredResult, CompletableFuture<T> future) {
+        future.whenComplete((value, e) -> {
+            if (e == null) {
+                deferredResult.setResult(value);
+            } else {
+                //异常交给全局异常处理器处理
+                deferredResult.setErrorResult(unwrap(e));
+            }
+        });
+        return deferredResult;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
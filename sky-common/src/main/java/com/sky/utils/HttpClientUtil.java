@@ -1,8 +1,11 @@
 package com.sky.utils;
 
 import com.alibaba.fastjson.JSONObject;
+import com.sky.properties.HttpClientProperties;
+import com.sky.resilience.ResilienceRegistry;
+import com.sky.resilience.Upstream;
+import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -10,22 +13,74 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Http工具类
+ * 所有请求共用一个带连接池的客户端，由HttpClientConfiguration按配置初始化，
+ * 在Spring容器之外使用时按默认配置创建；
+ * doGetAsync、doPostAsync使用基于NIO的异步客户端，第一次调用时创建；
+ * 每个目标主机单独隔离和熔断，GET请求失败时按配置重试
  */
 public class HttpClientUtil {
 
-    static final  int TIMEOUT_MSEC = 5 * 1000;
+    private static volatile HttpClientProperties httpClientProperties = new HttpClientProperties();
+    private static volatile PooledHttpClient pooledHttpClient;
+    private static volatile PooledHttpAsyncClient pooledHttpAsyncClient;
+
+    /**
+     * 按配置创建共享客户端，替换之前的客户端
+     * @param properties
+     */
+    public static synchronized void init(HttpClientProperties properties) {
+        httpClientProperties = properties;
+        PooledHttpClient previous = pooledHttpClient;
+        pooledHttpClient = new PooledHttpClient(properties);
+        closeQuietly(previous);
+        //异步客户端在下次使用时按新配置重新创建
+        closeQuietly(pooledHttpAsyncClient);
+        pooledHttpAsyncClient = null;
+    }
+
+    /**
+     * 关闭共享客户端和连接池
+     */
+    public static synchronized void shutdown() {
+        closeQuietly(pooledHttpClient);
+        pooledHttpClient = null;
+        closeQuietly(pooledHttpAsyncClient);
+        pooledHttpAsyncClient = null;
+    }
+
+    /**
+     * 连接池统计，第一条为合计，其余为各目标地址
+     * @return
+     */
+    public static List<HttpPoolStats> poolStats() {
+        return pool().stats();
+    }
+
+    /**
+     * 异步客户端连接池统计，还没有发送过异步请求时返回空列表
+     * @return
+     */
+    public static List<HttpPoolStats> asyncPoolStats() {
+        PooledHttpAsyncClient client = pooledHttpAsyncClient;
+        return client == null ? Collections.emptyList() : client.stats();
+    }
 
     /**
      * 发送GET方式请求
@@ -34,11 +89,10 @@ public class HttpClientUtil {
      * @return
      */
     public static String doGet(String url,Map<String,String> paramMap){
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
+        // 获取共享的Httpclient对象
+        CloseableHttpClient httpClient = client();
 
         String result = "";
-        CloseableHttpResponse response = null;
 
         try{
             URIBuilder builder = new URIBuilder(url);
@@ -49,25 +103,27 @@ public class HttpClientUtil {
             }
             URI uri = builder.build();
 
-            //创建GET请求
-            HttpGet httpGet = new HttpGet(uri);
+            result = upstream(uri).execute(true, () -> {
+                //创建GET请求
+                HttpGet httpGet = new HttpGet(uri);
 
-            //发送请求
-            response = httpClient.execute(httpGet);
-
-            //判断响应状态
-            if(response.getStatusLine().getStatusCode() == 200){
-                result = EntityUtils.toString(response.getEntity(),"UTF-8");
-            }
+                //发送请求，关闭响应时连接归还连接池
+                try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+                    //判断响应状态
+                    int statusCode = response.getStatusLine().getStatusCode();
+                    if(statusCode == 200){
+                        return EntityUtils.toString(response.getEntity(),"UTF-8");
+                    }
+                    EntityUtils.consume(response.getEntity());
+                    //服务端错误计入熔断统计并重试
+                    if (statusCode >= 500) {
+                        throw new IOException("服务端错误：" + statusCode);
+                    }
+                    return "";
+                }
+            });
         }catch (Exception e){
             e.printStackTrace();
-        }finally {
-            try {
-                response.close();
-                httpClient.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
         }
 
         return result;
@@ -81,43 +137,21 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        CloseableHttpResponse response = null;
-        String resultString = "";
-
-        try {
-            // 创建Http Post请求
-            HttpPost httpPost = new HttpPost(url);
-
-            // 创建参数列表
-            if (paramMap != null) {
-                List<NameValuePair> paramList = new ArrayList();
-                for (Map.Entry<String, String> param : paramMap.entrySet()) {
-                    paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
-                }
-                // 模拟表单
-                UrlEncodedFormEntity entity = new UrlEncodedFormEntity(paramList);
-                httpPost.setEntity(entity);
-            }
-
-            httpPost.setConfig(builderRequestConfig());
+        // 创建Http Post请求
+        HttpPost httpPost = new HttpPost(url);
 
-            // 执行http请求
-            response = httpClient.execute(httpPost);
-
-            resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
-        } finally {
-            try {
-                response.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+        // 创建参数列表
+        if (paramMap != null) {
+            List<NameValuePair> paramList = new ArrayList();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
             }
+            // 模拟表单
+            UrlEncodedFormEntity entity = new UrlEncodedFormEntity(paramList);
+            httpPost.setEntity(entity);
         }
 
-        return resultString;
+        return execute(httpPost);
     }
 
     /**
@@ -128,52 +162,140 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost4Json(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        CloseableHttpResponse response = null;
-        String resultString = "";
+        // 创建Http Post请求
+        HttpPost httpPost = new HttpPost(url);
 
-        try {
-            // 创建Http Post请求
-            HttpPost httpPost = new HttpPost(url);
+        if (paramMap != null) {
+            //构造json格式数据
+            JSONObject jsonObject = new JSONObject();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                jsonObject.put(param.getKey(),param.getValue());
+            }
+            StringEntity entity = new StringEntity(jsonObject.toString(),"utf-8");
+            //设置请求编码
+            entity.setContentEncoding("utf-8");
+            //设置数据类型
+            entity.setContentType("application/json");
+            httpPost.setEntity(entity);
+        }
+
+        return execute(httpPost);
+    }
 
+    /**
+     * 异步发送GET方式请求，等待响应期间不占用调用线程
+     * 响应状态不是200时结果为空串，请求失败时future异常完成
+     * @param url
+     * @param paramMap
+     * @return
+     */
+    public static CompletableFuture<String> doGetAsync(String url, Map<String, String> paramMap) {
+        HttpGet httpGet;
+        try {
+            URIBuilder builder = new URIBuilder(url);
             if (paramMap != null) {
-                //构造json格式数据
-                JSONObject jsonObject = new JSONObject();
                 for (Map.Entry<String, String> param : paramMap.entrySet()) {
-                    jsonObject.put(param.getKey(),param.getValue());
+                    builder.addParameter(param.getKey(), param.getValue());
                 }
-                StringEntity entity = new StringEntity(jsonObject.toString(),"utf-8");
-                //设置请求编码
-                entity.setContentEncoding("utf-8");
-                //设置数据类型
-                entity.setContentType("application/json");
-                httpPost.setEntity(entity);
             }
+            httpGet = new HttpGet(builder.build());
+        } catch (URISyntaxException e) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        return upstream(httpGet.getURI()).executeAsync(() -> asyncPool().execute(httpGet)).thenApply(response ->
+                response.getStatusLine().getStatusCode() == 200 ? readBody(response) : "");
+    }
 
-            httpPost.setConfig(builderRequestConfig());
+    /**
+     * 异步发送POST方式请求，参数以表单形式提交，等待响应期间不占用调用线程
+     * @param url
+     * @param paramMap
+     * @return
+     */
+    public static CompletableFuture<String> doPostAsync(String url, Map<String, String> paramMap) {
+        HttpPost httpPost = new HttpPost(url);
+        if (paramMap != null) {
+            List<NameValuePair> paramList = new ArrayList<>();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
+            }
+            httpPost.setEntity(new UrlEncodedFormEntity(paramList, StandardCharsets.UTF_8));
+        }
+        return upstream(httpPost.getURI()).executeAsync(() -> asyncPool().execute(httpPost)).thenApply(HttpClientUtil::readBody);
+    }
 
-            // 执行http请求
-            response = httpClient.execute(httpPost);
+    /**
+     * 读取异步响应体，异步客户端已将响应体完整读入内存，不会阻塞I/O线程
+     */
+    private static String readBody(HttpResponse response) {
+        try {
+            return EntityUtils.toString(response.getEntity(), "UTF-8");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-            resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
-        } finally {
-            try {
-                response.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+    /**
+     * 执行POST请求并读取响应体，关闭响应时连接归还连接池；POST请求不保证幂等，失败时不重试
+     */
+    private static String execute(HttpPost httpPost) throws IOException {
+        return upstream(httpPost.getURI()).execute(false, () -> {
+            try (CloseableHttpResponse response = client().execute(httpPost)) {
+                return EntityUtils.toString(response.getEntity(), "UTF-8");
+            }
+        });
+    }
+
+    /**
+     * 目标主机的隔离和熔断器
+     */
+    private static Upstream upstream(URI uri) {
+        return ResilienceRegistry.upstream(ResilienceRegistry.HTTP_PREFIX + uri.getHost(), httpClientProperties.getResilience());
+    }
+
+    private static CloseableHttpClient client() {
+        return pool().getHttpClient();
+    }
+
+    private static PooledHttpClient pool() {
+        PooledHttpClient client = pooledHttpClient;
+        if (client == null) {
+            synchronized (HttpClientUtil.class) {
+                client = pooledHttpClient;
+                if (client == null) {
+                    client = new PooledHttpClient(httpClientProperties);
+                    pooledHttpClient = client;
+                }
             }
         }
+        return client;
+    }
 
-        return resultString;
+    private static PooledHttpAsyncClient asyncPool() {
+        PooledHttpAsyncClient client = pooledHttpAsyncClient;
+        if (client == null) {
+            synchronized (HttpClientUtil.class) {
+                client = pooledHttpAsyncClient;
+                if (client == null) {
+                    client = new PooledHttpAsyncClient(httpClientProperties);
+                    pooledHttpAsyncClient = client;
+                }
+            }
+        }
+        return client;
     }
-    private static RequestConfig builderRequestConfig() {
-        return RequestConfig.custom()
-                .setConnectTimeout(TIMEOUT_MSEC)
-                .setConnectionRequestTimeout(TIMEOUT_MSEC)
-                .setSocketTimeout(TIMEOUT_MSEC).build();
+
+    private static void closeQuietly(Closeable client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
 }
@@ -0,0 +1,21 @@
+package com.sky.utils;
+
+import lombok.Data;
+
+/**
+ * http连接池统计
+ */
+@Data
+public class HttpPoolStats {
+
+    private String route; //目标地址，合计时为null
+
+    private int leased; //正在使用的连接数
+
+    private int pending; //等待获取连接的请求数
+
+    private int available; //空闲可复用的连接数
+
+    private int max; //最大连接数
+
+}
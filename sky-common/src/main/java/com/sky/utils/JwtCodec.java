@@ -0,0 +1,63 @@
+package com.sky.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * jwt编解码器
+ * 签名秘钥和解析器只在创建时构建一次，之后每次签发、解析令牌都直接复用，线程安全
+ */
+public class JwtCodec {
+
+    // 指定签名的时候使用的签名算法，也就是header那部分
+    private static final SignatureAlgorithm SIGNATURE_ALGORITHM = SignatureAlgorithm.HS256;
+
+    private final Key signingKey;
+    private final JwtParser parser;
+
+    /**
+     * @param secretKey jwt秘钥
+     */
+    public JwtCodec(String secretKey) {
+        this.signingKey = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM.getJcaName());
+        // 解析器设置好签名秘钥后只读，可以在多个线程间共享
+        this.parser = Jwts.parser().setSigningKey(signingKey);
+    }
+
+    /**
+     * 生成jwt
+     *
+     * @param ttlMillis jwt过期时间(毫秒)
+     * @param claims    设置的信息
+     * @return
+     */
+    public String create(long ttlMillis, Map<String, Object> claims) {
+        // 生成JWT的时间
+        Date exp = new Date(System.currentTimeMillis() + ttlMillis);
+
+        return Jwts.builder()
+                // 私有声明要先设置，否则会覆盖标准声明
+                .setClaims(claims)
+                .signWith(SIGNATURE_ALGORITHM, signingKey)
+                .setExpiration(exp)
+                .compact();
+    }
+
+    /**
+     * Token解密
+     *
+     * @param token 加密后的token
+     * @return
+     */
+    public Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,107 @@
+package com.sky.utils;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已校验jwt令牌缓存
+ * 同一个令牌在缓存有效期内不再重复进行Base64解码、HS256验签和claims解析
+ */
+public class JwtTokenCache {
+
+    private final JwtCodec codec;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    //key为令牌的SHA-256摘要，避免在内存中长期持有令牌原文
+    private final Map<ByteBuffer, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param secretKey jwt秘钥，一个缓存实例只对应一个秘钥，避免用其他秘钥签发的令牌命中
+     * @param maxSize   最多缓存的令牌数量
+     * @param ttlMillis 缓存有效期(毫秒)，令牌自身的exp更早时以exp为准
+     */
+    public JwtTokenCache(String secretKey, int maxSize, long ttlMillis) {
+        this.codec = JwtUtil.codec(secretKey);
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 解析令牌，命中缓存时直接返回之前校验通过的claims
+     *
+     * @param token 加密后的token
+     * @return
+     */
+    public Claims parse(String token) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            return codec.parse(token);
+        }
+
+        ByteBuffer key = digest(token);
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > now) {
+                return entry.claims;
+            }
+            cache.remove(key, entry);
+        }
+
+        //未命中或已过期，重新校验，校验失败直接抛出异常，不进入缓存
+        Claims claims = codec.parse(token);
+        long expiresAt = now + ttlMillis;
+        Date exp = claims.getExpiration();
+        if (exp != null) {
+            expiresAt = Math.min(expiresAt, exp.getTime());
+        }
+        if (expiresAt > now) {
+            if (cache.size() >= maxSize) {
+                evict(now);
+            }
+            cache.put(key, new Entry(claims, expiresAt));
+        }
+        return claims;
+    }
+
+    /**
+     * 缓存已满时先清理过期令牌，仍然超出上限则随机淘汰一部分
+     *
+     * @param now
+     */
+    private void evict(long now) {
+        cache.values().removeIf(e -> e.expiresAt <= now);
+        Iterator<ByteBuffer> iterator = cache.keySet().iterator();
+        while (cache.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+        private final Claims claims;
+        private final long expiresAt;
+
+        private Entry(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
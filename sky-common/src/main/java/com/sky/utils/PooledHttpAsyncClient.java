@@ -0,0 +1,139 @@
+package com.sky.utils;
+
+import com.sky.properties.HttpClientProperties;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于NIO的异步http客户端
+ * 所有请求由固定数量的I/O线程处理，等待响应期间不占用调用方线程；
+ * 连接池配置与PooledHttpClient相同，后台线程定期关闭过期和长时间空闲的连接。线程安全
+ */
+public class PooledHttpAsyncClient implements Closeable {
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient httpAsyncClient;
+    private final ScheduledExecutorService evictor;
+
+    public PooledHttpAsyncClient(HttpClientProperties properties) {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(properties.getIoThreads())
+                .setConnectTimeout(properties.getConnectTimeout())
+                .setSoTimeout(properties.getSocketTimeout())
+                .build();
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("创建异步http客户端失败", e);
+        }
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        for (Map.Entry<String, Integer> route : properties.getRoutes().entrySet()) {
+            connectionManager.setMaxPerRoute(PooledHttpClient.route(route.getKey()), route.getValue());
+        }
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(properties.getConnectTimeout())
+                .setConnectionRequestTimeout(properties.getConnectionRequestTimeout())
+                .setSocketTimeout(properties.getSocketTimeout())
+                .build();
+
+        httpAsyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(PooledHttpClient.keepAliveStrategy(properties.getKeepAlive()))
+                .build();
+        httpAsyncClient.start();
+
+        long maxIdleTime = properties.getMaxIdleTime();
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-async-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(maxIdleTime / 2, 1000);
+        evictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS);
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 异步执行请求
+     * 返回的future在I/O线程中完成，后续处理较重时应使用thenApplyAsync等方法切换到其他线程；
+     * 取消future时同时取消请求
+     *
+     * @param request
+     * @return
+     */
+    public CompletableFuture<HttpResponse> execute(HttpUriRequest request) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        Future<HttpResponse> execution = httpAsyncClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        future.whenComplete((response, e) -> {
+            if (future.isCancelled()) {
+                execution.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 连接池合计统计，以及每个目标地址的统计
+     *
+     * @return
+     */
+    public List<HttpPoolStats> stats() {
+        List<HttpPoolStats> stats = new ArrayList<>();
+        stats.add(PooledHttpClient.toStats(null, connectionManager.getTotalStats()));
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            stats.add(PooledHttpClient.toStats(route.getTargetHost().toURI(), connectionManager.getStats(route)));
+        }
+        return stats;
+    }
+
+    /**
+     * 关闭客户端、I/O线程和连接池
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        evictor.shutdownNow();
+        httpAsyncClient.close();
+    }
+}
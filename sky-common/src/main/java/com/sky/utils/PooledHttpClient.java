@@ -0,0 +1,119 @@
+package com.sky.utils;
+
+import com.sky.properties.HttpClientProperties;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于连接池的http客户端
+ * 所有请求共用一个连接池，连接在请求之间保持并复用，避免每次请求都重新建立TCP连接和TLS握手；
+ * 后台线程定期关闭过期和长时间空闲的连接。线程安全
+ */
+public class PooledHttpClient implements Closeable {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    public PooledHttpClient(HttpClientProperties properties) {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(properties.getValidateAfterInactivity());
+        for (Map.Entry<String, Integer> route : properties.getRoutes().entrySet()) {
+            connectionManager.setMaxPerRoute(route(route.getKey()), route.getValue());
+        }
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(properties.getConnectTimeout())
+                .setConnectionRequestTimeout(properties.getConnectionRequestTimeout())
+                .setSocketTimeout(properties.getSocketTimeout())
+                .build();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy(properties.getKeepAlive()))
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getMaxIdleTime(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 共享的客户端，使用后只需要关闭响应，不要关闭客户端
+     *
+     * @return
+     */
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * 连接池合计统计，以及每个目标地址的统计
+     *
+     * @return
+     */
+    public List<HttpPoolStats> stats() {
+        List<HttpPoolStats> stats = new ArrayList<>();
+        stats.add(toStats(null, connectionManager.getTotalStats()));
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            stats.add(toStats(route.getTargetHost().toURI(), connectionManager.getStats(route)));
+        }
+        return stats;
+    }
+
+    /**
+     * 关闭客户端和连接池，同时停止空闲连接清理线程
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * 与请求时计算的路由保持一致：未指定端口时使用协议默认端口，https为安全连接
+     */
+    static HttpRoute route(String uri) {
+        HttpHost host = HttpHost.create(uri);
+        boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+        if (host.getPort() <= 0) {
+            host = new HttpHost(host.getHostName(), secure ? 443 : 80, host.getSchemeName());
+        }
+        return new HttpRoute(host, null, secure);
+    }
+
+    /**
+     * 优先使用服务端Keep-Alive响应头中的时间，不超过maxKeepAlive
+     */
+    static ConnectionKeepAliveStrategy keepAliveStrategy(long maxKeepAlive) {
+        return (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? Math.min(duration, maxKeepAlive) : maxKeepAlive;
+        };
+    }
+
+    static HttpPoolStats toStats(String route, PoolStats poolStats) {
+        HttpPoolStats stats = new HttpPoolStats();
+        stats.setRoute(route);
+        stats.setLeased(poolStats.getLeased());
+        stats.setPending(poolStats.getPending());
+        stats.setAvailable(poolStats.getAvailable());
+        stats.setMax(poolStats.getMax());
+        return stats;
+    }
+}
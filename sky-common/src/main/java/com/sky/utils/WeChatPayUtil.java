@@ -3,6 +3,8 @@ package com.sky.utils;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.sky.properties.WeChatProperties;
+import com.sky.resilience.ResilienceRegistry;
+import com.sky.resilience.Upstream;
 import com.wechat.pay.contrib.apache.httpclient.WechatPayHttpClientBuilder;
 import com.wechat.pay.contrib.apache.httpclient.util.PemUtil;
 import org.apache.commons.lang.RandomStringUtils;
@@ -14,12 +16,13 @@ import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.security.PrivateKey;
 import java.security.Signature;
@@ -28,12 +31,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 微信支付工具类
  */
 @Component
-public class WeChatPayUtil {
+public class WeChatPayUtil implements DisposableBean {
 
     //微信支付下单接口地址
     public static final String JSAPI = "https://api.mch.weixin.qq.com/v3/pay/transactions/jsapi";
@@ -41,34 +45,110 @@ public class WeChatPayUtil {
     //申请退款接口地址
     public static final String REFUNDS = "https://api.mch.weixin.qq.com/v3/refund/domestic/refunds";
 
+    //签名客户端的最大连接数和空闲连接的保持时间(毫秒)
+    private static final int MAX_CONNECTIONS = 20;
+    private static final long MAX_IDLE_TIME = 60000;
+
     @Autowired
     private WeChatProperties weChatProperties;
 
+    private volatile KeyMaterial keyMaterial;
+
+    //因文件更新被替换下来的客户端，下次替换或关闭时再关闭
+    private CloseableHttpClient retiredClient;
+
     /**
      * 获取调用微信接口的客户端工具对象
+     * 私钥、平台证书和客户端只在第一次使用和文件更新后加载，之后一直复用
+     *
+     * @return
+     */
+    private CloseableHttpClient getClient() throws IOException {
+        return keyMaterial().httpClient;
+    }
+
+    /**
+     * 获取当前的私钥和客户端，距上次检查超过keyCheckInterval时比较文件修改时间，文件更新后重新加载
      *
      * @return
      */
-    private CloseableHttpClient getClient() {
-        PrivateKey merchantPrivateKey = null;
+    private KeyMaterial keyMaterial() throws IOException {
+        KeyMaterial current = keyMaterial;
+        long now = System.currentTimeMillis();
+        if (current != null && now - current.checkedAt < weChatProperties.getKeyCheckInterval()) {
+            return current;
+        }
+        synchronized (this) {
+            current = keyMaterial;
+            if (current != null && now - current.checkedAt < weChatProperties.getKeyCheckInterval()) {
+                return current;
+            }
+            File privateKeyFile = new File(weChatProperties.getPrivateKeyFilePath());
+            File certFile = new File(weChatProperties.getWeChatPayCertFilePath());
+            long privateKeyModified = privateKeyFile.lastModified();
+            long certModified = certFile.lastModified();
+            if (current != null && current.privateKeyModified == privateKeyModified && current.certModified == certModified) {
+                current.checkedAt = now;
+                return current;
+            }
+            KeyMaterial loaded = load(privateKeyFile, certFile, privateKeyModified, certModified, now);
+            //上一次被替换的客户端上的请求早已结束，此时再关闭；刚被替换的客户端可能还有请求在执行，留到下次
+            closeQuietly(retiredClient);
+            retiredClient = current == null ? null : current.httpClient;
+            keyMaterial = loaded;
+            return loaded;
+        }
+    }
+
+    private KeyMaterial load(File privateKeyFile, File certFile, long privateKeyModified, long certModified, long now) throws IOException {
+        //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
+        PrivateKey merchantPrivateKey;
+        try (FileInputStream in = new FileInputStream(privateKeyFile)) {
+            merchantPrivateKey = PemUtil.loadPrivateKey(in);
+        }
+        //加载平台证书文件
+        X509Certificate x509Certificate;
+        try (FileInputStream in = new FileInputStream(certFile)) {
+            x509Certificate = PemUtil.loadCertificate(in);
+        }
+        //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
+        List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
+
+        WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
+                .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
+                .withWechatPay(wechatPayCertificates);
+        //连接在请求之间复用，空闲连接由后台线程关闭
+        builder.setMaxConnTotal(MAX_CONNECTIONS)
+                .setMaxConnPerRoute(MAX_CONNECTIONS)
+                .evictExpiredConnections()
+                .evictIdleConnections(MAX_IDLE_TIME, TimeUnit.MILLISECONDS);
+
+        // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
+        CloseableHttpClient httpClient = builder.build();
+        return new KeyMaterial(merchantPrivateKey, httpClient, privateKeyModified, certModified, now);
+    }
+
+    /**
+     * 关闭客户端和连接池
+     */
+    @Override
+    public synchronized void destroy() {
+        closeQuietly(retiredClient);
+        retiredClient = null;
+        if (keyMaterial != null) {
+            closeQuietly(keyMaterial.httpClient);
+            keyMaterial = null;
+        }
+    }
+
+    private static void closeQuietly(CloseableHttpClient httpClient) {
+        if (httpClient == null) {
+            return;
+        }
         try {
-            //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
-            merchantPrivateKey = PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath())));
-            //加载平台证书文件
-            X509Certificate x509Certificate = PemUtil.loadCertificate(new FileInputStream(new File(weChatProperties.getWeChatPayCertFilePath())));
-            //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
-            List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
-
-            WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
-                    .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
-                    .withWechatPay(wechatPayCertificates);
-
-            // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
-            CloseableHttpClient httpClient = builder.build();
-            return httpClient;
-        } catch (FileNotFoundException e) {
+            httpClient.close();
+        } catch (IOException e) {
             e.printStackTrace();
-            return null;
         }
     }
 
@@ -88,14 +168,12 @@ public class WeChatPayUtil {
         httpPost.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
         httpPost.setEntity(new StringEntity(body, "UTF-8"));
 
-        CloseableHttpResponse response = httpClient.execute(httpPost);
-        try {
-            String bodyAsString = EntityUtils.toString(response.getEntity());
-            return bodyAsString;
-        } finally {
-            httpClient.close();
-            response.close();
-        }
+        //关闭响应时连接归还连接池，客户端继续复用；下单、退款请求失败时不重试
+        return upstream().execute(false, () -> {
+            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                return EntityUtils.toString(response.getEntity());
+            }
+        });
     }
 
     /**
@@ -112,14 +190,20 @@ public class WeChatPayUtil {
         httpGet.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
         httpGet.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
 
-        CloseableHttpResponse response = httpClient.execute(httpGet);
-        try {
-            String bodyAsString = EntityUtils.toString(response.getEntity());
-            return bodyAsString;
-        } finally {
-            httpClient.close();
-            response.close();
-        }
+        return upstream().execute(true, () -> {
+            try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+                return EntityUtils.toString(response.getEntity());
+            }
+        });
+    }
+
+    /**
+     * 微信支付接口的隔离和熔断器
+     *
+     * @return
+     */
+    private Upstream upstream() {
+        return ResilienceRegistry.upstream(ResilienceRegistry.WECHAT_PAY, weChatProperties.getResilience());
     }
 
     /**
@@ -188,7 +272,7 @@ public class WeChatPayUtil {
             byte[] message = signMessage.getBytes();
 
             Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath()))));
+            signature.initSign(keyMaterial().privateKey);
             signature.update(message);
             String packageSign = Base64.getEncoder().encodeToString(signature.sign());
 
@@ -232,4 +316,24 @@ public class WeChatPayUtil {
         //调用申请退款接口
         return post(REFUNDS, body);
     }
+
+    /**
+     * 已加载的商户私钥和使用该私钥签名的客户端
+     */
+    private static class KeyMaterial {
+        private final PrivateKey privateKey;
+        private final CloseableHttpClient httpClient;
+        private final long privateKeyModified;
+        private final long certModified;
+        private volatile long checkedAt;
+
+        private KeyMaterial(PrivateKey privateKey, CloseableHttpClient httpClient,
+                            long privateKeyModified, long certModified, long checkedAt) {
+            this.privateKey = privateKey;
+            this.httpClient = httpClient;
+            this.privateKeyModified = privateKeyModified;
+            this.certModified = certModified;
+            this.checkedAt = checkedAt;
+        }
+    }
 }
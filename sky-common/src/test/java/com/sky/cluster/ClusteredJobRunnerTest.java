@@ -0,0 +1,244 @@
+package com.sky.cluster;
+
+import com.sky.properties.ClusterProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分片租约的fencing token和执行期间的续约，多个节点分担分片，节点下线后接管，单个分片失败不影响其他分片
+ */
+public class ClusteredJobRunnerTest {
+
+    private static final String KEY = "sky:cluster:job:slow:0";
+
+    private InMemoryLeaseStore leaseStore;
+    private ClusteredJobRunner runner;
+
+    @BeforeEach
+    public void setUp() {
+        leaseStore = new InMemoryLeaseStore();
+        ClusterProperties clusterProperties = new ClusterProperties();
+        clusterProperties.setHeartbeatInterval(20);
+        clusterProperties.setMemberTtl(100);
+        runner = new ClusteredJobRunner(leaseStore, clusterProperties, "node-a");
+        runner.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        runner.close();
+    }
+
+    @Test
+    public void fencingTokenIncreasesOnlyWhenReacquired() {
+        long first = leaseStore.tryAcquire("key", "node-a", 1000);
+        assertEquals(first, leaseStore.tryAcquire("key", "node-a", 1000));
+        assertEquals(0, leaseStore.tryAcquire("key", "node-b", 1000));
+
+        leaseStore.release("key", "node-a");
+        long second = leaseStore.tryAcquire("key", "node-b", 1000);
+        assertTrue(second > first);
+        //旧token不能再续约
+        assertFalse(leaseStore.renew("key", "node-a", first, 1000));
+        assertTrue(leaseStore.renew("key", "node-b", second, 1000));
+    }
+
+    @Test
+    public void leaseIsRenewedWhileExecuting() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicReference<ShardLease> running = new AtomicReference<>();
+        runner.register(job(lease -> {
+            running.set(lease);
+            started.countDown();
+            await(finish);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        //租约有效期为 执行间隔50 + 成员有效期100，执行时间超过有效期后仍属于当前节点
+        Thread.sleep(400);
+        assertEquals(0, leaseStore.tryAcquire(KEY, "node-b", 1000));
+        assertTrue(running.get().isHeld());
+        finish.countDown();
+    }
+
+    @Test
+    public void lostLeaseIsVisibleToRunningJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicReference<ShardLease> running = new AtomicReference<>();
+        runner.register(job(lease -> {
+            running.set(lease);
+            started.countDown();
+            await(finish);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        //模拟租约过期后被其他节点占用
+        leaseStore.release(KEY, "node-a");
+        long token = leaseStore.tryAcquire(KEY, "node-b", 10000);
+        assertTrue(token > running.get().getFencingToken());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (running.get().isHeld() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(running.get().isHeld());
+        finish.countDown();
+    }
+
+    @Test
+    public void shardsAreSpreadAcrossNodesAndTakenOverAfterLeave() throws Exception {
+        InMemoryLeaseStore shared = new InMemoryLeaseStore();
+        //各分片最近一次由哪个节点执行
+        Map<Integer, String> executedBy = new ConcurrentHashMap<>();
+        ClusteredJobRunner nodeA = node(shared, "node-a");
+        ClusteredJobRunner nodeB = node(shared, "node-b");
+        try {
+            nodeA.register(job("spread", 8, lease -> executedBy.put(lease.getShard(), "node-a")));
+            nodeB.register(job("spread", 8, lease -> executedBy.put(lease.getShard(), "node-b")));
+
+            //两个节点都看到对方后，分片不重叠地分布在两个节点上
+            assertTrue(waitUntil(() -> {
+                List<Integer> a = ownedShards(nodeA);
+                List<Integer> b = ownedShards(nodeB);
+                Set<Integer> all = new HashSet<>(a);
+                all.addAll(b);
+                return !a.isEmpty() && !b.isEmpty() && all.size() == 8 && a.size() + b.size() == 8;
+            }));
+            for (int shard : ownedShards(nodeB)) {
+                assertEquals(0, shared.tryAcquire("sky:cluster:job:spread:" + shard, "node-a", 1000));
+            }
+
+            //node-b下线后，node-a接管全部分片
+            List<Integer> shardsOfB = ownedShards(nodeB);
+            nodeB.close();
+            assertTrue(waitUntil(() -> ownedShards(nodeA).size() == 8));
+            assertTrue(waitUntil(() -> {
+                for (int shard : shardsOfB) {
+                    if (!"node-a".equals(executedBy.get(shard))) {
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        } finally {
+            nodeA.close();
+            nodeB.close();
+        }
+    }
+
+    @Test
+    public void failingShardDoesNotSkipLaterShards() throws Exception {
+        Set<Integer> executed = ConcurrentHashMap.newKeySet();
+        ClusteredJobRunner node = node(new InMemoryLeaseStore(), "node-a");
+        try {
+            node.register(job("failing", 4, lease -> {
+                executed.add(lease.getShard());
+                if (lease.getShard() == 0) {
+                    throw new IllegalStateException("分片0出错");
+                }
+            }));
+
+            assertTrue(waitUntil(() -> executed.size() == 4));
+            //失败的分片仍由本节点持有，下次执行时重试
+            assertEquals(Arrays.asList(0, 1, 2, 3), ownedShards(node));
+            assertTrue(node.stats().get(0).getLastError().contains("分片0出错"));
+        } finally {
+            node.close();
+        }
+    }
+
+    private static ClusteredJobRunner node(LeaseStore leaseStore, String nodeId) {
+        ClusterProperties clusterProperties = new ClusterProperties();
+        clusterProperties.setHeartbeatInterval(20);
+        clusterProperties.setMemberTtl(100);
+        ClusteredJobRunner node = new ClusteredJobRunner(leaseStore, clusterProperties, nodeId);
+        node.start();
+        return node;
+    }
+
+    private static List<Integer> ownedShards(ClusteredJobRunner node) {
+        return new ArrayList<>(node.stats().get(0).getOwnedShards());
+    }
+
+    private static boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private static ClusteredJob job(String name, int shardCount, Consumer<ShardLease> body) {
+        return new ClusteredJob() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public long interval() {
+                return 50;
+            }
+
+            @Override
+            public int shardCount() {
+                return shardCount;
+            }
+
+            @Override
+            public void execute(ShardLease lease) {
+                body.accept(lease);
+            }
+        };
+    }
+
+    private static ClusteredJob job(Consumer<ShardLease> body) {
+        return new ClusteredJob() {
+            @Override
+            public String name() {
+                return "slow";
+            }
+
+            @Override
+            public long interval() {
+                return 50;
+            }
+
+            @Override
+            public void execute(ShardLease lease) {
+                body.accept(lease);
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
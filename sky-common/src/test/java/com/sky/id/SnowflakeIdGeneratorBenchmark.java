@@ -0,0 +1,78 @@
+package com.sky.id;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程生成id的吞吐量：CAS无锁实现 vs 加锁实现
+ * 默认8个线程，-t 指定线程数，如 -t 1 对比单线程
+ * 运行：mvn -pl sky-common test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *      -Dexec.args="-cp %classpath org.openjdk.jmh.Main SnowflakeIdGeneratorBenchmark"
+ * 每毫秒最多生成4096个id，吞吐量超过该值后两者都受序列号上限限制(借用后面的毫秒)，对比的是并发争用的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class SnowflakeIdGeneratorBenchmark {
+
+    private SnowflakeIdGenerator casGenerator;
+    private SynchronizedGenerator synchronizedGenerator;
+
+    @Setup
+    public void setup() {
+        casGenerator = new SnowflakeIdGenerator(1);
+        synchronizedGenerator = new SynchronizedGenerator(1);
+    }
+
+    @Benchmark
+    public long nextIdCas() {
+        return casGenerator.nextId();
+    }
+
+    @Benchmark
+    public long nextIdSynchronized() {
+        return synchronizedGenerator.nextId();
+    }
+
+    /**
+     * 常见的加锁实现，时间戳和序列号在锁内更新
+     */
+    private static class SynchronizedGenerator {
+
+        private final long workerBits;
+        private long lastTimestamp;
+        private long sequence;
+
+        private SynchronizedGenerator(int workerId) {
+            this.workerBits = (long) workerId << SnowflakeIdGenerator.SEQUENCE_BITS;
+        }
+
+        private synchronized long nextId() {
+            long now = System.currentTimeMillis() - SnowflakeIdGenerator.DEFAULT_EPOCH;
+            if (now > lastTimestamp) {
+                lastTimestamp = now;
+                sequence = 0;
+            } else if (++sequence > (1L << SnowflakeIdGenerator.SEQUENCE_BITS) - 1) {
+                lastTimestamp++;
+                sequence = 0;
+            }
+            return (lastTimestamp << (SnowflakeIdGenerator.WORKER_ID_BITS + SnowflakeIdGenerator.SEQUENCE_BITS))
+                    | workerBits | sequence;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.sky.id;
+
+import com.sky.exception.WorkerIdUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 雪花id的唯一性、单调性，租约失效和被占用后的行为
+ */
+public class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 100000;
+
+    @Test
+    public void concurrentIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long previous = Long.MIN_VALUE;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        long id = generator.nextId();
+                        assertTrue(id > previous, "同一线程生成的id必须递增");
+                        assertTrue(ids.add(id), "id重复：" + id);
+                        previous = id;
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+        for (long id : ids) {
+            assertEquals(7, SnowflakeIdGenerator.workerIdOf(id));
+        }
+    }
+
+    @Test
+    public void clockRollbackKeepsIncreasing() {
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.DEFAULT_EPOCH + 10000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, SnowflakeIdGenerator.DEFAULT_EPOCH, clock::get);
+        long before = generator.nextId();
+
+        clock.addAndGet(-5000);
+        long during = generator.nextId();
+        assertTrue(during > before);
+        assertEquals(SnowflakeIdGenerator.DEFAULT_EPOCH + 10000, generator.timestampOf(during));
+
+        clock.addAndGet(6000);
+        long after = generator.nextId();
+        assertTrue(after > during);
+        assertEquals(SnowflakeIdGenerator.DEFAULT_EPOCH + 11000, generator.timestampOf(after));
+    }
+
+    @Test
+    public void sequenceOverflowBorrowsNextMillisecond() {
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.DEFAULT_EPOCH + 10000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, SnowflakeIdGenerator.DEFAULT_EPOCH, clock::get);
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < (1 << SnowflakeIdGenerator.SEQUENCE_BITS) + 1; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertEquals(SnowflakeIdGenerator.DEFAULT_EPOCH + 10001, generator.timestampOf(previous));
+    }
+
+    @Test
+    public void expiredLeaseFailsFast() {
+        TestRegistry registry = new TestRegistry();
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        try (WorkerIdLease lease = new WorkerIdLease(registry, 30000, 60000)) {
+            SnowflakeIdGenerator generator = new SnowflakeIdGenerator(lease, SnowflakeIdGenerator.DEFAULT_EPOCH, clock::get);
+            generator.nextId();
+
+            //续约一直没有成功，超过有效期
+            clock.addAndGet(30001);
+            assertThrows(WorkerIdUnavailableException.class, generator::nextId);
+        }
+    }
+
+    @Test
+    public void lostLeaseSwitchesToFreshWorkerId() throws Exception {
+        TestRegistry registry = new TestRegistry();
+        try (WorkerIdLease lease = new WorkerIdLease(registry, 30000, 10)) {
+            AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+            SnowflakeIdGenerator generator = new SnowflakeIdGenerator(lease, SnowflakeIdGenerator.DEFAULT_EPOCH, clock::get);
+            long before = generator.nextId();
+            assertEquals(3, SnowflakeIdGenerator.workerIdOf(before));
+
+            //机器id 3 被其他实例占用，之后registry仍会先分配3，不能再使用
+            registry.taken.add(3);
+            registry.free.add(3);
+            waitFor(() -> lease.getWorkerId() != 3);
+            assertEquals(4, generator.getWorkerId());
+            assertTrue(lease.getValidUntil() > 0);
+
+            //同一毫秒内切换机器id，id仍然递增
+            long after = generator.nextId();
+            assertEquals(4, SnowflakeIdGenerator.workerIdOf(after));
+            assertTrue(after > before);
+            //跳过的机器id已归还，作废的机器id不再续约
+            assertTrue(registry.released.contains(3));
+            Thread.sleep(50);
+            assertEquals(4, lease.getWorkerId());
+        }
+        assertTrue(registry.released.contains(4));
+    }
+
+    @Test
+    public void lostLeaseFailsFastUntilFreshWorkerIdIsLeased() throws Exception {
+        TestRegistry registry = new TestRegistry();
+        try (WorkerIdLease lease = new WorkerIdLease(registry, 30000, 10)) {
+            SnowflakeIdGenerator generator = new SnowflakeIdGenerator(lease, SnowflakeIdGenerator.DEFAULT_EPOCH, System::currentTimeMillis);
+            generator.nextId();
+
+            //没有空闲的机器id
+            registry.exhausted = true;
+            registry.taken.add(3);
+            waitFor(() -> lease.getValidUntil() == 0);
+            assertThrows(WorkerIdUnavailableException.class, generator::nextId);
+
+            registry.exhausted = false;
+            waitFor(() -> lease.getValidUntil() > 0);
+            assertEquals(4, SnowflakeIdGenerator.workerIdOf(generator.nextId()));
+        }
+    }
+
+    @Test
+    public void closedLeaseFailsFast() {
+        TestRegistry registry = new TestRegistry();
+        WorkerIdLease lease = new WorkerIdLease(registry, 30000, 60000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(lease, SnowflakeIdGenerator.DEFAULT_EPOCH, System::currentTimeMillis);
+        lease.close();
+        assertThrows(WorkerIdUnavailableException.class, generator::nextId);
+        assertTrue(registry.released.contains(3));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 从3开始按顺序分配机器id的registry，可以模拟租约被其他实例占用和没有空闲的机器id
+     */
+    private static class TestRegistry implements WorkerIdRegistry {
+
+        //被其他实例占用的机器id
+        private final Set<Integer> taken = ConcurrentHashMap.newKeySet();
+        //优先分配的机器id
+        private final Queue<Integer> free = new ConcurrentLinkedQueue<>();
+        private final Set<Integer> released = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger next = new AtomicInteger(3);
+        private volatile boolean exhausted;
+
+        @Override
+        public int lease() {
+            if (exhausted) {
+                throw new IllegalStateException("没有空闲的机器id");
+            }
+            Integer workerId = free.poll();
+            return workerId != null ? workerId : next.getAndIncrement();
+        }
+
+        @Override
+        public boolean renew(int workerId) {
+            return !taken.contains(workerId);
+        }
+
+        @Override
+        public void release(int workerId) {
+            released.add(workerId);
+        }
+    }
+}
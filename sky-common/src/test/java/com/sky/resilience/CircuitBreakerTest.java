@@ -0,0 +1,66 @@
+package com.sky.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * 熔断器状态变化和过期的调用结果
+ */
+public class CircuitBreakerTest {
+
+    @Test
+    public void callAdmittedWhileClosedDoesNotCountAsProbe() throws Exception {
+        //窗口2次，失败率50%熔断，熔断10毫秒，试探1次
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 50, 10, 1);
+        long slow = breaker.tryAcquire();
+        breaker.onError(breaker.tryAcquire());
+        breaker.onError(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(20);
+        long probe = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, probe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        //熔断前放行的慢调用在试探期间成功，不能让熔断器恢复
+        breaker.onSuccess(slow);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void staleFailureDoesNotReopen() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 50, 10, 1);
+        long slow = breaker.tryAcquire();
+        breaker.onError(breaker.tryAcquire());
+        breaker.onError(breaker.tryAcquire());
+        Thread.sleep(20);
+        long probe = breaker.tryAcquire();
+
+        breaker.onError(slow);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+        //试探名额归还后可以再次放行
+        breaker.release(probe);
+        assertNotEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+    }
+
+    @Test
+    public void staleResultIsNotRecordedAfterRecovery() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 50, 10, 1);
+        long slow = breaker.tryAcquire();
+        breaker.onError(breaker.tryAcquire());
+        breaker.onError(breaker.tryAcquire());
+        Thread.sleep(20);
+        breaker.onSuccess(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onError(slow);
+        assertEquals(0, breaker.getBufferedCalls());
+    }
+}
@@ -0,0 +1,241 @@
+package com.sky.timer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 时间轮的到期时间、上层时间轮降级、到期过程中取消和重新登记、分批处理、已经过去的到期时间
+ * 除最后一个用例外不启动后台线程，使用可控的时钟并由测试推进时间
+ */
+public class TimingWheelTest {
+
+    private static final long START = 1_000_000;
+    private static final long TICK = 10;
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private final List<List<String>> batches = new ArrayList<>();
+    private TimingWheel<String> wheel;
+
+    @Test
+    public void deadlineIsRoundedUpToTickAndNeverFiresEarly() {
+        wheel(4, 100);
+        wheel.schedule("a", START + 15);
+        wheel.schedule("b", START + 30);
+
+        advanceTo(START + 19);
+        assertEquals(Collections.emptyList(), delivered());
+        advanceTo(START + 20);
+        assertEquals(Collections.singletonList("a"), delivered());
+        advanceTo(START + 29);
+        assertEquals(Collections.singletonList("a"), delivered());
+        advanceTo(START + 30);
+        assertEquals(Arrays.asList("a", "b"), delivered());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void entriesCascadeDownFromOverflowWheels() {
+        //每层4格：10ms、40ms、160ms、640ms
+        wheel(4, 100);
+        wheel.schedule("far", START + 500);
+        wheel.schedule("farther", START + 2500);
+
+        //逐格推进，到期前不会交给处理器
+        for (long t = START; t < START + 500; t += TICK) {
+            advanceTo(t);
+            assertEquals(Collections.emptyList(), delivered(), "提前到期：" + t);
+        }
+        advanceTo(START + 500);
+        assertEquals(Collections.singletonList("far"), delivered());
+
+        //时钟一次跳过多格时，一次推进就逐层降级到最底层并到期
+        advanceTo(START + 2499);
+        assertEquals(Collections.singletonList("far"), delivered());
+        advanceTo(START + 2500);
+        assertEquals(Arrays.asList("far", "farther"), delivered());
+    }
+
+    @Test
+    public void keysCancelledOrRescheduledDuringFlushAreNotDelivered() {
+        List<String> keys = Arrays.asList("a", "b", "c");
+        List<String> others = new ArrayList<>();
+        //同一格中的key每批只交一个，第一批的处理器取消一个key，把另一个改到更晚
+        wheel = new TimingWheel<>(TICK, 4, 1, batch -> {
+            batches.add(new ArrayList<>(batch));
+            if (batches.size() == 1) {
+                for (String key : keys) {
+                    if (!batch.contains(key)) {
+                        others.add(key);
+                    }
+                }
+                assertTrue(wheel.cancel(others.get(0)));
+                wheel.schedule(others.get(1), START + 100);
+            }
+        }, clock::get, null);
+        for (String key : keys) {
+            wheel.schedule(key, START + 20);
+        }
+
+        advanceTo(START + 20);
+        assertEquals(1, batches.size());
+        assertEquals(1, wheel.size());
+        advanceTo(START + 99);
+        assertEquals(1, batches.size());
+        advanceTo(START + 100);
+        assertEquals(Collections.singletonList(others.get(1)), batches.get(1));
+        assertFalse(delivered().contains(others.get(0)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void cancelAndRescheduleRaceWithBucketFlush() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        //推进时间的线程在格子flush过程中计算a的hashCode时阻塞
+        AtomicBoolean armed = new AtomicBoolean();
+        Object a = new Object() {
+            @Override
+            public int hashCode() {
+                if (armed.compareAndSet(true, false)) {
+                    flushing.countDown();
+                    try {
+                        assertTrue(proceed.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return 1;
+            }
+
+            @Override
+            public String toString() {
+                return "a";
+            }
+        };
+        List<Object> delivered = Collections.synchronizedList(new ArrayList<>());
+        TimingWheel<Object> objects = new TimingWheel<>(TICK, 4, 100, delivered::addAll, clock::get, null);
+        objects.schedule(a, START + 20);
+        objects.schedule("b", START + 20);
+        objects.schedule("c", START + 20);
+
+        clock.set(START + 20);
+        armed.set(true);
+        Thread advancing = new Thread(objects::advance);
+        advancing.start();
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        //flush持有写锁时取消不需要等待；重新登记先替换key的登记，再等待flush结束后放入格子
+        assertTrue(objects.cancel("b"));
+        Thread rescheduling = new Thread(() -> objects.schedule("c", START + 100));
+        rescheduling.start();
+        while (rescheduling.getState() != Thread.State.WAITING) {
+            assertTrue(rescheduling.isAlive());
+            Thread.yield();
+        }
+        proceed.countDown();
+        advancing.join(5000);
+        rescheduling.join(5000);
+        assertEquals(Collections.singletonList(a), delivered);
+
+        clock.set(START + 100);
+        objects.advance();
+        assertFalse(delivered.contains("b"));
+        assertEquals(1, Collections.frequency(delivered, a));
+        //c在新的到期时间到期一次
+        assertEquals(1, Collections.frequency(delivered, "c"));
+        assertEquals(0, objects.size());
+    }
+
+    @Test
+    public void rescheduleReplacesEarlierDeadlineAndCancelRemoves() {
+        wheel(4, 100);
+        wheel.schedule("moved", START + 20);
+        wheel.schedule("moved", START + 300);
+        wheel.schedule("cancelled", START + 20);
+        assertTrue(wheel.cancel("cancelled"));
+        assertFalse(wheel.cancel("cancelled"));
+
+        advanceTo(START + 20);
+        assertEquals(Collections.emptyList(), delivered());
+        advanceTo(START + 300);
+        assertEquals(Collections.singletonList("moved"), delivered());
+    }
+
+    @Test
+    public void expiredKeysAreDeliveredInBatches() {
+        wheel(4, 3);
+        for (int i = 0; i < 7; i++) {
+            wheel.schedule("k" + i, START + 20);
+        }
+
+        advanceTo(START + 20);
+        List<Integer> sizes = new ArrayList<>();
+        for (List<String> batch : batches) {
+            sizes.add(batch.size());
+        }
+        assertEquals(Arrays.asList(3, 3, 1), sizes);
+        assertEquals(7, new HashSet<>(delivered()).size());
+    }
+
+    @Test
+    public void pastDeadlineExpiresOnNextAdvance() {
+        wheel(4, 100);
+        advanceTo(START + 1000);
+        wheel.schedule("past", START + 500);
+        wheel.schedule("now", START + 1000);
+
+        wheel.advance();
+        assertEquals(new HashSet<>(Arrays.asList("past", "now")), new HashSet<>(delivered()));
+
+        //时钟不动时已到期的key也会再次到期
+        wheel.schedule("again", START);
+        wheel.advance();
+        assertTrue(delivered().contains("again"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void backgroundThreadDeliversOnTime() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicLong firedAt = new AtomicLong();
+        try (TimingWheel<String> background = new TimingWheel<>("timing-wheel-test", TICK, 20, 100, batch -> {
+            firedAt.set(System.currentTimeMillis());
+            fired.countDown();
+        })) {
+            long deadline = System.currentTimeMillis() + 50;
+            background.schedule("key", deadline);
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            assertTrue(firedAt.get() >= deadline);
+        }
+    }
+
+    private void wheel(int wheelSize, int batchSize) {
+        wheel = new TimingWheel<>(TICK, wheelSize, batchSize, batch -> batches.add(new ArrayList<>(batch)), clock::get, null);
+    }
+
+    private void advanceTo(long time) {
+        clock.set(time);
+        //模拟后台线程在该时刻被唤醒，一次处理所有已到期的格子
+        wheel.advance();
+    }
+
+    private List<String> delivered() {
+        List<String> keys = new ArrayList<>();
+        for (List<String> batch : batches) {
+            keys.addAll(batch);
+        }
+        return keys;
+    }
+}
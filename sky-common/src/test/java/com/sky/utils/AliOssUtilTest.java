@@ -0,0 +1,177 @@
+package com.sky.utils;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadResult;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.aliyun.oss.model.UploadPartResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分片上传的分片编号、最后一个不满的分片、长度未知的空流，以及分片失败时取消上传
+ * OSS客户端使用mock，分片大小设为4字节
+ */
+public class AliOssUtilTest {
+
+    private static final String ENDPOINT = "oss-cn-hangzhou.aliyuncs.com";
+    private static final String BUCKET = "sky-take-out";
+    private static final String UPLOAD_ID = "upload-1";
+
+    private OSS oss;
+    private AliOssUtil aliOssUtil;
+    //各分片上传的内容
+    private final Map<Integer, byte[]> uploaded = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        oss = mock(OSS.class);
+        InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+        initiated.setUploadId(UPLOAD_ID);
+        when(oss.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiated);
+        when(oss.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> upload(invocation.getArgument(0)));
+        aliOssUtil = new AliOssUtil(oss, ENDPOINT, BUCKET);
+        aliOssUtil.setMultipartThreshold(8);
+        aliOssUtil.setPartSize(4);
+        aliOssUtil.setUploadThreads(3);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        aliOssUtil.shutdown();
+    }
+
+    @Test
+    public void partsAreNumberedInOrderAndLastPartIsShort() throws Exception {
+        byte[] content = "0123456789".getBytes();
+
+        String url = aliOssUtil.upload(new ByteArrayInputStream(content), -1, "a.png");
+
+        assertEquals("https://" + BUCKET + "." + ENDPOINT + "/a.png", url);
+        assertEquals(3, uploaded.size());
+        assertArrayEquals("0123".getBytes(), uploaded.get(1));
+        assertArrayEquals("4567".getBytes(), uploaded.get(2));
+        assertArrayEquals("89".getBytes(), uploaded.get(3));
+        assertEquals(Arrays.asList(1, 2, 3), completedPartNumbers());
+    }
+
+    @Test
+    public void contentOfWholePartsHasNoEmptyTrailingPart() throws Exception {
+        aliOssUtil.upload(new ByteArrayInputStream("01234567".getBytes()), 8, "a.png");
+
+        assertEquals(Arrays.asList(1, 2), completedPartNumbers());
+        assertArrayEquals("4567".getBytes(), uploaded.get(2));
+    }
+
+    @Test
+    public void emptyStreamOfUnknownLengthUploadsEmptyObject() throws Exception {
+        aliOssUtil.upload(new ByteArrayInputStream(new byte[0]), -1, "empty.png");
+
+        ArgumentCaptor<ObjectMetadata> metadata = ArgumentCaptor.forClass(ObjectMetadata.class);
+        verify(oss).putObject(eq(BUCKET), eq("empty.png"), any(InputStream.class), metadata.capture());
+        assertEquals(0, metadata.getValue().getContentLength());
+        verify(oss, never()).uploadPart(any());
+        verify(oss, never()).completeMultipartUpload(any());
+        verify(oss).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void failedPartAbortsUploadAndCancelsRunningParts() throws Exception {
+        CountDownLatch thirdStarted = new CountDownLatch(1);
+        CountDownLatch thirdInterrupted = new CountDownLatch(1);
+        OSSException failure = new OSSException("分片上传失败");
+        when(oss.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            switch (request.getPartNumber()) {
+                case 2:
+                    //第三个分片开始上传后第二个分片失败
+                    assertTrue(thirdStarted.await(5, TimeUnit.SECONDS));
+                    throw failure;
+                case 3:
+                    thirdStarted.countDown();
+                    try {
+                        Thread.sleep(10000);
+                    } catch (InterruptedException e) {
+                        thirdInterrupted.countDown();
+                        throw new ClientException(e);
+                    }
+                    return upload(request);
+                default:
+                    return upload(request);
+            }
+        });
+        //足够多的分片，失败后不再全部读取
+        byte[] content = new byte[4 * 100];
+
+        OSSException thrown = assertThrows(OSSException.class,
+                () -> aliOssUtil.upload(new ByteArrayInputStream(content), -1, "a.png"));
+
+        assertSame(failure, thrown);
+        assertTrue(thirdInterrupted.await(5, TimeUnit.SECONDS));
+        ArgumentCaptor<AbortMultipartUploadRequest> abort = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(oss).abortMultipartUpload(abort.capture());
+        assertEquals(UPLOAD_ID, abort.getValue().getUploadId());
+        verify(oss, never()).completeMultipartUpload(any());
+        assertTrue(uploaded.size() < 100);
+    }
+
+    private UploadPartResult upload(UploadPartRequest request) throws IOException {
+        assertEquals(UPLOAD_ID, request.getUploadId());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = request.getInputStream();
+        byte[] buffer = new byte[16];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        assertEquals(request.getPartSize(), out.size());
+        uploaded.put(request.getPartNumber(), out.toByteArray());
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag("etag-" + request.getPartNumber());
+        return result;
+    }
+
+    private List<Integer> completedPartNumbers() {
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(oss).completeMultipartUpload(complete.capture());
+        List<Integer> numbers = new ArrayList<>();
+        for (PartETag partETag : complete.getValue().getPartETags()) {
+            assertEquals("etag-" + partETag.getPartNumber(), partETag.getETag());
+            numbers.add(partETag.getPartNumber());
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,101 @@
+package com.sky.utils;
+
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.ObjectMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 按内容去重上传，OSS客户端使用mock
+ */
+public class ContentAddressedUploaderTest {
+
+    private static final String ENDPOINT = "oss-cn-hangzhou.aliyuncs.com";
+    private static final String BUCKET = "sky-take-out";
+
+    @TempDir
+    Path dir;
+
+    private OSS oss;
+    private AliOssUtil aliOssUtil;
+    private Path indexFile;
+
+    @BeforeEach
+    public void setUp() {
+        oss = mock(OSS.class);
+        aliOssUtil = new AliOssUtil(oss, ENDPOINT, BUCKET);
+        indexFile = dir.resolve("upload-index.txt");
+    }
+
+    @Test
+    public void sameContentAndExtensionUploadsOnce() throws Exception {
+        ContentAddressedUploader uploader = new ContentAddressedUploader(aliOssUtil, indexFile.toString());
+
+        String first = uploader.upload(content("dish"), 4, ".png");
+        String second = uploader.upload(content("dish"), 4, ".png");
+
+        assertEquals(first, second);
+        verify(oss, times(1)).putObject(eq(BUCKET), anyString(), any(InputStream.class), any(ObjectMetadata.class));
+        assertEquals(1, uploader.size());
+    }
+
+    @Test
+    public void sameContentWithDifferentExtensionUploadsEach() throws Exception {
+        ContentAddressedUploader uploader = new ContentAddressedUploader(aliOssUtil, indexFile.toString());
+
+        String png = uploader.upload(content("dish"), 4, ".png");
+        String jpg = uploader.upload(content("dish"), 4, ".jpg");
+
+        String hash = png.substring(png.lastIndexOf('/') + 1, png.lastIndexOf('.'));
+        assertEquals("https://" + BUCKET + "." + ENDPOINT + "/" + hash + ".png", png);
+        assertEquals("https://" + BUCKET + "." + ENDPOINT + "/" + hash + ".jpg", jpg);
+        verify(oss).putObject(eq(BUCKET), eq(hash + ".png"), any(InputStream.class), any(ObjectMetadata.class));
+        verify(oss).putObject(eq(BUCKET), eq(hash + ".jpg"), any(InputStream.class), any(ObjectMetadata.class));
+        assertEquals(2, uploader.size());
+    }
+
+    @Test
+    public void indexSurvivesRestart() throws Exception {
+        String url = new ContentAddressedUploader(aliOssUtil, indexFile.toString()).upload(content("dish"), 4, ".png");
+
+        ContentAddressedUploader restarted = new ContentAddressedUploader(aliOssUtil, indexFile.toString());
+
+        assertEquals(url, restarted.upload(content("dish"), 4, ".png"));
+        verify(oss, times(1)).putObject(eq(BUCKET), anyString(), any(InputStream.class), any(ObjectMetadata.class));
+    }
+
+    @Test
+    public void legacyHashOnlyLineIsKeyedByObjectName() throws Exception {
+        String url = new ContentAddressedUploader(aliOssUtil, indexFile.toString()).upload(content("dish"), 4, ".png");
+        String hash = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
+        //旧索引文件每行以摘要开头
+        Files.write(indexFile, Collections.singletonList(hash + " " + url), StandardCharsets.UTF_8);
+
+        ContentAddressedUploader restarted = new ContentAddressedUploader(aliOssUtil, indexFile.toString());
+
+        assertEquals(url, restarted.upload(content("dish"), 4, ".png"));
+        assertEquals("https://" + BUCKET + "." + ENDPOINT + "/" + hash + ".gif", restarted.upload(content("dish"), 4, ".gif"));
+        verify(oss).putObject(eq(BUCKET), eq(hash + ".png"), any(InputStream.class), any(ObjectMetadata.class));
+        verify(oss).putObject(eq(BUCKET), eq(hash + ".gif"), any(InputStream.class), any(ObjectMetadata.class));
+    }
+
+    private static ByteArrayResource content(String text) {
+        return new ByteArrayResource(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
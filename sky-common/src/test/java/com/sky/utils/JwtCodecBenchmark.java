@@ -0,0 +1,82 @@
+package com.sky.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * jwt签发、解析耗时对比：每次调用重新构建秘钥和解析器(原JwtUtil) vs 复用JwtCodec
+ * 运行：mvn -pl sky-common test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *      -Dexec.args="-cp %classpath org.openjdk.jmh.Main JwtCodecBenchmark -prof gc"
+ * -prof gc 同时输出每次调用的内存分配
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtCodecBenchmark {
+
+    private static final String SECRET_KEY = "itcast";
+    private static final long TTL_MILLIS = 7200000;
+
+    private JwtCodec codec;
+    private String token;
+
+    @Setup
+    public void setup() {
+        codec = new JwtCodec(SECRET_KEY);
+        token = codec.create(TTL_MILLIS, claims());
+    }
+
+    @Benchmark
+    public String createPerCall() {
+        Date exp = new Date(System.currentTimeMillis() + TTL_MILLIS);
+        return Jwts.builder()
+                .setClaims(claims())
+                .signWith(SignatureAlgorithm.HS256, SECRET_KEY.getBytes(StandardCharsets.UTF_8))
+                .setExpiration(exp)
+                .compact();
+    }
+
+    @Benchmark
+    public String createCodec() {
+        return codec.create(TTL_MILLIS, claims());
+    }
+
+    @Benchmark
+    public Claims parsePerCall() {
+        return Jwts.parser()
+                .setSigningKey(SECRET_KEY.getBytes(StandardCharsets.UTF_8))
+                .parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims parseCodec() {
+        return codec.parse(token);
+    }
+
+    //与登录接口一致，每次签发使用新的claims，jjwt会把exp写入传入的map
+    private static Map<String, Object> claims() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("empId", 1L);
+        return claims;
+    }
+}
@@ -0,0 +1,185 @@
+package com.sky.utils;
+
+import com.alibaba.fastjson.JSONObject;
+import com.sky.properties.WeChatProperties;
+import com.wechat.pay.contrib.apache.httpclient.WechatPayHttpClientBuilder;
+import com.wechat.pay.contrib.apache.httpclient.util.PemUtil;
+import org.apache.commons.lang.RandomStringUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 微信支付下单本地开销对比(不含网络请求)：
+ * 每次调用重新读取私钥、平台证书并构建客户端(原WeChatPayUtil) vs 复用已加载的私钥和客户端
+ * 两者都包含构造下单请求体和二次签名
+ * 私钥和自签名证书在setup中用jdk自带的keytool生成
+ * 运行：mvn -pl sky-common test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *      -Dexec.args="-cp %classpath org.openjdk.jmh.Main WeChatPayBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeChatPayBenchmark {
+
+    private static final String MCHID = "1900000001";
+    private static final String MCH_SERIAL_NO = "5157F09EFDC096DE15EBE81A47057A7232F1B8E1";
+    private static final String APPID = "wx0000000000000000";
+    private static final String PREPAY_ID = "wx201410272009395522657a690389285100";
+
+    private File dir;
+    private WeChatProperties weChatProperties;
+    private WeChatPayUtil weChatPayUtil;
+    private Method keyMaterial;
+    private Field privateKey;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("wechatpay").toFile();
+        File keyStore = new File(dir, "merchant.p12");
+        keytool("-genkeypair", "-alias", "merchant", "-keyalg", "RSA", "-keysize", "2048",
+                "-dname", "CN=" + MCHID, "-validity", "3650", "-storetype", "PKCS12",
+                "-keystore", keyStore.getPath(), "-storepass", "changeit", "-keypass", "changeit");
+
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(keyStore)) {
+            store.load(in, "changeit".toCharArray());
+        }
+        PrivateKey key = (PrivateKey) store.getKey("merchant", "changeit".toCharArray());
+        Certificate cert = store.getCertificate("merchant");
+        File keyFile = new File(dir, "apiclient_key.pem");
+        File certFile = new File(dir, "wechatpay.pem");
+        Files.write(keyFile.toPath(), pem("PRIVATE KEY", key.getEncoded()));
+        Files.write(certFile.toPath(), pem("CERTIFICATE", cert.getEncoded()));
+
+        weChatProperties = new WeChatProperties();
+        weChatProperties.setAppid(APPID);
+        weChatProperties.setMchid(MCHID);
+        weChatProperties.setMchSerialNo(MCH_SERIAL_NO);
+        weChatProperties.setPrivateKeyFilePath(keyFile.getPath());
+        weChatProperties.setWeChatPayCertFilePath(certFile.getPath());
+        weChatProperties.setNotifyUrl("https://example.com/notify/paySuccess");
+
+        weChatPayUtil = new WeChatPayUtil();
+        Field properties = WeChatPayUtil.class.getDeclaredField("weChatProperties");
+        properties.setAccessible(true);
+        properties.set(weChatPayUtil, weChatProperties);
+        keyMaterial = WeChatPayUtil.class.getDeclaredMethod("keyMaterial");
+        keyMaterial.setAccessible(true);
+        privateKey = keyMaterial.getReturnType().getDeclaredField("privateKey");
+        privateKey.setAccessible(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        weChatPayUtil.destroy();
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    /**
+     * 原实现：下单时读取私钥和证书构建客户端，请求结束关闭客户端，二次签名时再读一次私钥
+     */
+    @Benchmark
+    public JSONObject payPerCall() throws Exception {
+        PrivateKey merchantPrivateKey = PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath())));
+        X509Certificate x509Certificate = PemUtil.loadCertificate(new FileInputStream(new File(weChatProperties.getWeChatPayCertFilePath())));
+        CloseableHttpClient httpClient = WechatPayHttpClientBuilder.create()
+                .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
+                .withWechatPay(Arrays.asList(x509Certificate))
+                .build();
+        String body = jsapiBody();
+        httpClient.close();
+        return sign(body, PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath()))));
+    }
+
+    /**
+     * 现实现：从WeChatPayUtil取已加载的私钥和客户端，间隔内不访问文件
+     */
+    @Benchmark
+    public JSONObject payCached() throws Exception {
+        Object current = keyMaterial.invoke(weChatPayUtil);
+        String body = jsapiBody();
+        return sign(body, (PrivateKey) privateKey.get(current));
+    }
+
+    private String jsapiBody() {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("appid", weChatProperties.getAppid());
+        jsonObject.put("mchid", weChatProperties.getMchid());
+        jsonObject.put("description", "苍穹外卖订单");
+        jsonObject.put("out_trade_no", "1700000000000");
+        jsonObject.put("notify_url", weChatProperties.getNotifyUrl());
+        JSONObject amount = new JSONObject();
+        amount.put("total", new BigDecimal("88.50").multiply(new BigDecimal(100)).setScale(2, BigDecimal.ROUND_HALF_UP).intValue());
+        amount.put("currency", "CNY");
+        jsonObject.put("amount", amount);
+        JSONObject payer = new JSONObject();
+        payer.put("openid", "oUpF8uMuAJO_M2pxb1Q9zNjWeS6o");
+        jsonObject.put("payer", payer);
+        return jsonObject.toJSONString();
+    }
+
+    private JSONObject sign(String body, PrivateKey key) throws Exception {
+        String timeStamp = String.valueOf(System.currentTimeMillis() / 1000);
+        String nonceStr = RandomStringUtils.randomNumeric(32);
+        String signMessage = APPID + "\n" + timeStamp + "\n" + nonceStr + "\n" + "prepay_id=" + PREPAY_ID + "\n";
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(key);
+        signature.update(signMessage.getBytes());
+        JSONObject jo = new JSONObject();
+        jo.put("timeStamp", timeStamp);
+        jo.put("nonceStr", nonceStr);
+        jo.put("package", "prepay_id=" + PREPAY_ID);
+        jo.put("signType", "RSA");
+        jo.put("paySign", Base64.getEncoder().encodeToString(signature.sign()));
+        jo.put("body", body);
+        return jo;
+    }
+
+    private static byte[] pem(String type, byte[] der) {
+        String base64 = Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(der);
+        return ("-----BEGIN " + type + "-----\n" + base64 + "\n-----END " + type + "-----\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void keytool(String... args) throws Exception {
+        String[] command = new String[args.length + 1];
+        command[0] = System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool";
+        System.arraycopy(args, 0, command, 1, args.length);
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("keytool执行失败");
+        }
+    }
+}
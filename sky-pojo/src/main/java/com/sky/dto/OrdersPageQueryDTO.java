@@ -27,4 +27,10 @@ public class OrdersPageQueryDTO implements Serializable {
 
     private Long userId;
 
+    //游标分页时上一页返回的游标，传空串表示从第一页开始；不传时按页码分页
+    private String cursor;
+
+    //总数统计方式 exact精确统计 cached缓存 estimated估算 none不统计，不传时精确统计
+    private String countStrategy;
+
 }
@@ -1,5 +1,7 @@
 package com.sky.entity;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -37,6 +39,8 @@ public class Orders implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    //雪花算法生成的id超过js的安全整数范围，以字符串返回
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
 
     //订单号
@@ -9,10 +9,15 @@ import java.lang.annotation.Target;
 
 /**
  * 自定义注解，用于标识某个方法需要进行功能自动填充处理
+ * 被填充的参数可以是单个实体，也可以是实体的集合或数组(批量插入、批量更新)
+ * 由AutoFillInterceptor在语句执行前完成填充
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface AutoFill {
     //数据库操作类型，UPDATE INSERT
     OperationType value();
+
+    //需要填充的参数下标，默认为第一个参数
+    int index() default 0;
 }
@@ -0,0 +1,22 @@
+package com.sky.cache;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 缓存失效事件
+ * 本节点清除二级缓存，或收到其他节点的缓存清除通知时发布，依赖同一份数据的其他缓存据此一起失效
+ */
+@Getter
+public class CacheInvalidatedEvent extends ApplicationEvent {
+
+    private final String cacheName; //缓存名称
+
+    private final String key; //缓存key，为null表示整个缓存失效
+
+    public CacheInvalidatedEvent(Object source, String cacheName, String key) {
+        super(source);
+        this.cacheName = cacheName;
+        this.key = key;
+    }
+}
@@ -0,0 +1,112 @@
+package com.sky.cache;
+
+import com.sky.enumeration.ResourceType;
+import com.sky.properties.TwoLevelCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 资源版本号
+ * 每种资源的版本号保存在redis的hash中，业务层每次写入后用HINCRBY递增，所有节点读取同一份版本号；
+ * 查询接口根据版本号直接计算强ETag，客户端持有的版本仍是最新时不执行查询，直接返回304；
+ * 同一地址按Accept返回json、Smile或CBOR，ETag包含Accept，并设置Vary: Accept。
+ * 版本号第一次使用时以当前时间初始化，redis数据丢失后重新初始化的版本号不会与之前发出的ETag重复
+ */
+@Component
+@Slf4j
+public class ResourceVersions {
+
+    @Autowired
+    private TwoLevelCacheProperties twoLevelCacheProperties;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 资源写入后递增版本号
+     *
+     * @param type
+     */
+    public void bump(ResourceType type) {
+        try {
+            initialize(type);
+            stringRedisTemplate.opsForHash().increment(twoLevelCacheProperties.getVersionKey(), type.name(), 1);
+        } catch (Exception e) {
+            log.error("递增资源版本号失败：{}，{}", type, e.getMessage());
+        }
+    }
+
+    /**
+     * 根据当前版本号和请求参数计算ETag，客户端持有的ETag与之相同时设置304状态
+     *
+     * @param type
+     * @param request
+     * @return 客户端数据未过期时返回true，此时不需要再查询和写出响应体
+     */
+    public boolean checkNotModified(ResourceType type, WebRequest request) {
+        String etag = etag(type, request);
+        //读取不到版本号时不做条件请求，总是返回完整响应
+        if (etag == null) {
+            return false;
+        }
+        //304响应不经过消息转换器，在这里设置Vary
+        if (request instanceof ServletWebRequest) {
+            HttpServletResponse response = ((ServletWebRequest) request).getResponse();
+            if (response != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+        }
+        return request.checkNotModified(etag);
+    }
+
+    /**
+     * 强ETag：版本号-请求参数和Accept的摘要，同一资源的不同查询条件、不同响应格式得到不同的ETag
+     *
+     * @param type
+     * @param request
+     * @return redis不可用时返回null
+     */
+    public String etag(ResourceType type, WebRequest request) {
+        String version = version(type);
+        if (version == null) {
+            return null;
+        }
+        //参数按名称排序，保证参数顺序不同的相同查询得到相同的ETag
+        StringBuilder params = new StringBuilder();
+        for (Map.Entry<String, String[]> entry : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            params.append(entry.getKey()).append('=').append(String.join(",", entry.getValue())).append('&');
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        params.append(HttpHeaders.ACCEPT).append('=').append(accept == null ? "" : accept);
+        return "\"" + type.name().toLowerCase() + "-" + version
+                + "-" + Integer.toHexString(params.toString().hashCode()) + "\"";
+    }
+
+    private String version(ResourceType type) {
+        try {
+            Object version = stringRedisTemplate.opsForHash().get(twoLevelCacheProperties.getVersionKey(), type.name());
+            if (version == null) {
+                initialize(type);
+                version = stringRedisTemplate.opsForHash().get(twoLevelCacheProperties.getVersionKey(), type.name());
+            }
+            return version == null ? null : version.toString();
+        } catch (Exception e) {
+            log.warn("读取资源版本号失败：{}，{}", type, e.getMessage());
+            return null;
+        }
+    }
+
+    //版本号不存在时以当前时间初始化，多个节点同时初始化时只有一个生效
+    private void initialize(ResourceType type) {
+        stringRedisTemplate.opsForHash().putIfAbsent(twoLevelCacheProperties.getVersionKey(), type.name(),
+                Long.toString(System.currentTimeMillis()));
+    }
+}
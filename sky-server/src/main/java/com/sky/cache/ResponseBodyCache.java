@@ -0,0 +1,217 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.properties.TwoLevelCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 预序列化响应体缓存
+ * 缓存热点只读接口已经编码好的UTF-8 json字节(以及可选的gzip压缩字节)和强ETag，
+ * 命中时直接写入servlet输出流，不再经过jackson序列化；
+ * 每条缓存都依附于一个二级缓存名称，收到该缓存的CacheInvalidatedEvent时一起失效；
+ * 与本地一级缓存使用相同的有效期，漏收失效通知时最迟在localTtl后重新生成；
+ * 只缓存json，按Accept应当返回Smile、CBOR的请求不使用缓存，交给消息转换器按正常流程协商格式
+ */
+@Component
+@Slf4j
+public class ResponseBodyCache {
+
+    private static final String GZIP = "gzip";
+    //与消息转换器的顺序一致，Accept中同样优先的类型按这个顺序选择
+    private static final List<MediaType> BINARY_TYPES = Arrays.asList(
+            MediaType.valueOf("application/x-jackson-smile"), MediaType.APPLICATION_CBOR);
+
+    @Autowired
+    private TwoLevelCacheProperties twoLevelCacheProperties;
+
+    //与消息转换器使用相同的配置，保证缓存的字节与正常序列化的结果一致
+    private final ObjectMapper objectMapper = new JacksonObjectMapper();
+
+    //缓存名称 -> 失效次数，用于丢弃在序列化期间已经失效的结果
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private Cache<String, Body> bodies;
+
+    @PostConstruct
+    public void init() {
+        bodies = Caffeine.newBuilder()
+                .maximumSize(twoLevelCacheProperties.getResponseMaximumSize())
+                .expireAfterWrite(twoLevelCacheProperties.getLocalTtl(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 将json响应体写入输出流，客户端已持有相同版本时返回304
+     *
+     * @param cacheName 响应数据所依赖的缓存名称
+     * @param key       缓存key
+     * @param body      未命中时生成响应对象
+     * @param request
+     * @param response
+     * @return 按Accept不应返回json时返回false，不写出响应，由调用方按正常流程返回
+     * @throws IOException
+     */
+    public boolean write(String cacheName, String key, Supplier<?> body,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!prefersJson(request)) {
+            return false;
+        }
+        String cacheKey = cacheName + "::" + key;
+        Body cached = bodies.getIfPresent(cacheKey);
+        if (cached == null) {
+            AtomicLong generation = generations.computeIfAbsent(cacheName, name -> new AtomicLong());
+            long before = generation.get();
+            cached = encode(body.get());
+            bodies.put(cacheKey, cached);
+            //序列化期间数据已经失效，本次结果照常返回，但不保留在缓存中
+            if (generation.get() != before) {
+                bodies.asMap().remove(cacheKey, cached);
+            }
+        }
+
+        boolean gzip = cached.gzip != null && acceptsGzip(request);
+        String etag = gzip ? cached.gzipEtag : cached.etag;
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (cached.gzip != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), cached)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        byte[] bytes = gzip ? cached.gzip : cached.json;
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+        return true;
+    }
+
+    /**
+     * 依赖的二级缓存失效时，清除该缓存名称下的所有响应体
+     *
+     * @param event
+     */
+    @EventListener
+    public void onCacheInvalidated(CacheInvalidatedEvent event) {
+        String cacheName = event.getCacheName();
+        generations.computeIfAbsent(cacheName, name -> new AtomicLong()).incrementAndGet();
+        String prefix = cacheName + "::";
+        bodies.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private Body encode(Object value) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(value);
+        String hash = DigestUtils.md5DigestAsHex(json);
+        byte[] gzip = null;
+        int gzipMinSize = twoLevelCacheProperties.getResponseGzipMinSize();
+        if (gzipMinSize >= 0 && json.length >= gzipMinSize) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+                gzipOut.write(json);
+            }
+            gzip = out.toByteArray();
+        }
+        return new Body(json, gzip, "\"" + hash + "\"", "\"" + hash + "-gzip\"");
+    }
+
+    /**
+     * 按质量值和具体程度排序后，第一个能匹配的类型为json或通配符时返回true，为Smile、CBOR时返回false
+     * 没有Accept、无法解析或都不匹配时返回true，与原来只返回json的行为一致
+     */
+    static boolean prefersJson(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isEmpty()) {
+            return true;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return true;
+        }
+        MediaType.sortBySpecificityAndQuality(types);
+        for (MediaType type : types) {
+            if (type.getQualityValue() <= 0) {
+                continue;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return true;
+            }
+            for (MediaType binary : BINARY_TYPES) {
+                if (type.isCompatibleWith(binary)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains(GZIP);
+    }
+
+    /**
+     * If-None-Match中任意一个标签与当前版本(压缩或未压缩)相同即视为未修改
+     */
+    private static boolean matches(String ifNoneMatch, Body cached) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(cached.etag) || tag.equals(cached.gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Body {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+        private final String gzipEtag;
+
+        private Body(byte[] json, byte[] gzip, String etag, String gzipEtag) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+            this.gzipEtag = gzipEtag;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 二级缓存
+ * 一级为本地Caffeine缓存，二级为redis缓存；读取时依次查找本地、redis、数据库，
+ * 写入、清除时同时操作两级缓存，并通过TwoLevelCacheManager通知其他节点清除本地缓存。
+ * redis不可用时只记录日志，退化为只使用本地缓存。
+ * 回源写入与并发的清除可能交错：回源前读取key和整个缓存的版本号，清除时先递增版本号再删除，
+ * 写入redis时由lua脚本比较版本号，期间发生过清除则放弃写入，避免旧数据在redis中保留redisTtl
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<String, Object> localCache;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final TwoLevelCacheManager cacheManager;
+    private final long redisTtl;
+    private final String redisKeyPrefix;
+    private final String redisKeySet;
+
+    //版本号未变化时才写入：KEYS = 值, key版本号, 缓存版本号, key集合；ARGV = key版本号, 缓存版本号, 值, 有效期, key
+    private static final byte[] PUT_IF_CURRENT = ("if (redis.call('get', KEYS[2]) or '0') ~= ARGV[1]"
+            + " or (redis.call('get', KEYS[3]) or '0') ~= ARGV[2] then return 0 end"
+            + " redis.call('set', KEYS[1], ARGV[3], 'PX', ARGV[4])"
+            + " redis.call('sadd', KEYS[4], ARGV[5])"
+            + " redis.call('pexpire', KEYS[4], ARGV[4])"
+            + " return 1").getBytes(StandardCharsets.UTF_8);
+
+    private final String redisGenerationPrefix;
+    private final String redisGeneration;
+
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+
+    //lookup未命中时读取的版本号，供随后同一线程的put使用(@Cacheable先lookup，执行方法后再put)
+    private final ThreadLocal<Map<String, Generation>> pendingLoads = ThreadLocal.withInitial(HashMap::new);
+
+    TwoLevelCache(String name, Cache<String, Object> localCache, RedisTemplate<String, Object> redisTemplate,
+                  TwoLevelCacheManager cacheManager, String keyPrefix, long redisTtl) {
+        super(true);
+        this.name = name;
+        this.localCache = localCache;
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+        this.redisTtl = redisTtl;
+        this.redisKeyPrefix = keyPrefix + name + "::";
+        //记录该缓存在redis中的所有key，用于整体清除
+        this.redisKeySet = keyPrefix + name + ":keys";
+        this.redisGenerationPrefix = keyPrefix + name + ":gen::";
+        this.redisGeneration = keyPrefix + name + ":gen";
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = key.toString();
+        Map<String, Generation> loads = pendingLoads.get();
+        loads.remove(cacheKey);
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null) {
+            return value;
+        }
+        Generation[] generation = new Generation[1];
+        value = getFromRedis(cacheKey, generation);
+        if (value != null) {
+            localCache.put(cacheKey, value);
+        } else {
+            //redis未命中，调用方回源后会put
+            loads.put(cacheKey, generation[0]);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        //同一节点上同一个key只有一个线程回源加载
+        boolean[] stale = new boolean[1];
+        Object value = localCache.get(key.toString(), cacheKey -> {
+            Generation[] generation = new Generation[1];
+            Object stored = getFromRedis(cacheKey, generation);
+            if (stored != null) {
+                return stored;
+            }
+            try {
+                stored = toStoreValue(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            stale[0] = !putToRedis(cacheKey, stored, generation[0]);
+            return stored;
+        });
+        if (stale[0]) {
+            //回源期间发生过清除，本次结果只返回给调用方，不保留在本地缓存
+            localCache.invalidate(key.toString());
+        }
+        return (T) fromStoreValue(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = key.toString();
+        Object stored = toStoreValue(value);
+        //lookup时记录了版本号的是回源写入，需要检查期间是否发生过清除；没有记录的(如@CachePut)直接写入
+        Generation generation = pendingLoads.get().remove(cacheKey);
+        if (generation == null) {
+            generation = Generation.ANY;
+        }
+        if (!putToRedis(cacheKey, stored, generation)) {
+            log.debug("回源期间缓存已被清除，放弃写入：{}::{}", name, cacheKey);
+            return;
+        }
+        //回源后写入缓存，数据本身没有变化，不需要通知其他节点
+        localCache.put(cacheKey, stored);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = key.toString();
+        try {
+            //先递增版本号再删除，删除之后不会再有旧数据写入
+            incrementGeneration(redisGenerationPrefix + cacheKey);
+            redisTemplate.delete(redisKeyPrefix + cacheKey);
+            redisTemplate.opsForSet().remove(redisKeySet, cacheKey);
+        } catch (Exception e) {
+            log.warn("清除redis缓存失败：{}::{}，{}", name, cacheKey, e.getMessage());
+        }
+        localCache.invalidate(cacheKey);
+        cacheManager.publish(name, cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        try {
+            incrementGeneration(redisGeneration);
+            Set<Object> keys = redisTemplate.opsForSet().members(redisKeySet);
+            if (keys != null && !keys.isEmpty()) {
+                redisTemplate.delete(keys.stream().map(k -> redisKeyPrefix + k).collect(Collectors.toList()));
+            }
+            redisTemplate.delete(redisKeySet);
+        } catch (Exception e) {
+            log.warn("清除redis缓存失败：{}，{}", name, e.getMessage());
+        }
+        localCache.invalidateAll();
+        cacheManager.publish(name, null);
+    }
+
+    /**
+     * 收到其他节点的通知后只清除本地缓存，redis已由发出通知的节点清除
+     *
+     * @param key 为null时清除全部
+     */
+    void evictLocal(String key) {
+        if (key == null) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(key);
+        }
+    }
+
+    /**
+     * 当前命中率统计
+     *
+     * @return
+     */
+    public TwoLevelCacheStats stats() {
+        CacheStats localStats = localCache.stats();
+        TwoLevelCacheStats stats = new TwoLevelCacheStats();
+        stats.setName(name);
+        stats.setLocalSize(localCache.estimatedSize());
+        stats.setLocalHits(localStats.hitCount());
+        stats.setLocalMisses(localStats.missCount());
+        stats.setLocalEvictions(localStats.evictionCount());
+        stats.setRedisHits(redisHits.sum());
+        stats.setRedisMisses(redisMisses.sum());
+        long requests = localStats.requestCount();
+        //本地未命中但redis命中的也算命中
+        stats.setHitRate(requests == 0 ? 0 : (double) (localStats.hitCount() + stats.getRedisHits()) / requests);
+        return stats;
+    }
+
+    /**
+     * 一次读取缓存值和当前版本号，版本号在回源后写入时比较
+     *
+     * @param generation 输出参数，redis不可用时为Generation.UNKNOWN
+     */
+    @SuppressWarnings("unchecked")
+    private Object getFromRedis(String cacheKey, Generation[] generation) {
+        generation[0] = Generation.UNKNOWN;
+        try {
+            List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(bytes(redisKeyPrefix + cacheKey),
+                            bytes(redisGenerationPrefix + cacheKey), bytes(redisGeneration)));
+            if (values == null || values.size() != 3) {
+                redisMisses.increment();
+                return null;
+            }
+            generation[0] = new Generation(string(values.get(1)), string(values.get(2)));
+            Object value = values.get(0) == null ? null
+                    : ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).deserialize(values.get(0));
+            if (value != null) {
+                redisHits.increment();
+            } else {
+                redisMisses.increment();
+            }
+            return value;
+        } catch (Exception e) {
+            redisMisses.increment();
+            log.warn("读取redis缓存失败：{}::{}，{}", name, cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 版本号未变化时写入redis
+     *
+     * @return 回源期间发生过清除、放弃写入时返回false；redis不可用时返回true，只使用本地缓存
+     */
+    @SuppressWarnings("unchecked")
+    private boolean putToRedis(String cacheKey, Object stored, Generation generation) {
+        if (generation == Generation.UNKNOWN) {
+            //回源前没有读到版本号，无法判断期间是否发生过清除，不写入redis
+            return true;
+        }
+        try {
+            if (generation == Generation.ANY) {
+                redisTemplate.opsForValue().set(redisKeyPrefix + cacheKey, stored, redisTtl, TimeUnit.MILLISECONDS);
+                redisTemplate.opsForSet().add(redisKeySet, cacheKey);
+                redisTemplate.expire(redisKeySet, redisTtl, TimeUnit.MILLISECONDS);
+                return true;
+            }
+            RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+            byte[][] keysAndArgs = {
+                    bytes(redisKeyPrefix + cacheKey),
+                    bytes(redisGenerationPrefix + cacheKey),
+                    bytes(redisGeneration),
+                    bytes(redisKeySet),
+                    bytes(generation.key),
+                    bytes(generation.cache),
+                    valueSerializer.serialize(stored),
+                    bytes(String.valueOf(redisTtl)),
+                    //key集合与opsForSet()一致，成员使用值序列化
+                    valueSerializer.serialize(cacheKey)
+            };
+            Long written = redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.scriptingCommands().eval(PUT_IF_CURRENT, ReturnType.INTEGER, 4, keysAndArgs));
+            return written == null || written == 1;
+        } catch (Exception e) {
+            log.warn("写入redis缓存失败：{}::{}，{}", name, cacheKey, e.getMessage());
+            return true;
+        }
+    }
+
+    private void incrementGeneration(String generationKey) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            byte[] rawKey = bytes(generationKey);
+            connection.stringCommands().incr(rawKey);
+            //版本号比缓存数据多保留一段时间即可，过期后从0重新开始
+            connection.keyCommands().pExpire(rawKey, redisTtl * 2);
+            return null;
+        });
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value == null ? "0" : new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 回源前读取的版本号
+     */
+    private static final class Generation {
+
+        //不检查版本号，直接写入
+        private static final Generation ANY = new Generation(null, null);
+        //读取版本号失败，不写入redis
+        private static final Generation UNKNOWN = new Generation(null, null);
+
+        private final String key;
+        private final String cache;
+
+        private Generation(String key, String cache) {
+            this.key = key;
+            this.cache = cache;
+        }
+    }
+}
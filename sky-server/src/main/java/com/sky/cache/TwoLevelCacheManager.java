@@ -0,0 +1,123 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.properties.TwoLevelCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存管理器
+ * 按缓存名称创建TwoLevelCache；本节点清除缓存时通过redis频道通知其他节点，
+ * 同时监听该频道，清除其他节点通知的本地缓存
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    //消息格式：节点id|缓存名称|key，key为空表示清除整个缓存
+    private static final String SEPARATOR = "|";
+
+    private final TwoLevelCacheProperties properties;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(TwoLevelCacheProperties properties,
+                                RedisTemplate<String, Object> redisTemplate,
+                                StringRedisTemplate stringRedisTemplate,
+                                ApplicationEventPublisher eventPublisher) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * 所有缓存的命中率统计
+     *
+     * @return
+     */
+    public List<TwoLevelCacheStats> stats() {
+        List<TwoLevelCacheStats> stats = new ArrayList<>();
+        for (TwoLevelCache cache : caches.values()) {
+            stats.add(cache.stats());
+        }
+        return stats;
+    }
+
+    private TwoLevelCache createCache(String name) {
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfterWrite(properties.getLocalTtl(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        return new TwoLevelCache(name, localCache, redisTemplate, this, properties.getKeyPrefix(), properties.getRedisTtl());
+    }
+
+    /**
+     * 发布本节点缓存失效事件，并通知其他节点清除本地缓存
+     *
+     * @param name
+     * @param key  为null时清除整个缓存
+     */
+    void publish(String name, String key) {
+        eventPublisher.publishEvent(new CacheInvalidatedEvent(this, name, key));
+        String message = nodeId + SEPARATOR + name + SEPARATOR + (key == null ? "" : key);
+        try {
+            stringRedisTemplate.convertAndSend(properties.getChannel(), message);
+        } catch (Exception e) {
+            //通知失败时其他节点的本地缓存最迟在localTtl后过期
+            log.warn("发送缓存清除通知失败：{}，{}", message, e.getMessage());
+        }
+    }
+
+    /**
+     * 收到其他节点的缓存清除通知
+     *
+     * @param message
+     * @param pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        String key = parts[2].isEmpty() ? null : parts[2];
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+        log.debug("收到缓存清除通知：{}", body);
+        eventPublisher.publishEvent(new CacheInvalidatedEvent(this, parts[1], key));
+    }
+}
@@ -0,0 +1,27 @@
+package com.sky.cache;
+
+import lombok.Data;
+
+/**
+ * 二级缓存命中率统计
+ */
+@Data
+public class TwoLevelCacheStats {
+
+    private String name; //缓存名称
+
+    private long localSize; //本地缓存条数
+
+    private long localHits; //本地命中次数
+
+    private long localMisses; //本地未命中次数
+
+    private long localEvictions; //本地因容量、过期淘汰的次数
+
+    private long redisHits; //本地未命中后redis命中次数
+
+    private long redisMisses; //redis未命中次数，即回源查询数据库的次数
+
+    private double hitRate; //两级缓存合计命中率
+
+}
@@ -0,0 +1,82 @@
+package com.sky.cluster;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 基于redis的租约存储
+ * 租约为带过期时间的字符串key，值为持有节点和fencing token，token由不过期的计数key(租约key + ":token")分配；成员为有序集合，分数为心跳的过期时间
+ */
+public class RedisLeaseStore implements LeaseStore {
+
+    //key的值为 节点标识 空格 fencing token；key空闲时占用并从计数key分配新的token，已属于当前节点时延长有效期并返回原token
+    private static final RedisScript<Long> ACQUIRE = new DefaultRedisScript<>(
+            "local value = redis.call('get', KEYS[1]) "
+                    + "if value then "
+                    + "local sep = string.find(value, ' ', 1, true) "
+                    + "if sep and string.sub(value, 1, sep - 1) == ARGV[1] then "
+                    + "redis.call('pexpire', KEYS[1], ARGV[2]) return tonumber(string.sub(value, sep + 1)) end "
+                    + "return 0 end "
+                    + "local token = redis.call('incr', KEYS[2]) "
+                    + "redis.call('set', KEYS[1], ARGV[1] .. ' ' .. token, 'px', ARGV[2]) "
+                    + "return token", Long.class);
+
+    //节点标识和token都一致时才延长有效期
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) end return 0", Long.class);
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "local value = redis.call('get', KEYS[1]) "
+                    + "if value and string.sub(value, 1, string.len(ARGV[1]) + 1) == ARGV[1] .. ' ' then "
+                    + "return redis.call('del', KEYS[1]) end return 0", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisLeaseStore(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public long tryAcquire(String key, String owner, long ttl) {
+        Long token = stringRedisTemplate.execute(ACQUIRE, Arrays.asList(key, key + ":token"), owner, String.valueOf(ttl));
+        return token == null ? 0 : token;
+    }
+
+    @Override
+    public boolean renew(String key, String owner, long token, long ttl) {
+        Long renewed = stringRedisTemplate.execute(RENEW, Collections.singletonList(key), owner + " " + token, String.valueOf(ttl));
+        return renewed != null && renewed == 1L;
+    }
+
+    @Override
+    public void release(String key, String owner) {
+        stringRedisTemplate.execute(RELEASE, Collections.singletonList(key), owner);
+    }
+
+    @Override
+    public void heartbeat(String group, String member, long ttl) {
+        stringRedisTemplate.opsForZSet().add(group, member, System.currentTimeMillis() + ttl);
+    }
+
+    @Override
+    public List<String> members(String group) {
+        //先清除心跳已过期的成员，节点间的时钟偏差应远小于成员有效期
+        stringRedisTemplate.opsForZSet().removeRangeByScore(group, Double.NEGATIVE_INFINITY, System.currentTimeMillis());
+        Set<String> members = stringRedisTemplate.opsForZSet().range(group, 0, -1);
+        List<String> list = members == null ? new ArrayList<>() : new ArrayList<>(members);
+        Collections.sort(list);
+        return list;
+    }
+
+    @Override
+    public void leave(String group, String member) {
+        stringRedisTemplate.opsForZSet().remove(group, member);
+    }
+}
@@ -0,0 +1,75 @@
+package com.sky.config;
+
+import com.sky.cache.TwoLevelCacheManager;
+import com.sky.properties.SearchProperties;
+import com.sky.properties.TwoLevelCacheProperties;
+import com.sky.search.SearchIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+/**
+ * 配置类，注册本地+redis二级缓存
+ */
+@Configuration
+@EnableCaching
+@Slf4j
+public class CacheConfiguration {
+
+    /**
+     * 缓存使用的redisTemplate，key为字符串，value使用jdk序列化
+     *
+     * @param redisConnectionFactory
+     * @return
+     */
+    @Bean
+    public RedisTemplate<String, Object> cacheRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(redisConnectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new JdkSerializationRedisSerializer());
+        return redisTemplate;
+    }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(TwoLevelCacheProperties twoLevelCacheProperties,
+                                             RedisTemplate<String, Object> cacheRedisTemplate,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             ApplicationEventPublisher applicationEventPublisher) {
+        log.info("开始创建二级缓存管理器...");
+        return new TwoLevelCacheManager(twoLevelCacheProperties, cacheRedisTemplate, stringRedisTemplate, applicationEventPublisher);
+    }
+
+    /**
+     * 监听缓存清除、名称索引同步频道
+     *
+     * @param redisConnectionFactory
+     * @param cacheManager
+     * @param searchIndexService
+     * @param twoLevelCacheProperties
+     * @param searchProperties
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                      TwoLevelCacheManager cacheManager,
+                                                                      SearchIndexService searchIndexService,
+                                                                      TwoLevelCacheProperties twoLevelCacheProperties,
+                                                                      SearchProperties searchProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(twoLevelCacheProperties.getChannel()));
+        container.addMessageListener(searchIndexService, new ChannelTopic(searchProperties.getChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,58 @@
+package com.sky.config;
+
+import com.sky.cluster.ClusteredJob;
+import com.sky.cluster.ClusteredJobRunner;
+import com.sky.cluster.InMemoryLeaseStore;
+import com.sky.cluster.LeaseStore;
+import com.sky.cluster.RedisLeaseStore;
+import com.sky.properties.ClusterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+/**
+ * 配置类，创建集群定时任务执行器并登记所有ClusteredJob
+ */
+@Configuration
+@Slf4j
+public class ClusterConfiguration {
+
+    /**
+     * 按配置选择租约存储
+     * @param clusterProperties
+     * @param stringRedisTemplate
+     * @return
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public LeaseStore leaseStore(ClusterProperties clusterProperties, ObjectProvider<StringRedisTemplate> stringRedisTemplate) {
+        if ("memory".equals(clusterProperties.getStore())) {
+            return new InMemoryLeaseStore();
+        }
+        return new RedisLeaseStore(stringRedisTemplate.getObject());
+    }
+
+    /**
+     * 容器关闭时归还分片租约并下线
+     * @param leaseStore
+     * @param clusterProperties
+     * @param jobs
+     * @return
+     */
+    @Bean(destroyMethod = "close")
+    public ClusteredJobRunner clusteredJobRunner(LeaseStore leaseStore, ClusterProperties clusterProperties,
+                                                 List<ClusteredJob> jobs) {
+        ClusteredJobRunner runner = new ClusteredJobRunner(leaseStore, clusterProperties, null);
+        runner.start();
+        for (ClusteredJob job : jobs) {
+            log.info("登记集群定时任务：{}，分片数：{}", job.name(), job.shardCount());
+            runner.register(job);
+        }
+        return runner;
+    }
+}
@@ -0,0 +1,77 @@
+package com.sky.config;
+
+import com.sky.id.FileWorkerIdRegistry;
+import com.sky.id.OrderNumberFormatter;
+import com.sky.id.RedisWorkerIdRegistry;
+import com.sky.id.SnowflakeIdGenerator;
+import com.sky.id.WorkerIdLease;
+import com.sky.id.WorkerIdRegistry;
+import com.sky.properties.IdGeneratorProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * 配置类，创建雪花id生成器和订单号格式化
+ */
+@Configuration
+@Slf4j
+public class IdGeneratorConfiguration {
+
+    private WorkerIdLease workerIdLease;
+
+    /**
+     * 按配置选择机器id的分配方式
+     * @param idGeneratorProperties
+     * @param stringRedisTemplate
+     * @return
+     */
+    @Bean
+    public WorkerIdRegistry workerIdRegistry(IdGeneratorProperties idGeneratorProperties,
+                                             ObjectProvider<StringRedisTemplate> stringRedisTemplate) {
+        if ("file".equals(idGeneratorProperties.getRegistry())) {
+            return new FileWorkerIdRegistry(idGeneratorProperties.getLeaseDirectory());
+        }
+        return new RedisWorkerIdRegistry(stringRedisTemplate.getObject(),
+                idGeneratorProperties.getKeyPrefix(), idGeneratorProperties.getLeaseTtl());
+    }
+
+    /**
+     * 配置了固定机器id时直接使用，否则租用机器id，租约过期后生成器停止生成，被其他实例占用后改用新租用的机器id
+     * @param idGeneratorProperties
+     * @param workerIdRegistry
+     * @return
+     */
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(IdGeneratorProperties idGeneratorProperties,
+                                                     WorkerIdRegistry workerIdRegistry) {
+        Integer workerId = idGeneratorProperties.getWorkerId();
+        if (workerId != null) {
+            log.info("开始创建id生成器，机器id：{}", workerId);
+            return new SnowflakeIdGenerator(workerId, idGeneratorProperties.getEpoch(), System::currentTimeMillis);
+        }
+        workerIdLease = new WorkerIdLease(workerIdRegistry, idGeneratorProperties.getLeaseTtl(),
+                idGeneratorProperties.getRenewInterval());
+        log.info("开始创建id生成器，租用的机器id：{}", workerIdLease.getWorkerId());
+        return new SnowflakeIdGenerator(workerIdLease, idGeneratorProperties.getEpoch(), System::currentTimeMillis);
+    }
+
+    @Bean
+    public OrderNumberFormatter orderNumberFormatter(SnowflakeIdGenerator snowflakeIdGenerator) {
+        return new OrderNumberFormatter(snowflakeIdGenerator);
+    }
+
+    /**
+     * 关闭时归还机器id
+     */
+    @PreDestroy
+    public void destroy() {
+        if (workerIdLease != null) {
+            workerIdLease.close();
+        }
+    }
+}
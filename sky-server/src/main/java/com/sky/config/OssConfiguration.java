@@ -0,0 +1,52 @@
+package com.sky.config;
+
+import com.sky.properties.AliOssProperties;
+import com.sky.utils.AliOssUtil;
+import com.sky.utils.ContentAddressedUploader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * 配置类，用于创建AliOssUtil对象和按内容去重的上传器
+ */
+@Configuration
+@Slf4j
+public class OssConfiguration {
+
+    /**
+     * 容器关闭时调用shutdown关闭OSS客户端
+     * @param aliOssProperties
+     * @return
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public AliOssUtil aliOssUtil(AliOssProperties aliOssProperties) {
+        log.info("开始创建阿里云文件上传工具类对象：{}", aliOssProperties.getBucketName());
+        AliOssUtil aliOssUtil = new AliOssUtil(aliOssProperties.getEndpoint(),
+                aliOssProperties.getAccessKeyId(),
+                aliOssProperties.getAccessKeySecret(),
+                aliOssProperties.getBucketName());
+        aliOssUtil.setMultipartThreshold(aliOssProperties.getMultipartThreshold());
+        aliOssUtil.setPartSize(aliOssProperties.getPartSize());
+        aliOssUtil.setUploadThreads(aliOssProperties.getUploadThreads());
+        aliOssUtil.setResilience(aliOssProperties.getResilience());
+        return aliOssUtil;
+    }
+
+    /**
+     * 按内容去重的文件上传
+     * @param aliOssUtil
+     * @param aliOssProperties
+     * @return
+     * @throws IOException
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ContentAddressedUploader contentAddressedUploader(AliOssUtil aliOssUtil, AliOssProperties aliOssProperties) throws IOException {
+        return new ContentAddressedUploader(aliOssUtil, aliOssProperties.getUploadIndexFile());
+    }
+}
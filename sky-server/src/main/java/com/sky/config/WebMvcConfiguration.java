@@ -1,14 +1,21 @@
 package com.sky.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.sky.interceptor.JwtTokenAdminInterceptor;
+import com.sky.interceptor.JwtTokenUserInterceptor;
 import com.sky.json.JacksonObjectMapper;
+import com.sky.properties.ExportProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
@@ -30,6 +37,10 @@ public class WebMvcConfiguration extends WebMvcConfigurationSupport {
 
     @Autowired
     private JwtTokenAdminInterceptor jwtTokenAdminInterceptor;
+    @Autowired
+    private JwtTokenUserInterceptor jwtTokenUserInterceptor;
+    @Autowired
+    private ExportProperties exportProperties;
 
     /**
      * 注册自定义拦截器
@@ -41,6 +52,10 @@ public class WebMvcConfiguration extends WebMvcConfigurationSupport {
         registry.addInterceptor(jwtTokenAdminInterceptor)
                 .addPathPatterns("/admin/**")
                 .excludePathPatterns("/admin/employee/login");
+
+        registry.addInterceptor(jwtTokenUserInterceptor)
+                .addPathPatterns("/user/**")
+                .excludePathPatterns("/user/user/login");
     }
 
     /**
@@ -72,6 +87,21 @@ public class WebMvcConfiguration extends WebMvcConfigurationSupport {
         registry.addResourceHandler("/webjars/**").addResourceLocations("classpath:/META-INF/resources/webjars/");
     }
 
+    /**
+     * 导出线程池，限制同时执行和等待的导出数量，只由导出接口的WebAsyncTask使用
+     * 队列已满时提交被拒绝，由全局异常处理器返回繁忙
+     * @return
+     */
+    @Bean
+    public ThreadPoolTaskExecutor exportTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(exportProperties.getThreads());
+        executor.setMaxPoolSize(exportProperties.getThreads());
+        executor.setQueueCapacity(exportProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("export-");
+        return executor;
+    }
+
     /**
      * 扩展spring MVC框架的消息转换器
      * @param converters
@@ -85,5 +115,8 @@ public class WebMvcConfiguration extends WebMvcConfigurationSupport {
         converter.setObjectMapper(new JacksonObjectMapper());
         //将自己的消息转换器加入容器中
         converters.add(0,converter);
+        //二进制格式的消息转换器，使用相同的序列化规则，请求头Accept为对应格式时使用
+        converters.add(1, new MappingJackson2SmileHttpMessageConverter(new JacksonObjectMapper(new SmileFactory())));
+        converters.add(2, new MappingJackson2CborHttpMessageConverter(new JacksonObjectMapper(new CBORFactory())));
     }
 }
@@ -1,8 +1,12 @@
 package com.sky.controller.admin;
 
+import com.sky.cache.ResourceVersions;
+import com.sky.cache.ResponseBodyCache;
+import com.sky.constant.CacheConstant;
 import com.sky.dto.CategoryDTO;
 import com.sky.dto.CategoryPageQueryDTO;
 import com.sky.entity.Category;
+import com.sky.enumeration.ResourceType;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.CategoryService;
@@ -13,6 +17,11 @@ import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -26,6 +35,10 @@ public class CategoryController {
 
     @Autowired
     private CategoryService categoryService;
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+    @Autowired
+    private ResourceVersions resourceVersions;
 
     /**
      * 新增分类
@@ -46,12 +59,17 @@ public class CategoryController {
     /**
      * 分类分页查询
      * @param categoryPageQueryDTO
+     * @param webRequest
      * @return
      */
     @ApiOperation(value = "分类分页查询", notes = "分类分页查询", httpMethod = "GET")
     @GetMapping("/page")
-    public Result<PageResult> page(CategoryPageQueryDTO categoryPageQueryDTO){
+    public Result<PageResult> page(CategoryPageQueryDTO categoryPageQueryDTO, WebRequest webRequest){
         log.info("分页查询：{}", categoryPageQueryDTO);
+        //分类数据没有变化时直接返回304，不再查询数据库
+        if (resourceVersions.checkNotModified(ResourceType.CATEGORY, webRequest)) {
+            return null;
+        }
         PageResult pageResult = categoryService.pageQuery(categoryPageQueryDTO);
         return Result.success(pageResult);
     }
@@ -103,12 +121,20 @@ public class CategoryController {
     /**
      * 根据类型查询分类
      * @param type
-     * @return
+     * @param request
+     * @param response
+     * @return 已直接写出json响应体时返回null
+     * @throws IOException
      */
     @ApiOperation(value = "根据类型查询分类", notes = "根据类型查询分类", httpMethod = "GET")
     @GetMapping("/list")
-    public Result<List<Category>> list(Integer type){
-        List<Category> list = categoryService.list(type);
-        return Result.success(list);
+    public Result<List<Category>> list(Integer type, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        //直接写出预序列化的json响应体，分类缓存失效时一起失效
+        if (responseBodyCache.write(CacheConstant.CATEGORY_CACHE, "type:" + type,
+                () -> Result.success(categoryService.list(type)), request, response)) {
+            return null;
+        }
+        //请求Smile、CBOR时按正常流程由消息转换器写出
+        return Result.success(categoryService.list(type));
     }
 }
@@ -0,0 +1,52 @@
+package com.sky.controller.admin;
+
+import com.sky.constant.MessageConstant;
+import com.sky.result.Result;
+import com.sky.utils.ContentAddressedUploader;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+/**
+ * 通用接口
+ */
+@Api(value = "/admin/common", tags = {"通用接口"})
+@RestController
+@RequestMapping("/admin/common")
+@Slf4j
+public class CommonController {
+
+    @Autowired
+    private ContentAddressedUploader contentAddressedUploader;
+
+    /**
+     * 文件上传，内容与已上传文件相同时直接返回已有的访问路径
+     * 请求中的文件由容器暂存在临时文件中，计算摘要和上传时都从临时文件流式读取，不读入内存
+     * @param file
+     * @return
+     */
+    @ApiOperation(value = "文件上传", notes = "文件上传", httpMethod = "POST")
+    @PostMapping("/upload")
+    public Result<String> upload(MultipartFile file){
+        log.info("文件上传：{}", file.getOriginalFilename());
+        //保留原始文件的扩展名，文件名由内容摘要决定
+        String originalFilename = file.getOriginalFilename();
+        int dot = originalFilename == null ? -1 : originalFilename.lastIndexOf('.');
+        String extension = dot < 0 ? "" : originalFilename.substring(dot);
+
+        try {
+            String filePath = contentAddressedUploader.upload(file, file.getSize(), extension);
+            return Result.success(filePath);
+        } catch (IOException | RuntimeException e) {
+            log.error("文件上传失败：{}", e.getMessage());
+        }
+        return Result.error(MessageConstant.UPLOAD_FAILED);
+    }
+}
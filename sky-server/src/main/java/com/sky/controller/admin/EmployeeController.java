@@ -1,16 +1,21 @@
 package com.sky.controller.admin;
 
 import com.github.pagehelper.Page;
+import com.sky.cache.ResourceVersions;
 import com.sky.constant.JwtClaimsConstant;
 import com.sky.dto.EmployeeDTO;
 import com.sky.dto.EmployeeLoginDTO;
 import com.sky.dto.EmployeePageQueryDTO;
 import com.sky.dto.PasswordEditDTO;
 import com.sky.entity.Employee;
+import com.sky.enumeration.ExportFormat;
+import com.sky.enumeration.ResourceType;
+import com.sky.export.ExportTasks;
 import com.sky.properties.JwtProperties;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.EmployeeService;
+import com.sky.service.ExportService;
 import com.sky.utils.JwtUtil;
 import com.sky.vo.EmployeeLoginVO;
 import io.swagger.annotations.Api;
@@ -20,7 +25,10 @@ import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -37,6 +45,12 @@ public class EmployeeController {
     private EmployeeService employeeService;
     @Autowired
     private JwtProperties jwtProperties;
+    @Autowired
+    private ResourceVersions resourceVersions;
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private ExportTasks exportTasks;
 
     /**
      * 登录
@@ -99,14 +113,34 @@ public class EmployeeController {
 
     /**
      * 分页显示员工信息表
+     * @param employeePageQueryDTO
+     * @param webRequest
      * @return
      */
     @ApiOperation(value = "分页显示员工信息表", notes = "分页显示员工信息表", httpMethod = "GET")
     @GetMapping("/page")
-    public Result<PageResult> PageQueryEmployee(EmployeePageQueryDTO employeePageQueryDTO) {
+    public Result<PageResult> PageQueryEmployee(EmployeePageQueryDTO employeePageQueryDTO, WebRequest webRequest) {
+        //员工数据没有变化时直接返回304，不再查询数据库
+        if (resourceVersions.checkNotModified(ResourceType.EMPLOYEE, webRequest)) {
+            return null;
+        }
         return employeeService.employeePageQuery(employeePageQueryDTO);
     }
 
+    /**
+     * 导出员工信息，边查询边写出
+     * @param name
+     * @param format jsonl或csv，默认jsonl
+     * @return
+     */
+    @ApiOperation(value = "导出员工信息", notes = "导出员工信息", httpMethod = "GET")
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportEmployee(String name, String format, HttpServletResponse response) {
+        log.info("导出员工信息：{}，{}", name, format);
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return exportTasks.stream(response, exportFormat, "employee", out -> exportService.exportEmployees(name, exportFormat, out));
+    }
+
     /**
      * 员工账号启用/禁用功能
      * @param status
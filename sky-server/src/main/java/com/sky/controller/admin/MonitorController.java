@@ -0,0 +1,85 @@
+package com.sky.controller.admin;
+
+import com.sky.cache.TwoLevelCacheManager;
+import com.sky.cache.TwoLevelCacheStats;
+import com.sky.cluster.ClusteredJobRunner;
+import com.sky.cluster.ClusteredJobStats;
+import com.sky.resilience.ResilienceRegistry;
+import com.sky.resilience.UpstreamStats;
+import com.sky.result.Result;
+import com.sky.utils.HttpClientUtil;
+import com.sky.utils.HttpPoolStats;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 运行状态监控
+ */
+@Api(value = "/admin/monitor", tags = {"运行状态监控"})
+@RestController
+@RequestMapping("/admin/monitor")
+@Slf4j
+public class MonitorController {
+
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+    @Autowired
+    private ClusteredJobRunner clusteredJobRunner;
+
+    /**
+     * 查询缓存命中率
+     * @return
+     */
+    @ApiOperation(value = "查询缓存命中率", notes = "查询缓存命中率", httpMethod = "GET")
+    @GetMapping("/cache")
+    public Result<List<TwoLevelCacheStats>> cache(){
+        return Result.success(cacheManager.stats());
+    }
+
+    /**
+     * 查询http连接池状态，第一条为合计
+     * @return
+     */
+    @ApiOperation(value = "查询http连接池状态", notes = "查询http连接池状态", httpMethod = "GET")
+    @GetMapping("/http")
+    public Result<List<HttpPoolStats>> http(){
+        return Result.success(HttpClientUtil.poolStats());
+    }
+
+    /**
+     * 查询异步http连接池状态，第一条为合计
+     * @return
+     */
+    @ApiOperation(value = "查询异步http连接池状态", notes = "查询异步http连接池状态", httpMethod = "GET")
+    @GetMapping("/http-async")
+    public Result<List<HttpPoolStats>> httpAsync(){
+        return Result.success(HttpClientUtil.asyncPoolStats());
+    }
+
+    /**
+     * 查询外部服务的熔断状态和调用统计
+     * @return
+     */
+    @ApiOperation(value = "查询外部服务状态", notes = "查询外部服务状态", httpMethod = "GET")
+    @GetMapping("/upstream")
+    public Result<List<UpstreamStats>> upstream(){
+        return Result.success(ResilienceRegistry.stats());
+    }
+
+    /**
+     * 查询集群定时任务在当前节点上的分片和执行情况
+     * @return
+     */
+    @ApiOperation(value = "查询集群定时任务", notes = "查询集群定时任务", httpMethod = "GET")
+    @GetMapping("/jobs")
+    public Result<List<ClusteredJobStats>> jobs(){
+        return Result.success(clusteredJobRunner.stats());
+    }
+}
@@ -0,0 +1,90 @@
+package com.sky.controller.admin;
+
+import com.sky.dto.OrdersConfirmDTO;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.enumeration.ExportFormat;
+import com.sky.export.ExportTasks;
+import com.sky.result.Result;
+import com.sky.service.ExportService;
+import com.sky.service.OrderService;
+import com.sky.vo.OrderStatisticsVO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 订单管理
+ */
+@Api(value = "/admin/order", tags = {"订单管理"})
+@RestController("adminOrderController")
+@RequestMapping("/admin/order")
+@Slf4j
+public class OrderController {
+
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private ExportTasks exportTasks;
+    @Autowired
+    private OrderService orderService;
+
+    /**
+     * 接单
+     * @param ordersConfirmDTO
+     * @return
+     */
+    @ApiOperation(value = "接单", notes = "接单", httpMethod = "PUT")
+    @PutMapping("/confirm")
+    public Result<String> confirm(@RequestBody OrdersConfirmDTO ordersConfirmDTO){
+        log.info("接单：{}", ordersConfirmDTO);
+        orderService.confirm(ordersConfirmDTO);
+        return Result.success();
+    }
+
+    /**
+     * 各个状态的订单数量统计
+     * @return
+     */
+    @ApiOperation(value = "各个状态的订单数量统计", notes = "各个状态的订单数量统计", httpMethod = "GET")
+    @GetMapping("/statistics")
+    public Result<OrderStatisticsVO> statistics(){
+        return Result.success(orderService.statistics());
+    }
+
+    /**
+     * 派送订单
+     * @param id
+     * @return
+     */
+    @ApiOperation(value = "派送订单", notes = "派送订单", httpMethod = "PUT")
+    @PutMapping("/delivery/{id}")
+    public Result<String> delivery(@PathVariable Long id){
+        log.info("派送订单：{}", id);
+        orderService.delivery(id);
+        return Result.success();
+    }
+
+    /**
+     * 按条件导出订单，边查询边写出
+     * @param ordersPageQueryDTO
+     * @param format jsonl或csv，默认jsonl
+     * @return
+     */
+    @ApiOperation(value = "导出订单", notes = "导出订单", httpMethod = "GET")
+    @GetMapping("/export")
+    public WebAsyncTask<Void> export(OrdersPageQueryDTO ordersPageQueryDTO, String format, HttpServletResponse response) {
+        log.info("导出订单：{}，{}", ordersPageQueryDTO, format);
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return exportTasks.stream(response, exportFormat, "orders", out -> exportService.exportOrders(ordersPageQueryDTO, exportFormat, out));
+    }
+}
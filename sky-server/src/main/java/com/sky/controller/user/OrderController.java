@@ -0,0 +1,51 @@
+package com.sky.controller.user;
+
+import com.sky.constant.MessageConstant;
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.properties.OrderSubmitProperties;
+import com.sky.result.Result;
+import com.sky.service.OrderService;
+import com.sky.utils.DeferredResultUtil;
+import com.sky.vo.OrderSubmitVO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * 用户端订单接口
+ */
+@Api(value = "/user/order", tags = {"用户端订单接口"})
+@RestController("userOrderController")
+@RequestMapping("/user/order")
+@Slf4j
+public class OrderController {
+
+    //请求在队列中等待和一次提交事务的时间之外多留出的余量(毫秒)
+    private static final long TIMEOUT_MARGIN = 1000;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderSubmitProperties orderSubmitProperties;
+
+    /**
+     * 用户下单，订单写入数据库后返回，等待期间不占用请求线程
+     * 订单写入时间过长时返回"订单正在提交"的错误，不返回订单号，写入完成后订单出现在订单列表中
+     * @param ordersSubmitDTO
+     * @return
+     */
+    @ApiOperation(value = "用户下单", notes = "用户下单", httpMethod = "POST")
+    @PostMapping("/submit")
+    public DeferredResult<Result<OrderSubmitVO>> submit(@RequestBody OrdersSubmitDTO ordersSubmitDTO){
+        log.info("用户下单：{}", ordersSubmitDTO);
+        return DeferredResultUtil.of(orderService.submitOrder(ordersSubmitDTO).thenApply(Result::success),
+                orderSubmitProperties.getTimeout() + orderSubmitProperties.getCommitTimeout() + TIMEOUT_MARGIN,
+                Result.error(MessageConstant.ORDER_SUBMIT_PENDING));
+    }
+}
@@ -0,0 +1,85 @@
+package com.sky.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * CSV格式，第一行为表头，带UTF-8 BOM以便Excel识别编码
+ *
+ * @param <T> 行类型
+ */
+public class CsvRowWriter<T> implements RowWriter<T> {
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer writer;
+    private final Function<T, ?>[] extractors;
+
+    /**
+     * @param columns 表头 -> 取值函数，按插入顺序输出
+     * @param out
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public CsvRowWriter(LinkedHashMap<String, Function<T, ?>> columns, OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.extractors = columns.values().toArray(new Function[0]);
+        writer.write('\uFEFF');
+        int i = 0;
+        for (Map.Entry<String, Function<T, ?>> column : columns.entrySet()) {
+            if (i++ > 0) {
+                writer.write(',');
+            }
+            writeCell(column.getKey());
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        for (int i = 0; i < extractors.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = extractors[i].apply(row);
+            if (value instanceof LocalDateTime) {
+                writer.write(DATE_TIME_FORMATTER.format((LocalDateTime) value));
+            } else if (value != null) {
+                writeCell(value.toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * 含逗号、引号、换行的值用双引号包裹，值中的双引号写两次
+     */
+    private void writeCell(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,49 @@
+package com.sky.export;
+
+import com.sky.enumeration.ExportFormat;
+import com.sky.properties.ExportProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * 导出接口的异步任务
+ * 导出在导出线程池中执行，使用导出专用的超时时间，不修改Spring MVC全局的异步超时和线程池
+ */
+@Component
+public class ExportTasks {
+
+    @Autowired
+    private ExportProperties exportProperties;
+    @Autowired
+    @Qualifier("exportTaskExecutor")
+    private ThreadPoolTaskExecutor exportTaskExecutor;
+
+    /**
+     * 创建导出任务，任务中直接向响应输出流写出文件
+     *
+     * @param response
+     * @param format   导出格式
+     * @param filename 不含扩展名的文件名
+     * @param export   向输出流写出数据
+     * @return
+     */
+    public WebAsyncTask<Void> stream(HttpServletResponse response, ExportFormat format, String filename,
+                                     Consumer<OutputStream> export) {
+        return new WebAsyncTask<>(exportProperties.getTimeout(), exportTaskExecutor, () -> {
+            response.setContentType(format.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename + "." + format.getExtension());
+            OutputStream out = response.getOutputStream();
+            export.accept(out);
+            out.flush();
+            return null;
+        });
+    }
+}
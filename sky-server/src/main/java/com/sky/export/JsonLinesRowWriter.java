@@ -0,0 +1,43 @@
+package com.sky.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JSON Lines格式，每行一个json对象
+ *
+ * @param <T> 行类型
+ */
+public class JsonLinesRowWriter<T> implements RowWriter<T> {
+
+    private final JsonGenerator generator;
+    private final SequenceWriter writer;
+    private boolean empty = true;
+
+    public JsonLinesRowWriter(ObjectMapper objectMapper, Class<T> type, OutputStream out) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.writer = objectMapper.writerFor(type)
+                .withRootValueSeparator("\n")
+                .writeValues(generator);
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        writer.write(row);
+        empty = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        //行与行之间由SequenceWriter写入换行，最后一行之后补一个换行
+        if (!empty) {
+            generator.writeRaw('\n');
+        }
+        writer.close();
+    }
+}
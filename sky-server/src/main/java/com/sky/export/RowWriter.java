@@ -0,0 +1,28 @@
+package com.sky.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 逐行写出导出数据，写出的行不在内存中保留
+ *
+ * @param <T> 行类型
+ */
+public interface RowWriter<T> extends Closeable {
+
+    /**
+     * 写出一行
+     *
+     * @param row
+     * @throws IOException
+     */
+    void write(T row) throws IOException;
+
+    /**
+     * 写出缓冲区中剩余的数据，不关闭底层输出流，输出流由容器负责关闭
+     *
+     * @throws IOException
+     */
+    @Override
+    void close() throws IOException;
+}
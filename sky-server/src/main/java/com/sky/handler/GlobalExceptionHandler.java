@@ -4,6 +4,7 @@ import com.sky.constant.MessageConstant;
 import com.sky.exception.BaseException;
 import com.sky.result.Result;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -36,4 +37,15 @@ public class GlobalExceptionHandler {
         return Result.error(MessageConstant.UNKNOWN_ERROR);
     }
 
+    /**
+     * 导出线程池队列已满
+     * @param ex
+     * @return
+     */
+    @ExceptionHandler
+    public Result exceptionHandler(TaskRejectedException ex){
+        log.warn("导出任务被拒绝：{}", ex.getMessage());
+        return Result.error(MessageConstant.EXPORT_BUSY);
+    }
+
 }
@@ -0,0 +1,40 @@
+package com.sky.handler;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 由jackson消息转换器写出的响应按Accept在json、Smile、CBOR之间选择格式，
+ * 设置Vary: Accept，避免共享缓存把一种格式返回给请求另一种格式的客户端
+ */
+@RestControllerAdvice
+public class VaryAcceptAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        HttpHeaders headers = response.getHeaders();
+        //条件请求已经设置过时不重复添加
+        for (String vary : headers.getVary()) {
+            if (HttpHeaders.ACCEPT.equalsIgnoreCase(vary)) {
+                return body;
+            }
+        }
+        //只添加本次的值，servlet响应上已有的Vary(如CORS设置的Origin)保持不变
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return body;
+    }
+}
@@ -0,0 +1,70 @@
+package com.sky.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于redis的机器id分配，适用于多台机器部署
+ * 每个机器id对应一个带有效期的key，值为当前实例的标识，SET NX成功即租用该机器id；
+ * 实例异常退出没有归还时，租约过期后机器id可以被其他实例租用
+ */
+@Slf4j
+public class RedisWorkerIdRegistry implements WorkerIdRegistry {
+
+    //租约仍属于当前实例时延长有效期，已过期且未被占用时重新占用
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "local owner = redis.call('get', KEYS[1]) "
+                    + "if owner == ARGV[1] then redis.call('pexpire', KEYS[1], ARGV[2]) return 1 end "
+                    + "if not owner then redis.call('set', KEYS[1], ARGV[1], 'px', ARGV[2]) return 1 end "
+                    + "return 0", Long.class);
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String keyPrefix;
+    private final long leaseTtl;
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * @param stringRedisTemplate
+     * @param keyPrefix           key前缀，后面拼接机器id
+     * @param leaseTtl            租约有效期(毫秒)
+     */
+    public RedisWorkerIdRegistry(StringRedisTemplate stringRedisTemplate, String keyPrefix, long leaseTtl) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.leaseTtl = leaseTtl;
+    }
+
+    @Override
+    public int lease() {
+        for (int workerId = 0; workerId <= SnowflakeIdGenerator.MAX_WORKER_ID; workerId++) {
+            Boolean leased = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(keyPrefix + workerId, owner, leaseTtl, TimeUnit.MILLISECONDS);
+            if (Boolean.TRUE.equals(leased)) {
+                log.info("从redis租用机器id：{}", workerId);
+                return workerId;
+            }
+        }
+        throw new IllegalStateException("没有空闲的机器id：" + keyPrefix);
+    }
+
+    @Override
+    public boolean renew(int workerId) {
+        Long renewed = stringRedisTemplate.execute(RENEW, Collections.singletonList(keyPrefix + workerId),
+                owner, String.valueOf(leaseTtl));
+        return renewed != null && renewed == 1L;
+    }
+
+    @Override
+    public void release(int workerId) {
+        stringRedisTemplate.execute(RELEASE, Collections.singletonList(keyPrefix + workerId), owner);
+    }
+}
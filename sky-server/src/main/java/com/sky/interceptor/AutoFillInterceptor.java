@@ -0,0 +1,141 @@
+package com.sky.interceptor;
+
+import com.sky.annotation.AutoFill;
+import com.sky.autofill.AutoFillAccessor;
+import com.sky.autofill.GeneratedAutoFillers;
+import com.sky.context.BaseContext;
+import com.sky.enumeration.OperationType;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 公共字段自动填充的MyBatis插件
+ * 在执行insert、update语句前，为标注了@AutoFill的mapper方法的参数填充公共字段；
+ * 优先使用编译期生成的填充器，没有生成填充器的类型再使用缓存的赋值器
+ */
+@Component
+@Slf4j
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class AutoFillInterceptor implements Interceptor {
+
+    private static final Holder NONE = new Holder(null);
+
+    //语句id -> mapper方法上的@AutoFill，每条语句只解析一次
+    private final Map<String, Holder> autoFills = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+        Object parameter = args[1];
+        AutoFill autoFill = autoFills.computeIfAbsent(ms.getId(), AutoFillInterceptor::resolve).autoFill;
+        if (autoFill != null && parameter != null) {
+            Object target = target(parameter, autoFill.index());
+            if (target != null) {
+                fill(target, autoFill.value());
+            }
+        }
+        return invocation.proceed();
+    }
+
+    /**
+     * 为单个实体、实体集合或数组填充公共字段，批量操作中的所有实体共用同一个时间和操作人
+     */
+    private void fill(Object target, OperationType operationType) {
+        LocalDateTime now = LocalDateTime.now();
+        Long currentId = BaseContext.getCurrentId();
+        if (target instanceof Collection) {
+            for (Object entity : (Collection<?>) target) {
+                fill(entity, operationType, now, currentId);
+            }
+        } else if (target instanceof Object[]) {
+            for (Object entity : (Object[]) target) {
+                fill(entity, operationType, now, currentId);
+            }
+        } else {
+            fill(target, operationType, now, currentId);
+        }
+    }
+
+    private void fill(Object entity, OperationType operationType, LocalDateTime now, Long currentId) {
+        if (entity == null || GeneratedAutoFillers.fill(entity, operationType, now, currentId)) {
+            return;
+        }
+        AutoFillAccessor accessor = AutoFillAccessor.of(entity.getClass());
+        if (operationType == OperationType.INSERT) {
+            accessor.fillInsert(entity, now, currentId);
+        } else if (operationType == OperationType.UPDATE) {
+            accessor.fillUpdate(entity, now, currentId);
+        }
+    }
+
+    /**
+     * 从MyBatis包装后的参数中取出需要填充的参数
+     * 多个参数时为param1、param2...；单个集合或数组参数时为collection、array
+     */
+    private static Object target(Object parameter, int index) {
+        if (!(parameter instanceof Map)) {
+            return index == 0 ? parameter : null;
+        }
+        Map<?, ?> paramMap = (Map<?, ?>) parameter;
+        String name = "param" + (index + 1);
+        if (paramMap.containsKey(name)) {
+            return paramMap.get(name);
+        }
+        if (index == 0) {
+            if (paramMap.containsKey("collection")) {
+                return paramMap.get("collection");
+            }
+            if (paramMap.containsKey("array")) {
+                return paramMap.get("array");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据语句id找到对应的mapper方法，读取方法上的@AutoFill
+     */
+    private static Holder resolve(String statementId) {
+        int dot = statementId.lastIndexOf('.');
+        if (dot < 0) {
+            return NONE;
+        }
+        String mapperName = statementId.substring(0, dot);
+        String methodName = statementId.substring(dot + 1);
+        try {
+            Class<?> mapper = ClassUtils.forName(mapperName, AutoFillInterceptor.class.getClassLoader());
+            return Arrays.stream(mapper.getMethods())
+                    .filter(method -> method.getName().equals(methodName))
+                    .map(method -> method.getAnnotation(AutoFill.class))
+                    .filter(annotation -> annotation != null)
+                    .findFirst()
+                    .map(Holder::new)
+                    .orElse(NONE);
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.debug("语句{}没有对应的mapper接口", statementId);
+            return NONE;
+        }
+    }
+
+    private static class Holder {
+        private final AutoFill autoFill;
+
+        private Holder(AutoFill autoFill) {
+            this.autoFill = autoFill;
+        }
+    }
+}
@@ -3,13 +3,15 @@ package com.sky.interceptor;
 import com.sky.constant.JwtClaimsConstant;
 import com.sky.context.BaseContext;
 import com.sky.properties.JwtProperties;
-import com.sky.utils.JwtUtil;
+import com.sky.utils.JwtTokenCache;
 import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -23,6 +25,19 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
     @Autowired
     private JwtProperties jwtProperties;
 
+    private JwtTokenCache tokenCache;
+
+    /**
+     * 初始化已校验令牌缓存
+     */
+    @PostConstruct
+    public void init() {
+        tokenCache = new JwtTokenCache(
+                jwtProperties.getAdminSecretKey(),
+                jwtProperties.getAdminTokenCacheSize(),
+                jwtProperties.getAdminTokenCacheTtl());
+    }
+
     /**
      * 校验jwt
      *
@@ -45,7 +60,7 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
         //2、校验令牌
         try {
             log.info("jwt校验:{}", token);
-            Claims claims = JwtUtil.parseJWT(jwtProperties.getAdminSecretKey(), token);
+            Claims claims = tokenCache.parse(token);
             Long empId = Long.valueOf(claims.get(JwtClaimsConstant.EMP_ID).toString());
             log.info("当前员工id:{}", empId);
             //将当前用户ID存入线程中的局部变量中
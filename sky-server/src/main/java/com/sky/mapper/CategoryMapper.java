@@ -1,11 +1,17 @@
 package com.sky.mapper;
 
 import com.github.pagehelper.Page;
+import com.sky.annotation.AutoFill;
 import com.sky.dto.CategoryPageQueryDTO;
 import com.sky.entity.Category;
+import com.sky.enumeration.OperationType;
+import com.sky.result.SeekCursor;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import java.util.List;
 
 @Mapper
@@ -18,6 +24,8 @@ public interface CategoryMapper {
     @Insert("insert into category(type, name, sort, status, create_time, update_time, create_user, update_user)" +
             " VALUES" +
             " (#{type}, #{name}, #{sort}, #{status}, #{createTime}, #{updateTime}, #{createUser}, #{updateUser})")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    @AutoFill(value = OperationType.INSERT)
     void insert(Category category);
 
     /**
@@ -27,6 +35,23 @@ public interface CategoryMapper {
      */
     Page<Category> pageQuery(CategoryPageQueryDTO categoryPageQueryDTO);
 
+    /**
+     * 根据id分页查询，id由名称索引匹配得到
+     * @param ids
+     * @param type
+     * @return
+     */
+    Page<Category> pageQueryByIds(@Param("ids") List<Long> ids, @Param("type") Integer type);
+
+    /**
+     * 游标分页查询，按 sort asc, create_time desc, id desc 排序，从游标之后取limit条
+     * @param query
+     * @param cursor 为null时从第一条开始
+     * @param limit
+     * @return
+     */
+    List<Category> seekQuery(@Param("query") CategoryPageQueryDTO query, @Param("cursor") SeekCursor cursor, @Param("limit") int limit);
+
     /**
      * 根据id删除分类
      * @param id
@@ -38,6 +63,7 @@ public interface CategoryMapper {
      * 根据id修改分类
      * @param category
      */
+    @AutoFill(value = OperationType.UPDATE)
     void update(Category category);
 
     /**
@@ -46,4 +72,11 @@ public interface CategoryMapper {
      * @return
      */
     List<Category> list(Integer type);
+
+    /**
+     * 查询全部分类的id和名称，用于建立名称索引
+     * @return
+     */
+    @Select("select id, name from category")
+    List<Category> listIdAndName();
 }
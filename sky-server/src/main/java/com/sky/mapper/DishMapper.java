@@ -1,8 +1,11 @@
 package com.sky.mapper;
 
+import com.sky.entity.Dish;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 @Mapper
 public interface DishMapper {
 
@@ -14,4 +17,11 @@ public interface DishMapper {
     @Select("select count(id) from dish where category_id = #{categoryId}")
     Integer countByCategoryId(Long categoryId);
 
+    /**
+     * 查询全部菜品的id和名称，用于建立名称索引
+     * @return
+     */
+    @Select("select id, name from dish")
+    List<Dish> listIdAndName();
+
 }
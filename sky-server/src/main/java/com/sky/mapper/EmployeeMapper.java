@@ -4,9 +4,12 @@ import com.github.pagehelper.Page;
 import com.sky.annotation.AutoFill;
 import com.sky.entity.Employee;
 import com.sky.enumeration.OperationType;
+import com.sky.result.SeekCursor;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 
@@ -27,8 +30,39 @@ public interface EmployeeMapper {
 
     Page<Employee> getPageQuery(String name);
 
+    /**
+     * 根据id分页查询，id由名称索引匹配得到
+     * @param ids
+     * @return
+     */
+    Page<Employee> getPageQueryByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 游标分页查询，按 create_time desc, id desc 排序，从游标之后取limit条
+     * @param name
+     * @param cursor 为null时从第一条开始
+     * @param limit
+     * @return
+     */
+    List<Employee> getSeekQuery(@Param("name") String name, @Param("cursor") SeekCursor cursor, @Param("limit") int limit);
+
+    /**
+     * 导出员工，逐行读取，不查询密码
+     * 游标需要在事务内遍历，遍历完成或事务结束时关闭
+     * @param name
+     * @return
+     */
+    Cursor<Employee> exportQuery(@Param("name") String name);
+
     @AutoFill(value = OperationType.UPDATE)
     int update(Employee employee);
 
     Employee getEmployee(Long id);
+
+    /**
+     * 查询全部员工的id和姓名，用于建立名称索引
+     * @return
+     */
+    @Select("select id, name from employee")
+    List<Employee> listIdAndName();
 }
@@ -0,0 +1,16 @@
+package com.sky.mapper;
+
+import com.sky.entity.OrderDetail;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.util.List;
+
+@Mapper
+public interface OrderDetailMapper {
+
+    /**
+     * 批量插入订单明细，一条insert语句插入多行
+     * @param orderDetails
+     */
+    void insertBatch(List<OrderDetail> orderDetails);
+}
@@ -0,0 +1,79 @@
+package com.sky.mapper;
+
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.entity.Orders;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Mapper
+public interface OrderMapper {
+
+    /**
+     * 按条件导出订单，逐行读取
+     * 游标需要在事务内遍历，遍历完成或事务结束时关闭
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    Cursor<Orders> exportQuery(OrdersPageQueryDTO ordersPageQueryDTO);
+
+    /**
+     * 批量插入订单，一条insert语句插入多行，id由调用方生成
+     * @param orders
+     */
+    void insertBatch(List<Orders> orders);
+
+    /**
+     * 根据id查询订单
+     * @param id
+     * @return
+     */
+    @Select("select * from orders where id = #{id}")
+    Orders getById(Long id);
+
+    /**
+     * 根据订单号查询订单
+     * @param number
+     * @return
+     */
+    @Select("select * from orders where number = #{number}")
+    Orders getByNumber(String number);
+
+    /**
+     * 查询处于指定状态的订单，只返回计算到期时间需要的列
+     * @param statuses
+     * @return
+     */
+    List<Orders> listDeadlines(@Param("statuses") List<Integer> statuses);
+
+    /**
+     * 查询处于指定状态、下单时间早于before的订单，按下单时间从晚到早，只返回计算到期时间需要的列
+     * 按(status, order_time)索引做范围扫描
+     * @param status
+     * @param before
+     * @param limit
+     * @return
+     */
+    List<Orders> listDeadlinesBefore(@Param("status") Integer status, @Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * 批量修改订单状态，只修改仍处于fromStatus的订单，已被其他操作修改状态的订单不受影响
+     * @param ids
+     * @param fromStatus
+     * @param orders 要修改的字段，为null的字段不修改
+     * @return 实际修改的订单数
+     */
+    int updateStatusBatch(@Param("ids") List<Long> ids, @Param("fromStatus") Integer fromStatus, @Param("orders") Orders orders);
+
+    /**
+     * 统计处于指定状态的订单数量
+     * @param statuses
+     * @return 每行包含status和number
+     */
+    List<Map<String, Object>> countByStatus(@Param("statuses") List<Integer> statuses);
+}
@@ -1,8 +1,11 @@
 package com.sky.mapper;
 
+import com.sky.entity.Setmeal;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 @Mapper
 public interface SetmealMapper {
 
@@ -14,4 +17,11 @@ public interface SetmealMapper {
     @Select("select count(id) from setmeal where category_id = #{categoryId}")
     Integer countByCategoryId(Long id);
 
+    /**
+     * 查询全部套餐的id和名称，用于建立名称索引
+     * @return
+     */
+    @Select("select id, name from setmeal")
+    List<Setmeal> listIdAndName();
+
 }
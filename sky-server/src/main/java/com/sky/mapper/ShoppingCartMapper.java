@@ -0,0 +1,39 @@
+package com.sky.mapper;
+
+import com.sky.entity.ShoppingCart;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface ShoppingCartMapper {
+
+    /**
+     * 查询用户的购物车
+     * @param userId
+     * @return
+     */
+    @Select("select * from shopping_cart where user_id = #{userId}")
+    List<ShoppingCart> listByUserId(Long userId);
+
+    /**
+     * 按id批量删除购物车数据
+     * @param ids
+     */
+    void deleteByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 删除一个分片中创建时间早于before的购物车数据，分片按 user_id % shardCount 划分
+     * @param before
+     * @param shard
+     * @param shardCount
+     * @param limit 最多删除的行数
+     * @return 实际删除的行数
+     */
+    int deleteExpired(@Param("before") LocalDateTime before, @Param("shard") int shard,
+                      @Param("shardCount") int shardCount, @Param("limit") int limit);
+}
@@ -0,0 +1,288 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.ClusterProperties;
+import com.sky.properties.OrderStatisticsProperties;
+import com.sky.vo.OrderStatisticsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 待接单、待派送、派送中的订单数
+ * 每次订单状态变化时增减内存中的计数，查询统计时不访问订单表；
+ * 集群部署时每次状态变化立即用一个脚本在redis中对两个状态原子地HINCRBY，统计时读取redis中的合计；
+ * 计数由OrderStatusReconcileJob定期与数据库核对，核对用一个脚本覆盖redis中的计数并递增版本(epoch)；
+ * redis暂时不可用时变化量留在本节点，连同当时的版本定期重试，期间发生过核对(版本已变)的变化量已包含在数据库计数中，直接丢弃，
+ * 不会在核对后被重复累加
+ */
+@Component
+@Slf4j
+public class OrderStatusCounters {
+
+    //参与计数的订单状态
+    private static final List<Integer> TRACKED = Arrays.asList(Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS);
+
+    private static final String EPOCH = "epoch";
+
+    //ARGV[1]为期望的版本，为空串时不检查；之后为 状态 变化量 对；版本不一致时返回-1，否则返回当前版本
+    private static final RedisScript<Long> APPLY = new DefaultRedisScript<>(
+            "local epoch = tonumber(redis.call('hget', KEYS[1], 'epoch') or '0') "
+                    + "if ARGV[1] ~= '' and tonumber(ARGV[1]) ~= epoch then return -1 end "
+                    + "for i = 2, #ARGV, 2 do redis.call('hincrby', KEYS[1], ARGV[i], ARGV[i + 1]) end "
+                    + "return epoch", Long.class);
+
+    //ARGV为 状态 数量 对，覆盖计数并递增版本，返回新版本
+    private static final RedisScript<Long> RECONCILE = new DefaultRedisScript<>(
+            "for i = 1, #ARGV, 2 do redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) end "
+                    + "return redis.call('hincrby', KEYS[1], 'epoch', 1)", Long.class);
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderStatisticsProperties orderStatisticsProperties;
+    @Autowired
+    private ClusterProperties clusterProperties;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    //下标为订单状态
+    private final LongAdder[] counts = new LongAdder[Orders.CANCELLED + 1];
+    //写入redis失败、等待重试的变化量，以及记录这些变化量时redis中计数的版本，-1表示未知
+    private final long[] unflushed = new long[Orders.CANCELLED + 1];
+    private long unflushedEpoch = -1;
+    //最近一次访问redis时看到的版本，-1表示未知
+    private volatile long knownEpoch = -1;
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        load(countFromDatabase());
+        if (isClustered()) {
+            try {
+                Object epoch = stringRedisTemplate.opsForHash().get(orderStatisticsProperties.getRedisKey(), EPOCH);
+                knownEpoch = epoch == null ? 0 : Long.parseLong(epoch.toString());
+            } catch (RuntimeException e) {
+                log.warn("读取redis中订单数的版本失败：{}", e.getMessage());
+            }
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-status-counter-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = orderStatisticsProperties.getFlushInterval();
+            flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flush();
+        }
+    }
+
+    /**
+     * 订单状态变化
+     * @param fromStatus 原状态，新订单为null
+     * @param toStatus   新状态
+     * @param count      变化的订单数
+     */
+    public void transition(Integer fromStatus, Integer toStatus, int count) {
+        if (count <= 0) {
+            return;
+        }
+        boolean from = add(fromStatus, -count);
+        boolean to = add(toStatus, count);
+        if (!isClustered() || (!from && !to)) {
+            return;
+        }
+        List<String> args = new ArrayList<>(5);
+        args.add("");
+        if (from) {
+            args.add(fromStatus.toString());
+            args.add(String.valueOf(-count));
+        }
+        if (to) {
+            args.add(toStatus.toString());
+            args.add(String.valueOf(count));
+        }
+        try {
+            Long epoch = stringRedisTemplate.execute(APPLY, Collections.singletonList(orderStatisticsProperties.getRedisKey()),
+                    args.toArray());
+            if (epoch != null) {
+                knownEpoch = epoch;
+            }
+        } catch (RuntimeException e) {
+            log.warn("更新redis中的订单数失败，稍后重试：{}", e.getMessage());
+            defer(from ? fromStatus : null, to ? toStatus : null, count);
+        }
+    }
+
+    /**
+     * 各状态订单数量，集群部署时为所有节点的合计
+     * @return
+     */
+    public OrderStatisticsVO statistics() {
+        Map<Integer, Long> values = new HashMap<>();
+        boolean fromRedis = false;
+        if (isClustered()) {
+            try {
+                List<Object> fields = stringRedisTemplate.opsForHash().multiGet(orderStatisticsProperties.getRedisKey(),
+                        Arrays.asList((Object) "2", "3", "4", EPOCH));
+                long epoch = fields.get(TRACKED.size()) == null ? 0 : Long.parseLong(fields.get(TRACKED.size()).toString());
+                synchronized (this) {
+                    for (int i = 0; i < TRACKED.size(); i++) {
+                        Object value = fields.get(i);
+                        //本节点等待重试的变化也计算在内，核对后已作废的除外
+                        long local = unflushedEpoch == epoch ? unflushed[TRACKED.get(i)] : 0;
+                        values.put(TRACKED.get(i), (value == null ? 0 : Long.parseLong(value.toString())) + local);
+                    }
+                }
+                fromRedis = true;
+            } catch (RuntimeException e) {
+                log.warn("读取redis中的订单数失败，使用本节点计数：{}", e.getMessage());
+            }
+        }
+        if (!fromRedis) {
+            for (Integer status : TRACKED) {
+                values.put(status, counts[status].sum());
+            }
+        }
+
+        OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO();
+        orderStatisticsVO.setToBeConfirmed(toInt(values.get(Orders.TO_BE_CONFIRMED)));
+        orderStatisticsVO.setConfirmed(toInt(values.get(Orders.CONFIRMED)));
+        orderStatisticsVO.setDeliveryInProgress(toInt(values.get(Orders.DELIVERY_IN_PROGRESS)));
+        return orderStatisticsVO;
+    }
+
+    /**
+     * 与数据库核对计数，用数据库中的数量覆盖内存和redis中的计数
+     * 覆盖redis计数的同时递增版本，各节点核对前记录、尚未写入redis的变化量随之作废；
+     * 查询和覆盖之间发生的状态变化可能造成少量偏差，下次核对时修正
+     */
+    public void reconcile() {
+        Map<Integer, Long> values = countFromDatabase();
+        load(values);
+        if (isClustered()) {
+            List<String> args = new ArrayList<>(TRACKED.size() * 2);
+            for (Integer status : TRACKED) {
+                args.add(status.toString());
+                args.add(String.valueOf(values.getOrDefault(status, 0L)));
+            }
+            Long epoch = stringRedisTemplate.execute(RECONCILE, Collections.singletonList(orderStatisticsProperties.getRedisKey()),
+                    args.toArray());
+            if (epoch != null) {
+                knownEpoch = epoch;
+            }
+        }
+        log.info("订单数核对完成：{}", values);
+    }
+
+    /**
+     * @return 是否为参与计数的状态
+     */
+    private boolean add(Integer status, long delta) {
+        if (status == null || !TRACKED.contains(status)) {
+            return false;
+        }
+        counts[status].add(delta);
+        return true;
+    }
+
+    /**
+     * 记录写入redis失败的变化量，与之前等待重试的变化量版本不同时，之前的已被核对覆盖，丢弃
+     */
+    private synchronized void defer(Integer fromStatus, Integer toStatus, int count) {
+        long epoch = knownEpoch;
+        if (unflushedEpoch != epoch) {
+            Arrays.fill(unflushed, 0);
+            unflushedEpoch = epoch;
+        }
+        if (fromStatus != null) {
+            unflushed[fromStatus] -= count;
+        }
+        if (toStatus != null) {
+            unflushed[toStatus] += count;
+        }
+    }
+
+    /**
+     * 重试等待中的变化量，只在redis中的版本与记录时一致时累加，版本已变或未知时丢弃
+     */
+    private synchronized void flush() {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(unflushedEpoch));
+        for (Integer status : TRACKED) {
+            if (unflushed[status] != 0) {
+                args.add(status.toString());
+                args.add(String.valueOf(unflushed[status]));
+            }
+        }
+        if (args.size() == 1) {
+            return;
+        }
+        if (unflushedEpoch < 0) {
+            log.warn("订单数变化记录时redis中计数的版本未知，丢弃，等待下次核对：{}", args);
+            Arrays.fill(unflushed, 0);
+            return;
+        }
+        try {
+            Long epoch = stringRedisTemplate.execute(APPLY, Collections.singletonList(orderStatisticsProperties.getRedisKey()),
+                    args.toArray());
+            if (epoch != null && epoch < 0) {
+                log.info("订单数已重新核对，丢弃核对前未同步的变化：{}", args);
+            }
+            Arrays.fill(unflushed, 0);
+        } catch (RuntimeException e) {
+            //同步失败的变化量留到下次同步
+            log.warn("同步订单数到redis失败：{}", e.getMessage());
+        }
+    }
+
+    private Map<Integer, Long> countFromDatabase() {
+        Map<Integer, Long> values = new HashMap<>();
+        for (Map<String, Object> row : orderMapper.countByStatus(TRACKED)) {
+            values.put(((Number) row.get("status")).intValue(), ((Number) row.get("number")).longValue());
+        }
+        return values;
+    }
+
+    private void load(Map<Integer, Long> values) {
+        for (Integer status : TRACKED) {
+            counts[status].reset();
+            counts[status].add(values.getOrDefault(status, 0L));
+        }
+    }
+
+    private boolean isClustered() {
+        return !"memory".equals(clusterProperties.getStore());
+    }
+
+    private static Integer toInt(Long value) {
+        return value == null ? 0 : (int) Math.max(0, value);
+    }
+}
@@ -0,0 +1,241 @@
+package com.sky.order;
+
+import com.sky.constant.MessageConstant;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.exception.OrderBusinessException;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.properties.OrderSubmitProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下单请求的分组提交
+ * 下单请求先进入有界队列，由一个提交线程批量取出，在一个事务中用多行insert写入订单和订单明细，
+ * 并删除下单时读取的那些购物车数据(之后加入购物车的商品保留)，事务提交后再完成每个请求的future；
+ * 一批中有订单写入失败时，逐个重新提交，只让有问题的订单失败；
+ * 同一个用户同时只能有一个订单在等待提交；
+ * 超过timeout仍在队列中的请求被移出队列并失败，已被提交线程取出的请求等待实际的提交结果，
+ * 提交事务的超时时间为commitTimeout，提交结果之前不会报告成功
+ */
+@Component
+@Slf4j
+public class OrderSubmitEngine {
+
+    @Autowired
+    private OrderSubmitProperties orderSubmitProperties;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BlockingQueue<PendingOrder> queue;
+    //用户id -> 该用户等待提交的订单
+    private final Map<Long, PendingOrder> pendingByUser = new ConcurrentHashMap<>();
+    private TransactionTemplate transactionTemplate;
+    private ScheduledThreadPoolExecutor timer;
+    private Thread committer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(orderSubmitProperties.getQueueCapacity());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        //事务超时同时作为语句的查询超时，提交线程不会无限等待数据库
+        transactionTemplate.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(orderSubmitProperties.getCommitTimeout() + 999)));
+        timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "order-submit-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //按时提交的请求取消超时任务后立即从队列中移除
+        timer.setRemoveOnCancelPolicy(true);
+        running = true;
+        committer = new Thread(this::run, "order-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * 停止接收新的下单请求，提交队列中已有的请求后退出
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        committer.join(orderSubmitProperties.getTimeout());
+        PendingOrder pending;
+        while ((pending = queue.poll()) != null) {
+            fail(pending, new OrderBusinessException(MessageConstant.ORDER_BUSY));
+        }
+        timer.shutdownNow();
+    }
+
+    /**
+     * 提交订单，订单和明细的id需要提前生成
+     *
+     * @param orders
+     * @param orderDetails
+     * @param shoppingCartIds 下单时读取的购物车数据id，订单写入时一起删除
+     * @return 事务提交后完成；队列已满、该用户已有订单在等待提交、在队列中超时或提交失败时异常完成
+     */
+    public CompletableFuture<Orders> submit(Orders orders, List<OrderDetail> orderDetails, List<Long> shoppingCartIds) {
+        PendingOrder pending = new PendingOrder(orders, orderDetails, shoppingCartIds);
+        if (pendingByUser.putIfAbsent(orders.getUserId(), pending) != null) {
+            pending.future.completeExceptionally(new OrderBusinessException(MessageConstant.ORDER_SUBMITTING));
+            return pending.future;
+        }
+        if (!running || !queue.offer(pending)) {
+            fail(pending, new OrderBusinessException(MessageConstant.ORDER_BUSY));
+            return pending.future;
+        }
+        pending.timeout = timer.schedule(() -> expire(pending), orderSubmitProperties.getTimeout(), TimeUnit.MILLISECONDS);
+        return pending.future;
+    }
+
+    /**
+     * 当前等待提交的请求数
+     *
+     * @return
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    private void run() {
+        int batchSize = orderSubmitProperties.getBatchSize();
+        long maxLinger = TimeUnit.MILLISECONDS.toNanos(orderSubmitProperties.getMaxLinger());
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                //队列中已有的请求直接取出，不够一批时最多再等待maxLinger
+                long deadline = System.nanoTime() + maxLinger;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                //被中断时提交已取出的请求和队列中剩余的请求后退出
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 等待超时：仍在队列中时移出队列并失败，已被提交线程取出时继续等待提交结果
+     */
+    private void expire(PendingOrder pending) {
+        if (queue.remove(pending)) {
+            fail(pending, new OrderBusinessException(MessageConstant.ORDER_SUBMIT_TIMEOUT));
+        } else {
+            log.warn("订单{}等待超时，已在提交中，等待提交结果", pending.orders.getNumber());
+        }
+    }
+
+    private void succeed(PendingOrder pending) {
+        release(pending);
+        pending.future.complete(pending.orders);
+    }
+
+    private void fail(PendingOrder pending, Throwable e) {
+        release(pending);
+        pending.future.completeExceptionally(e);
+    }
+
+    private void release(PendingOrder pending) {
+        pendingByUser.remove(pending.orders.getUserId(), pending);
+        if (pending.timeout != null) {
+            pending.timeout.cancel(false);
+        }
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(batch));
+            for (PendingOrder pending : batch) {
+                succeed(pending);
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+            log.warn("批量提交{}个订单失败，逐个重新提交：{}", batch.size(), e.getMessage());
+            for (PendingOrder pending : batch) {
+                List<PendingOrder> single = new ArrayList<>(1);
+                single.add(pending);
+                commit(single);
+            }
+        }
+    }
+
+    private void write(List<PendingOrder> batch) {
+        List<Orders> orders = new ArrayList<>(batch.size());
+        List<OrderDetail> orderDetails = new ArrayList<>();
+        List<Long> shoppingCartIds = new ArrayList<>();
+        for (PendingOrder pending : batch) {
+            orders.add(pending.orders);
+            orderDetails.addAll(pending.orderDetails);
+            shoppingCartIds.addAll(pending.shoppingCartIds);
+        }
+        orderMapper.insertBatch(orders);
+        if (!orderDetails.isEmpty()) {
+            orderDetailMapper.insertBatch(orderDetails);
+        }
+        if (!shoppingCartIds.isEmpty()) {
+            shoppingCartMapper.deleteByIds(shoppingCartIds);
+        }
+    }
+
+    private static class PendingOrder {
+        private final Orders orders;
+        private final List<OrderDetail> orderDetails;
+        private final List<Long> shoppingCartIds;
+        private final CompletableFuture<Orders> future = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> timeout;
+
+        private PendingOrder(Orders orders, List<OrderDetail> orderDetails, List<Long> shoppingCartIds) {
+            this.orders = orders;
+            this.orderDetails = orderDetails;
+            this.shoppingCartIds = shoppingCartIds;
+        }
+    }
+}
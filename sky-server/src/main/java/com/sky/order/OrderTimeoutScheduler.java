@@ -0,0 +1,198 @@
+package com.sky.order;
+
+import com.sky.constant.MessageConstant;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderTimeoutProperties;
+import com.sky.timer.TimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 订单超时处理
+ * 下单时登记支付截止时间，支付成功时取消；开始派送时登记自动完成时间；
+ * 到期的订单由时间轮按批交给一条 update ... where status = ? and id in (...) 处理，不再定时扫描订单表；
+ * 启动时查询一次待付款和派送中的订单，按下单时间、预计送达时间重新登记；
+ * 集群部署时每个节点都运行自己的时间轮，订单只登记在下单(或开始派送)的节点上；
+ * 节点下线后其时间轮中的订单由OrderTimeoutRecoveryJob定期按下单时间范围查出，交给执行该任务的节点处理；
+ * 到期处理按 status 条件更新，多个节点处理同一个订单时只有一个能修改成功，计数也只按实际修改的行数变化
+ */
+@Component
+@Slf4j
+public class OrderTimeoutScheduler {
+
+    @Autowired
+    private OrderTimeoutProperties orderTimeoutProperties;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+
+    private TimingWheel<Long> paymentDeadlines;
+    private TimingWheel<Long> deliveryDeadlines;
+
+    @PostConstruct
+    public void start() {
+        long tick = orderTimeoutProperties.getTick();
+        int wheelSize = orderTimeoutProperties.getWheelSize();
+        int batchSize = orderTimeoutProperties.getBatchSize();
+        paymentDeadlines = new TimingWheel<>("order-payment-timeout", tick, wheelSize, batchSize, this::cancelUnpaid);
+        deliveryDeadlines = new TimingWheel<>("order-delivery-timeout", tick, wheelSize, batchSize, this::completeDelivered);
+        rebuild();
+    }
+
+    @PreDestroy
+    public void stop() {
+        paymentDeadlines.close();
+        deliveryDeadlines.close();
+    }
+
+    /**
+     * 登记待付款订单的支付截止时间
+     * @param orders
+     */
+    public void schedulePayment(Orders orders) {
+        paymentDeadlines.schedule(orders.getId(), paymentDeadline(orders));
+    }
+
+    /**
+     * 支付成功或订单被取消，不再需要超时取消
+     * @param orderId
+     */
+    public void cancelPayment(Long orderId) {
+        paymentDeadlines.cancel(orderId);
+    }
+
+    /**
+     * 登记派送中订单的自动完成时间
+     * @param orders
+     */
+    public void scheduleDelivery(Orders orders) {
+        deliveryDeadlines.schedule(orders.getId(), deliveryDeadline(orders));
+    }
+
+    /**
+     * 订单已完成，不再需要自动完成
+     * @param orderId
+     */
+    public void cancelDelivery(Long orderId) {
+        deliveryDeadlines.cancel(orderId);
+    }
+
+    /**
+     * 等待超时处理的订单数
+     * @return
+     */
+    public int pendingPayments() {
+        return paymentDeadlines.size();
+    }
+
+    public int pendingDeliveries() {
+        return deliveryDeadlines.size();
+    }
+
+    /**
+     * 按数据库中待付款、派送中的订单重新登记到期时间，已经过期的订单会立即处理
+     */
+    public void rebuild() {
+        List<Orders> ordersList = orderMapper.listDeadlines(Arrays.asList(Orders.PENDING_PAYMENT, Orders.DELIVERY_IN_PROGRESS));
+        for (Orders orders : ordersList) {
+            if (Orders.PENDING_PAYMENT.equals(orders.getStatus())) {
+                schedulePayment(orders);
+            } else {
+                scheduleDelivery(orders);
+            }
+        }
+        log.info("订单超时处理恢复完成，待付款：{}，派送中：{}", paymentDeadlines.size(), deliveryDeadlines.size());
+    }
+
+    /**
+     * 查找已过支付截止时间的待付款订单、可能已过自动完成时间的派送中订单，登记到本节点的时间轮，已过期的立即处理
+     * 每页最多batchSize个，从下单时间最晚的开始分页，与分页边界下单时间相同的订单可能留到下次处理
+     *
+     * @param proceed 每页之前检查，返回false时停止
+     * @return 登记的订单数
+     */
+    public int recover(BooleanSupplier proceed) {
+        LocalDateTime now = LocalDateTime.now();
+        int recovered = recover(Orders.PENDING_PAYMENT, now.minus(orderTimeoutProperties.getPayment(), ChronoUnit.MILLIS), proceed);
+        //派送中的订单按下单时间粗筛，登记时再按预计送达时间计算到期时间
+        recovered += recover(Orders.DELIVERY_IN_PROGRESS, now.minus(orderTimeoutProperties.getAutoComplete(), ChronoUnit.MILLIS), proceed);
+        return recovered;
+    }
+
+    private int recover(Integer status, LocalDateTime before, BooleanSupplier proceed) {
+        int limit = orderTimeoutProperties.getBatchSize();
+        int recovered = 0;
+        List<Orders> page;
+        do {
+            if (!proceed.getAsBoolean()) {
+                break;
+            }
+            page = orderMapper.listDeadlinesBefore(status, before, limit);
+            for (Orders orders : page) {
+                if (Orders.PENDING_PAYMENT.equals(status)) {
+                    schedulePayment(orders);
+                } else {
+                    scheduleDelivery(orders);
+                }
+                before = orders.getOrderTime();
+            }
+            recovered += page.size();
+        } while (page.size() == limit);
+        return recovered;
+    }
+
+    private void cancelUnpaid(List<Long> ids) {
+        Orders orders = new Orders();
+        orders.setStatus(Orders.CANCELLED);
+        orders.setCancelReason(MessageConstant.ORDER_PAYMENT_TIMEOUT);
+        orders.setCancelTime(LocalDateTime.now());
+        update(ids, Orders.PENDING_PAYMENT, orders, paymentDeadlines);
+    }
+
+    private void completeDelivered(List<Long> ids) {
+        Orders orders = new Orders();
+        orders.setStatus(Orders.COMPLETED);
+        orders.setDeliveryTime(LocalDateTime.now());
+        update(ids, Orders.DELIVERY_IN_PROGRESS, orders, deliveryDeadlines);
+    }
+
+    private void update(List<Long> ids, Integer fromStatus, Orders orders, TimingWheel<Long> wheel) {
+        try {
+            int updated = orderMapper.updateStatusBatch(ids, fromStatus, orders);
+            orderStatusCounters.transition(fromStatus, orders.getStatus(), updated);
+            log.info("超时订单处理：状态{} -> {}，到期{}个，修改{}个", fromStatus, orders.getStatus(), ids.size(), updated);
+        } catch (RuntimeException e) {
+            //数据库暂时不可用时稍后重试，状态条件保证重复执行不会误改
+            log.error("超时订单处理失败，{}毫秒后重试：{}", orderTimeoutProperties.getRetryDelay(), e.getMessage());
+            long retryAt = System.currentTimeMillis() + orderTimeoutProperties.getRetryDelay();
+            for (Long id : ids) {
+                wheel.schedule(id, retryAt);
+            }
+        }
+    }
+
+    private long paymentDeadline(Orders orders) {
+        return toMillis(orders.getOrderTime()) + orderTimeoutProperties.getPayment();
+    }
+
+    private long deliveryDeadline(Orders orders) {
+        LocalDateTime base = orders.getEstimatedDeliveryTime() != null ? orders.getEstimatedDeliveryTime() : orders.getOrderTime();
+        return toMillis(base) + orderTimeoutProperties.getAutoComplete();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? System.currentTimeMillis() : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
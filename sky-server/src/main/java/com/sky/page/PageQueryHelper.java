@@ -0,0 +1,138 @@
+package com.sky.page;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.enumeration.CountStrategy;
+import com.sky.mapper.TableStatMapper;
+import com.sky.properties.PageProperties;
+import com.sky.result.PageResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 按页码分页查询，根据统计方式决定是否以及如何获取总数
+ */
+@Component
+@Slf4j
+public class PageQueryHelper {
+
+    @Autowired
+    private TableStatMapper tableStatMapper;
+    @Autowired
+    private PageProperties pageProperties;
+
+    //表名+查询条件 -> count结果
+    private final Map<String, CountEntry> countCache = new ConcurrentHashMap<>();
+
+    /**
+     * 分页查询
+     *
+     * @param strategy  总数统计方式
+     * @param page      页码
+     * @param pageSize  每页记录数
+     * @param table     查询的表名，用于估算总数和区分缓存
+     * @param filterKey 查询条件，没有查询条件时为null
+     * @param select    执行查询的mapper方法，必须紧跟在分页设置之后执行
+     * @return
+     */
+    public <T> PageResult query(CountStrategy strategy, int page, int pageSize, String table, String filterKey,
+                                Supplier<List<T>> select) {
+        switch (strategy) {
+            case NONE:
+                return queryWithoutCount(page, pageSize, select);
+            case ESTIMATED:
+                if (filterKey == null) {
+                    Long estimated = estimate(table);
+                    if (estimated != null) {
+                        return queryWithTotal(page, pageSize, estimated, select);
+                    }
+                }
+                return queryWithCachedCount(page, pageSize, table, filterKey, select);
+            case CACHED:
+                return queryWithCachedCount(page, pageSize, table, filterKey, select);
+            default:
+                return queryWithExactCount(page, pageSize, select);
+        }
+    }
+
+    private <T> PageResult queryWithExactCount(int page, int pageSize, Supplier<List<T>> select) {
+        PageHelper.startPage(page, pageSize);
+        Page<T> result = (Page<T>) select.get();
+        return new PageResult(result.getTotal(), result.getResult());
+    }
+
+    private <T> PageResult queryWithTotal(int page, int pageSize, long total, Supplier<List<T>> select) {
+        PageHelper.startPage(page, pageSize, false);
+        List<T> result = select.get();
+        return new PageResult(total, result);
+    }
+
+    private <T> PageResult queryWithCachedCount(int page, int pageSize, String table, String filterKey,
+                                                Supplier<List<T>> select) {
+        String key = table + "?" + (filterKey == null ? "" : filterKey);
+        long now = System.currentTimeMillis();
+        CountEntry entry = countCache.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            return queryWithTotal(page, pageSize, entry.total, select);
+        }
+        PageResult pageResult = queryWithExactCount(page, pageSize, select);
+        if (countCache.size() >= pageProperties.getCountCacheSize()) {
+            evict(now);
+        }
+        countCache.put(key, new CountEntry(pageResult.getTotal(), now + pageProperties.getCountCacheTtl()));
+        return pageResult;
+    }
+
+    /**
+     * 不统计总数，多查一条判断是否还有下一页
+     */
+    private <T> PageResult queryWithoutCount(int page, int pageSize, Supplier<List<T>> select) {
+        int size = Math.max(pageSize, 1);
+        int offset = (Math.max(page, 1) - 1) * size;
+        PageHelper.offsetPage(offset, size + 1, false);
+        List<T> result = new ArrayList<>(select.get());
+        boolean hasNext = result.size() > size;
+        if (hasNext) {
+            result = new ArrayList<>(result.subList(0, size));
+        }
+        PageResult pageResult = new PageResult(-1, result);
+        pageResult.setHasNext(hasNext);
+        return pageResult;
+    }
+
+    private Long estimate(String table) {
+        try {
+            return tableStatMapper.estimateRows(table);
+        } catch (Exception e) {
+            log.warn("获取{}表统计信息失败：{}", table, e.getMessage());
+            return null;
+        }
+    }
+
+    private void evict(long now) {
+        countCache.values().removeIf(e -> e.expiresAt <= now);
+        Iterator<String> iterator = countCache.keySet().iterator();
+        while (countCache.size() >= pageProperties.getCountCacheSize() && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static class CountEntry {
+        private final long total;
+        private final long expiresAt;
+
+        private CountEntry(long total, long expiresAt) {
+            this.total = total;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.sky.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 名称的内存倒排索引
+ * 按单字和相邻两字(bigram)建立倒排表，适合中文名称的包含查询：
+ * 查询时取各个bigram中最短的倒排表作为候选，再用名称原文校验是否包含查询串
+ */
+public class NgramIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //id -> 小写后的名称
+    private final Map<Long, String> names = new HashMap<>();
+
+    //单字或bigram -> id集合
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    //全量加载期间被删除的id，避免加载的旧数据把它们写回来
+    private final Set<Long> tombstones = new HashSet<>();
+
+    private boolean loading;
+
+    private volatile boolean ready;
+
+    /**
+     * 新增或修改名称
+     *
+     * @param id
+     * @param name
+     */
+    public void put(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            tombstones.remove(id);
+            doPut(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除名称
+     *
+     * @param id
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            doRemove(id);
+            if (loading) {
+                tombstones.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 开始全量加载，加载期间的增量修改仍然实时生效，并且优先于加载的数据
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 加载一批全量数据，已经由增量修改写入或删除的id不会被覆盖
+     *
+     * @param rows id -> 名称
+     */
+    public void load(Map<Long, String> rows) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, String> row : rows.entrySet()) {
+                if (!names.containsKey(row.getKey()) && !tombstones.contains(row.getKey())) {
+                    doPut(row.getKey(), row.getValue());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 全量加载完成，之后的查询走索引
+     */
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            tombstones.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 查询名称包含query的id
+     *
+     * @param query   查询串
+     * @param maxHits 最多返回的id数量
+     * @return 匹配的id，匹配数量超过maxHits时返回null，由调用方退回到数据库模糊查询
+     */
+    public List<Long> search(String query, int maxHits) {
+        String text = query.toLowerCase();
+        Set<String> grams = text.length() == 1 ? Collections.singleton(text) : bigrams(text);
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = null;
+            for (String gram : grams) {
+                Set<Long> posting = postings.get(gram);
+                if (posting == null) {
+                    return Collections.emptyList();
+                }
+                if (candidates == null || posting.size() < candidates.size()) {
+                    candidates = posting;
+                }
+            }
+            List<Long> ids = new ArrayList<>();
+            for (Long id : candidates) {
+                if (names.get(id).contains(text)) {
+                    if (ids.size() >= maxHits) {
+                        return null;
+                    }
+                    ids.add(id);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void doPut(Long id, String name) {
+        doRemove(id);
+        String text = name.toLowerCase();
+        names.put(id, text);
+        for (String gram : grams(text)) {
+            postings.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void doRemove(Long id) {
+        String old = names.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String gram : grams(old)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * 名称的全部单字和bigram
+     */
+    private static Set<String> grams(String text) {
+        Set<String> grams = bigrams(text);
+        for (int i = 0; i < text.length(); i++) {
+            grams.add(String.valueOf(text.charAt(i)));
+        }
+        return grams;
+    }
+
+    private static Set<String> bigrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 1 < text.length(); i++) {
+            grams.add(text.substring(i, i + 2));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,70 @@
+package com.sky.search;
+
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.Employee;
+import com.sky.entity.Setmeal;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.EmployeeMapper;
+import com.sky.mapper.SetmealMapper;
+
+import java.util.function.Function;
+
+/**
+ * 建立名称索引的业务数据
+ */
+public enum SearchDomain {
+
+    CATEGORY(CategoryMapper.class, Category.class, e -> ((Category) e).getId(), e -> ((Category) e).getName()),
+
+    EMPLOYEE(EmployeeMapper.class, Employee.class, e -> ((Employee) e).getId(), e -> ((Employee) e).getName()),
+
+    DISH(DishMapper.class, Dish.class, e -> ((Dish) e).getId(), e -> ((Dish) e).getName()),
+
+    SETMEAL(SetmealMapper.class, Setmeal.class, e -> ((Setmeal) e).getId(), e -> ((Setmeal) e).getName());
+
+    private final String namespace;
+    private final Class<?> entityType;
+    private final Function<Object, Long> id;
+    private final Function<Object, String> name;
+
+    SearchDomain(Class<?> mapperType, Class<?> entityType, Function<Object, Long> id, Function<Object, String> name) {
+        this.namespace = mapperType.getName();
+        this.entityType = entityType;
+        this.id = id;
+        this.name = name;
+    }
+
+    public Long idOf(Object entity) {
+        return id.apply(entity);
+    }
+
+    public String nameOf(Object entity) {
+        return name.apply(entity);
+    }
+
+    /**
+     * 根据实体类型查找
+     */
+    public static SearchDomain ofEntity(Class<?> type) {
+        for (SearchDomain domain : values()) {
+            if (domain.entityType == type) {
+                return domain;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据mapper语句id查找
+     */
+    public static SearchDomain ofStatement(String statementId) {
+        for (SearchDomain domain : values()) {
+            if (statementId.startsWith(domain.namespace + ".")) {
+                return domain;
+            }
+        }
+        return null;
+    }
+}
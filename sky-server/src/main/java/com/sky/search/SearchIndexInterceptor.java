@@ -0,0 +1,116 @@
+package com.sky.search;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 名称索引同步的MyBatis插件
+ * 分类、员工、菜品、套餐的insert、update、delete执行成功后同步修改名称索引，
+ * 处在事务中时等到事务提交后再修改
+ */
+@Component
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class SearchIndexInterceptor implements Interceptor {
+
+    //mapper依赖SqlSessionFactory，而插件在创建SqlSessionFactory时就需要，延迟注入避免循环依赖
+    @Lazy
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        Object parameter = invocation.getArgs()[1];
+        if (parameter == null || !(result instanceof Integer) || (Integer) result <= 0) {
+            return result;
+        }
+        SqlCommandType commandType = ms.getSqlCommandType();
+        if (commandType == SqlCommandType.INSERT || commandType == SqlCommandType.UPDATE) {
+            afterCommit(() -> {
+                for (Object entity : unwrap(parameter)) {
+                    index(entity);
+                }
+            });
+        } else if (commandType == SqlCommandType.DELETE) {
+            SearchDomain domain = SearchDomain.ofStatement(ms.getId());
+            if (domain != null) {
+                afterCommit(() -> {
+                    for (Object id : unwrap(parameter)) {
+                        if (id instanceof Long) {
+                            searchIndexService.remove(domain, (Long) id);
+                        }
+                    }
+                });
+            }
+        }
+        return result;
+    }
+
+    private void index(Object entity) {
+        if (entity == null) {
+            return;
+        }
+        SearchDomain domain = SearchDomain.ofEntity(entity.getClass());
+        if (domain == null) {
+            return;
+        }
+        Long id = domain.idOf(entity);
+        String name = domain.nameOf(entity);
+        //只修改状态等字段时名称为null，不需要更新索引
+        if (id != null && name != null) {
+            searchIndexService.put(domain, id, name);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 取出参数中的实体或id，支持单个参数、集合和数组
+     */
+    private static Collection<?> unwrap(Object parameter) {
+        if (parameter instanceof Map) {
+            Map<?, ?> paramMap = (Map<?, ?>) parameter;
+            if (paramMap.containsKey("collection")) {
+                parameter = paramMap.get("collection");
+            } else if (paramMap.containsKey("array")) {
+                parameter = paramMap.get("array");
+            } else if (paramMap.containsKey("param1")) {
+                parameter = paramMap.get("param1");
+            }
+        }
+        if (parameter instanceof Collection) {
+            return (Collection<?>) parameter;
+        }
+        if (parameter instanceof Object[]) {
+            return Arrays.asList((Object[]) parameter);
+        }
+        return Collections.singletonList(parameter);
+    }
+}
@@ -0,0 +1,219 @@
+package com.sky.search;
+
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.EmployeeMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.properties.SearchProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 名称搜索服务
+ * 启动后全量加载分类、员工、菜品、套餐的名称，之后由SearchIndexInterceptor随mapper写操作增量维护；
+ * 本节点的修改通过redis频道通知其他节点，并定期从数据库重建索引，修正丢失的通知
+ */
+@Component
+@Slf4j
+public class SearchIndexService implements MessageListener {
+
+    //消息格式：节点id|P或R|业务|id|名称，P为新增或修改，R为删除
+    private static final String SEPARATOR = "|";
+    private static final String PUT = "P";
+    private static final String REMOVE = "R";
+
+    @Autowired
+    private SearchProperties searchProperties;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private EmployeeMapper employeeMapper;
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    //当前使用的索引
+    private final ConcurrentMap<SearchDomain, NgramIndex> indexes = new ConcurrentHashMap<>();
+    //正在重建的索引，重建期间的增量修改同时写入新旧两个索引
+    private final ConcurrentMap<SearchDomain, NgramIndex> rebuilding = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reloader;
+
+    public SearchIndexService() {
+        for (SearchDomain domain : SearchDomain.values()) {
+            indexes.put(domain, new NgramIndex());
+        }
+    }
+
+    /**
+     * 应用启动完成后全量加载索引，并开始定期重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        if (!searchProperties.isEnabled()) {
+            return;
+        }
+        reloadAll();
+        long interval = searchProperties.getReloadInterval();
+        if (interval > 0) {
+            reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "search-index-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloader.scheduleWithFixedDelay(this::reloadAll, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    private void reloadAll() {
+        load(SearchDomain.CATEGORY, categoryMapper::listIdAndName);
+        load(SearchDomain.EMPLOYEE, employeeMapper::listIdAndName);
+        load(SearchDomain.DISH, dishMapper::listIdAndName);
+        load(SearchDomain.SETMEAL, setmealMapper::listIdAndName);
+    }
+
+    /**
+     * 在新索引中加载全量数据，完成后替换当前索引
+     * 新索引先登记再查询数据库，查询之后提交的修改一定会写入新索引
+     */
+    private void load(SearchDomain domain, Supplier<List<?>> rows) {
+        NgramIndex index = new NgramIndex();
+        index.beginLoad();
+        rebuilding.put(domain, index);
+        try {
+            Map<Long, String> names = new HashMap<>();
+            for (Object row : rows.get()) {
+                Long id = domain.idOf(row);
+                String name = domain.nameOf(row);
+                if (id != null && name != null) {
+                    names.put(id, name);
+                }
+            }
+            index.load(names);
+            index.endLoad();
+            indexes.put(domain, index);
+            log.info("名称索引加载完成：{}，共{}条", domain, names.size());
+        } catch (Exception e) {
+            //加载失败时继续使用原索引，首次加载失败时该索引保持未就绪，查询继续使用数据库模糊查询
+            log.warn("名称索引加载失败：{}，{}", domain, e.getMessage());
+        } finally {
+            rebuilding.remove(domain, index);
+        }
+    }
+
+    /**
+     * 查询名称包含name的id
+     *
+     * @param domain
+     * @param name
+     * @return 索引未就绪或命中数量过多时返回null，调用方应使用数据库模糊查询
+     */
+    public List<Long> search(SearchDomain domain, String name) {
+        NgramIndex index = indexes.get(domain);
+        if (!searchProperties.isEnabled() || !index.isReady()) {
+            return null;
+        }
+        return index.search(name, searchProperties.getMaxIds());
+    }
+
+    /**
+     * 本节点新增或修改名称，同时通知其他节点
+     */
+    public void put(SearchDomain domain, Long id, String name) {
+        applyPut(domain, id, name);
+        publish(PUT, domain, id, name);
+    }
+
+    /**
+     * 本节点删除名称，同时通知其他节点
+     */
+    public void remove(SearchDomain domain, Long id) {
+        applyRemove(domain, id);
+        publish(REMOVE, domain, id, "");
+    }
+
+    /**
+     * 收到其他节点的索引修改通知
+     *
+     * @param message
+     * @param pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        //名称中可能包含分隔符，放在最后并限制拆分次数
+        String[] parts = body.split("\\|", 5);
+        if (parts.length != 5 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            SearchDomain domain = SearchDomain.valueOf(parts[2]);
+            Long id = Long.valueOf(parts[3]);
+            if (PUT.equals(parts[1])) {
+                applyPut(domain, id, parts[4]);
+            } else if (REMOVE.equals(parts[1])) {
+                applyRemove(domain, id);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("无法解析名称索引同步通知：{}", body);
+        }
+    }
+
+    //先写正在重建的索引，再写当前索引：替换发生在两次读取之间时，修改会写入新索引两次，不会丢失
+    private void applyPut(SearchDomain domain, Long id, String name) {
+        NgramIndex next = rebuilding.get(domain);
+        if (next != null) {
+            next.put(id, name);
+        }
+        indexes.get(domain).put(id, name);
+    }
+
+    private void applyRemove(SearchDomain domain, Long id) {
+        NgramIndex next = rebuilding.get(domain);
+        if (next != null) {
+            next.remove(id);
+        }
+        indexes.get(domain).remove(id);
+    }
+
+    private void publish(String op, SearchDomain domain, Long id, String name) {
+        String message = nodeId + SEPARATOR + op + SEPARATOR + domain.name() + SEPARATOR + id + SEPARATOR + name;
+        try {
+            stringRedisTemplate.convertAndSend(searchProperties.getChannel(), message);
+        } catch (Exception e) {
+            //通知失败时其他节点最迟在下次重建索引后同步
+            log.warn("发送名称索引同步通知失败：{}，{}", message, e.getMessage());
+        }
+    }
+}
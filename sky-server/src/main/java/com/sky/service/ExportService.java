@@ -0,0 +1,25 @@
+package com.sky.service;
+
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.enumeration.ExportFormat;
+
+import java.io.OutputStream;
+
+public interface ExportService {
+
+    /**
+     * 导出员工
+     * @param name   员工姓名，模糊匹配，为空时导出全部
+     * @param format
+     * @param out
+     */
+    void exportEmployees(String name, ExportFormat format, OutputStream out);
+
+    /**
+     * 导出订单
+     * @param ordersPageQueryDTO 查询条件，忽略分页参数
+     * @param format
+     * @param out
+     */
+    void exportOrders(OrdersPageQueryDTO ordersPageQueryDTO, ExportFormat format, OutputStream out);
+}
@@ -0,0 +1,42 @@
+package com.sky.service;
+
+import com.sky.dto.OrdersConfirmDTO;
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.vo.OrderStatisticsVO;
+import com.sky.vo.OrderSubmitVO;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface OrderService {
+
+    /**
+     * 用户下单
+     * @param ordersSubmitDTO
+     * @return 订单写入数据库后完成
+     */
+    CompletableFuture<OrderSubmitVO> submitOrder(OrdersSubmitDTO ordersSubmitDTO);
+
+    /**
+     * 支付成功，修改订单状态
+     * @param outTradeNo 商户订单号
+     */
+    void paySuccess(String outTradeNo);
+
+    /**
+     * 接单
+     * @param ordersConfirmDTO
+     */
+    void confirm(OrdersConfirmDTO ordersConfirmDTO);
+
+    /**
+     * 派送订单
+     * @param id
+     */
+    void delivery(Long id);
+
+    /**
+     * 各个状态的订单数量统计
+     * @return
+     */
+    OrderStatisticsVO statistics();
+}
@@ -1,24 +1,34 @@
 package com.sky.service.impl;
 
-import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
+import com.sky.cache.ResourceVersions;
+import com.sky.constant.CacheConstant;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.context.BaseContext;
 import com.sky.dto.CategoryDTO;
 import com.sky.dto.CategoryPageQueryDTO;
 import com.sky.entity.Category;
+import com.sky.enumeration.CountStrategy;
+import com.sky.enumeration.ResourceType;
 import com.sky.exception.DeletionNotAllowedException;
 import com.sky.mapper.CategoryMapper;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealMapper;
+import com.sky.page.PageQueryHelper;
 import com.sky.result.PageResult;
+import com.sky.result.SeekCursor;
+import com.sky.search.SearchDomain;
+import com.sky.search.SearchIndexService;
 import com.sky.service.CategoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -34,11 +44,18 @@ public class CategoryServiceImpl implements CategoryService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private PageQueryHelper pageQueryHelper;
+    @Autowired
+    private SearchIndexService searchIndexService;
+    @Autowired
+    private ResourceVersions resourceVersions;
 
     /**
      * 新增分类
      * @param categoryDTO
      */
+    @CacheEvict(cacheNames = CacheConstant.CATEGORY_CACHE, allEntries = true)
     public void save(CategoryDTO categoryDTO) {
         Category category = new Category();
         //属性拷贝
@@ -54,6 +71,7 @@ public class CategoryServiceImpl implements CategoryService {
 //        category.setUpdateUser(BaseContext.getCurrentId());
 
         categoryMapper.insert(category);
+        resourceVersions.bump(ResourceType.CATEGORY);
     }
 
     /**
@@ -62,16 +80,69 @@ public class CategoryServiceImpl implements CategoryService {
      * @return
      */
     public PageResult pageQuery(CategoryPageQueryDTO categoryPageQueryDTO) {
-        PageHelper.startPage(categoryPageQueryDTO.getPage(),categoryPageQueryDTO.getPageSize());
-        //下一条sql进行分页，自动加入limit关键字分页
-        Page<Category> page = categoryMapper.pageQuery(categoryPageQueryDTO);
-        return new PageResult(page.getTotal(), page.getResult());
+        if (categoryPageQueryDTO.getCursor() != null) {
+            return seekQuery(categoryPageQueryDTO);
+        }
+        //按名称查询时先通过名称索引得到匹配的id，再按主键查询
+        String name = categoryPageQueryDTO.getName();
+        List<Long> ids = name == null || name.isEmpty() ? null : searchIndexService.search(SearchDomain.CATEGORY, name);
+        if (ids != null && ids.isEmpty()) {
+            return new PageResult(0, Collections.emptyList());
+        }
+        //下一条sql进行分页，自动加入limit关键字分页，按请求的方式统计总数
+        return pageQueryHelper.query(
+                CountStrategy.of(categoryPageQueryDTO.getCountStrategy()),
+                categoryPageQueryDTO.getPage(),
+                categoryPageQueryDTO.getPageSize(),
+                "category",
+                filterKey(categoryPageQueryDTO),
+                ids == null
+                        ? () -> categoryMapper.pageQuery(categoryPageQueryDTO)
+                        : () -> categoryMapper.pageQueryByIds(ids, categoryPageQueryDTO.getType()));
+    }
+
+    /**
+     * 分页查询条件，用于缓存count结果，没有查询条件时返回null
+     * @param categoryPageQueryDTO
+     * @return
+     */
+    private String filterKey(CategoryPageQueryDTO categoryPageQueryDTO) {
+        String name = categoryPageQueryDTO.getName();
+        Integer type = categoryPageQueryDTO.getType();
+        if ((name == null || name.isEmpty()) && type == null) {
+            return null;
+        }
+        return "name=" + name + "&type=" + type;
+    }
+
+    /**
+     * 游标分页查询，多查一条用于判断是否还有下一页，不统计总数
+     * @param categoryPageQueryDTO
+     * @return
+     */
+    private PageResult seekQuery(CategoryPageQueryDTO categoryPageQueryDTO) {
+        int pageSize = Math.max(categoryPageQueryDTO.getPageSize(), 1);
+        SeekCursor cursor = SeekCursor.decode(categoryPageQueryDTO.getCursor());
+        List<Category> list = categoryMapper.seekQuery(categoryPageQueryDTO, cursor, pageSize + 1);
+        if (list.size() <= pageSize) {
+            PageResult pageResult = new PageResult(-1, list);
+            pageResult.setHasNext(false);
+            return pageResult;
+        }
+        list = new ArrayList<>(list.subList(0, pageSize));
+        Category last = list.get(pageSize - 1);
+        SeekCursor next = new SeekCursor(last.getSort(), last.getCreateTime(), last.getId());
+        PageResult pageResult = new PageResult(-1, list);
+        pageResult.setCursor(next.encode());
+        pageResult.setHasNext(true);
+        return pageResult;
     }
 
     /**
      * 根据id删除分类
      * @param id
      */
+    @CacheEvict(cacheNames = CacheConstant.CATEGORY_CACHE, allEntries = true)
     public void deleteById(Long id) {
         //查询当前分类是否关联了菜品，如果关联了就抛出业务异常
         Integer count = dishMapper.countByCategoryId(id);
@@ -89,12 +160,14 @@ public class CategoryServiceImpl implements CategoryService {
 
         //删除分类数据
         categoryMapper.deleteById(id);
+        resourceVersions.bump(ResourceType.CATEGORY);
     }
 
     /**
      * 修改分类
      * @param categoryDTO
      */
+    @CacheEvict(cacheNames = CacheConstant.CATEGORY_CACHE, allEntries = true)
     public void update(CategoryDTO categoryDTO) {
         Category category = new Category();
         BeanUtils.copyProperties(categoryDTO,category);
@@ -104,6 +177,7 @@ public class CategoryServiceImpl implements CategoryService {
 //        category.setUpdateUser(BaseContext.getCurrentId());
 
         categoryMapper.update(category);
+        resourceVersions.bump(ResourceType.CATEGORY);
     }
 
     /**
@@ -111,6 +185,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @param status
      * @param id
      */
+    @CacheEvict(cacheNames = CacheConstant.CATEGORY_CACHE, allEntries = true)
     public void startOrStop(Integer status, Long id) {
         Category category = Category.builder()
                 .id(id)
@@ -119,6 +194,7 @@ public class CategoryServiceImpl implements CategoryService {
 //                .updateUser(BaseContext.getCurrentId())
                 .build();
         categoryMapper.update(category);
+        resourceVersions.bump(ResourceType.CATEGORY);
     }
 
     /**
@@ -126,6 +202,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @param type
      * @return
      */
+    @Cacheable(cacheNames = CacheConstant.CATEGORY_CACHE, key = "'type:' + #type")
     public List<Category> list(Integer type) {
         return categoryMapper.list(type);
     }
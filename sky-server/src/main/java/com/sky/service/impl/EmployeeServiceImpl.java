@@ -1,7 +1,6 @@
 package com.sky.service.impl;
 
-import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
+import com.sky.cache.ResourceVersions;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.PasswordConstant;
 import com.sky.constant.StatusConstant;
@@ -11,13 +10,19 @@ import com.sky.dto.EmployeeLoginDTO;
 import com.sky.dto.EmployeePageQueryDTO;
 import com.sky.dto.PasswordEditDTO;
 import com.sky.entity.Employee;
+import com.sky.enumeration.CountStrategy;
+import com.sky.enumeration.ResourceType;
 import com.sky.exception.AccountLockedException;
 import com.sky.exception.AccountNotFoundException;
 import com.sky.exception.PasswordEditFailedException;
 import com.sky.exception.PasswordErrorException;
 import com.sky.mapper.EmployeeMapper;
+import com.sky.page.PageQueryHelper;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.result.SeekCursor;
+import com.sky.search.SearchDomain;
+import com.sky.search.SearchIndexService;
 import com.sky.service.EmployeeService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,12 +30,21 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 @Service
 public class EmployeeServiceImpl implements EmployeeService {
 
     @Autowired
     private EmployeeMapper employeeMapper;
+    @Autowired
+    private PageQueryHelper pageQueryHelper;
+    @Autowired
+    private SearchIndexService searchIndexService;
+    @Autowired
+    private ResourceVersions resourceVersions;
 
     /**
      * 员工登录
@@ -85,6 +99,7 @@ public class EmployeeServiceImpl implements EmployeeService {
 //        employee.setCreateUser(BaseContext.getCurrentId());
 //        employee.setUpdateUser(BaseContext.getCurrentId());
         int insert = employeeMapper.insert(employee);
+        resourceVersions.bump(ResourceType.EMPLOYEE);
         if (insert > 0) {
             return Result.success();
         }
@@ -93,20 +108,54 @@ public class EmployeeServiceImpl implements EmployeeService {
 
     @Override
     public Result<PageResult> employeePageQuery(EmployeePageQueryDTO employeePageQueryDTO) {
-        PageResult pageResult=new PageResult();
+        if (employeePageQueryDTO.getCursor() != null) {
+            return Result.success(employeeSeekQuery(employeePageQueryDTO));
+        }
         //获取请求参数中的当前页和每页记录数
         Integer page = employeePageQueryDTO.getPage();
         Integer pageSize = employeePageQueryDTO.getPageSize();
         String name = employeePageQueryDTO.getName();
-        //开始分页查询
-        PageHelper.startPage(page,pageSize);
-        //使用分页插件获取sql语句执行后返回的结果和总记录数
-        Page<Employee> employeeList= employeeMapper.getPageQuery(name);
-        pageResult.setRecords(employeeList.getResult());
-        pageResult.setTotal(employeeList.getTotal());
+        //按姓名查询时先通过名称索引得到匹配的id，再按主键查询
+        List<Long> ids = name == null || name.isEmpty() ? null : searchIndexService.search(SearchDomain.EMPLOYEE, name);
+        if (ids != null && ids.isEmpty()) {
+            return Result.success(new PageResult(0, Collections.emptyList()));
+        }
+        //使用分页插件获取sql语句执行后返回的结果，按请求的方式统计总记录数
+        PageResult pageResult = pageQueryHelper.query(
+                CountStrategy.of(employeePageQueryDTO.getCountStrategy()),
+                page,
+                pageSize,
+                "employee",
+                name == null || name.isEmpty() ? null : "name=" + name,
+                ids == null
+                        ? () -> employeeMapper.getPageQuery(name)
+                        : () -> employeeMapper.getPageQueryByIds(ids));
         return Result.success(pageResult);
     }
 
+    /**
+     * 游标分页查询员工，多查一条用于判断是否还有下一页，不统计总数
+     * @param employeePageQueryDTO
+     * @return
+     */
+    private PageResult employeeSeekQuery(EmployeePageQueryDTO employeePageQueryDTO) {
+        int pageSize = Math.max(employeePageQueryDTO.getPageSize(), 1);
+        SeekCursor cursor = SeekCursor.decode(employeePageQueryDTO.getCursor());
+        List<Employee> employeeList = employeeMapper.getSeekQuery(employeePageQueryDTO.getName(), cursor, pageSize + 1);
+        if (employeeList.size() <= pageSize) {
+            PageResult pageResult = new PageResult(-1, employeeList);
+            pageResult.setHasNext(false);
+            return pageResult;
+        }
+        employeeList = new ArrayList<>(employeeList.subList(0, pageSize));
+        Employee last = employeeList.get(pageSize - 1);
+        SeekCursor next = new SeekCursor(null, last.getCreateTime(), last.getId());
+        PageResult pageResult = new PageResult(-1, employeeList);
+        pageResult.setCursor(next.encode());
+        pageResult.setHasNext(true);
+        return pageResult;
+    }
+
     @Override
     public Result enableOrDisableEmployee(Integer status, Long id) {
         Employee employee= Employee
@@ -116,6 +165,7 @@ public class EmployeeServiceImpl implements EmployeeService {
                 .build();
 
         int updateResult = employeeMapper.update(employee);
+        resourceVersions.bump(ResourceType.EMPLOYEE);
         //判断是否修改成功
         if (updateResult > 0) {
             return Result.success();
@@ -140,6 +190,7 @@ public class EmployeeServiceImpl implements EmployeeService {
 //        employee.setUpdateUser(BaseContext.getCurrentId());
         //更新员工信息，并返回更新结果
         int updateResult = employeeMapper.update(employee);
+        resourceVersions.bump(ResourceType.EMPLOYEE);
         //判断是否更新成功
         if (updateResult > 0) {
             return Result.success();
@@ -163,6 +214,7 @@ public class EmployeeServiceImpl implements EmployeeService {
         String newPasswordMd5 = DigestUtils.md5DigestAsHex(newPassword.getBytes());
         employee.setPassword(newPasswordMd5);
         int update = employeeMapper.update(employee);
+        resourceVersions.bump(ResourceType.EMPLOYEE);
         //判断是否更新成功
         if (update > 0) {
             return Result.success();
@@ -0,0 +1,136 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.entity.Employee;
+import com.sky.entity.Orders;
+import com.sky.enumeration.ExportFormat;
+import com.sky.export.CsvRowWriter;
+import com.sky.export.JsonLinesRowWriter;
+import com.sky.export.RowWriter;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.mapper.EmployeeMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.service.ExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 数据导出
+ * 通过MyBatis游标逐行读取，读一行写一行，内存占用与数据量无关；
+ * 游标只在事务内有效，所以整个导出在一个只读事务中完成
+ */
+@Service
+@Slf4j
+public class ExportServiceImpl implements ExportService {
+
+    private static final LinkedHashMap<String, Function<Employee, ?>> EMPLOYEE_COLUMNS = new LinkedHashMap<>();
+    private static final LinkedHashMap<String, Function<Orders, ?>> ORDER_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        EMPLOYEE_COLUMNS.put("id", Employee::getId);
+        EMPLOYEE_COLUMNS.put("用户名", Employee::getUsername);
+        EMPLOYEE_COLUMNS.put("姓名", Employee::getName);
+        EMPLOYEE_COLUMNS.put("手机号", Employee::getPhone);
+        EMPLOYEE_COLUMNS.put("性别", Employee::getSex);
+        EMPLOYEE_COLUMNS.put("身份证号", Employee::getIdNumber);
+        EMPLOYEE_COLUMNS.put("状态", Employee::getStatus);
+        EMPLOYEE_COLUMNS.put("创建时间", Employee::getCreateTime);
+        EMPLOYEE_COLUMNS.put("修改时间", Employee::getUpdateTime);
+
+        ORDER_COLUMNS.put("id", Orders::getId);
+        ORDER_COLUMNS.put("订单号", Orders::getNumber);
+        ORDER_COLUMNS.put("订单状态", Orders::getStatus);
+        ORDER_COLUMNS.put("用户id", Orders::getUserId);
+        ORDER_COLUMNS.put("下单时间", Orders::getOrderTime);
+        ORDER_COLUMNS.put("结账时间", Orders::getCheckoutTime);
+        ORDER_COLUMNS.put("支付方式", Orders::getPayMethod);
+        ORDER_COLUMNS.put("支付状态", Orders::getPayStatus);
+        ORDER_COLUMNS.put("实收金额", Orders::getAmount);
+        ORDER_COLUMNS.put("备注", Orders::getRemark);
+        ORDER_COLUMNS.put("手机号", Orders::getPhone);
+        ORDER_COLUMNS.put("地址", Orders::getAddress);
+        ORDER_COLUMNS.put("收货人", Orders::getConsignee);
+        ORDER_COLUMNS.put("取消原因", Orders::getCancelReason);
+        ORDER_COLUMNS.put("拒绝原因", Orders::getRejectionReason);
+        ORDER_COLUMNS.put("取消时间", Orders::getCancelTime);
+        ORDER_COLUMNS.put("预计送达时间", Orders::getEstimatedDeliveryTime);
+        ORDER_COLUMNS.put("送达时间", Orders::getDeliveryTime);
+        ORDER_COLUMNS.put("打包费", Orders::getPackAmount);
+        ORDER_COLUMNS.put("餐具数量", Orders::getTablewareNumber);
+    }
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    //导出时不输出值为null的属性
+    private final ObjectMapper objectMapper = new JacksonObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 导出员工
+     * @param name
+     * @param format
+     * @param out
+     */
+    public void exportEmployees(String name, ExportFormat format, OutputStream out) {
+        export(() -> employeeMapper.exportQuery(name), Employee.class, EMPLOYEE_COLUMNS, format, out);
+    }
+
+    /**
+     * 导出订单
+     * @param ordersPageQueryDTO
+     * @param format
+     * @param out
+     */
+    public void exportOrders(OrdersPageQueryDTO ordersPageQueryDTO, ExportFormat format, OutputStream out) {
+        export(() -> orderMapper.exportQuery(ordersPageQueryDTO), Orders.class, ORDER_COLUMNS, format, out);
+    }
+
+    private <T> void export(Supplier<Cursor<T>> query, Class<T> type, LinkedHashMap<String, Function<T, ?>> columns,
+                            ExportFormat format, OutputStream out) {
+        long start = System.currentTimeMillis();
+        Integer rows = transactionTemplate.execute(status -> {
+            int count = 0;
+            try (Cursor<T> cursor = query.get();
+                 RowWriter<T> writer = format == ExportFormat.CSV
+                         ? new CsvRowWriter<>(columns, out)
+                         : new JsonLinesRowWriter<>(objectMapper, type, out)) {
+                for (T row : cursor) {
+                    writer.write(row);
+                    count++;
+                }
+            } catch (IOException e) {
+                //客户端中断下载等写出失败，结束事务并关闭游标
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        log.info("导出{}完成，共{}行，耗时{}ms", type.getSimpleName(), rows, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,191 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.context.BaseContext;
+import com.sky.dto.OrdersConfirmDTO;
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.entity.AddressBook;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.entity.ShoppingCart;
+import com.sky.exception.AddressBookBusinessException;
+import com.sky.exception.OrderBusinessException;
+import com.sky.exception.ShoppingCartBusinessException;
+import com.sky.id.OrderNumberFormatter;
+import com.sky.id.SnowflakeIdGenerator;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.order.OrderStatusCounters;
+import com.sky.order.OrderSubmitEngine;
+import com.sky.order.OrderTimeoutScheduler;
+import com.sky.service.OrderService;
+import com.sky.vo.OrderStatisticsVO;
+import com.sky.vo.OrderSubmitVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+@Slf4j
+public class OrderServiceImpl implements OrderService {
+
+    @Autowired
+    private AddressBookMapper addressBookMapper;
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+    @Autowired
+    private OrderNumberFormatter orderNumberFormatter;
+    @Autowired
+    private OrderSubmitEngine orderSubmitEngine;
+    @Autowired
+    private OrderTimeoutScheduler orderTimeoutScheduler;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+
+    /**
+     * 用户下单
+     * 订单和明细的id在提交前生成，订单与明细的关联不依赖数据库自增主键，由OrderSubmitEngine分组批量写入
+     * @param ordersSubmitDTO
+     * @return
+     */
+    public CompletableFuture<OrderSubmitVO> submitOrder(OrdersSubmitDTO ordersSubmitDTO) {
+        //处理业务异常(地址簿为空、购物车数据为空)
+        Long userId = BaseContext.getCurrentId();
+        AddressBook addressBook = addressBookMapper.getById(ordersSubmitDTO.getAddressBookId());
+        if (addressBook == null || !userId.equals(addressBook.getUserId())) {
+            throw new AddressBookBusinessException(MessageConstant.ADDRESS_BOOK_IS_NULL);
+        }
+        List<ShoppingCart> shoppingCartList = shoppingCartMapper.listByUserId(userId);
+        if (shoppingCartList == null || shoppingCartList.isEmpty()) {
+            throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
+        }
+
+        //构造订单数据
+        Orders orders = new Orders();
+        BeanUtils.copyProperties(ordersSubmitDTO, orders);
+        long orderId = snowflakeIdGenerator.nextId();
+        orders.setId(orderId);
+        orders.setNumber(orderNumberFormatter.format(orderId));
+        orders.setStatus(Orders.PENDING_PAYMENT);
+        orders.setPayStatus(Orders.UN_PAID);
+        orders.setOrderTime(LocalDateTime.now());
+        orders.setUserId(userId);
+        orders.setPhone(addressBook.getPhone());
+        orders.setConsignee(addressBook.getConsignee());
+        orders.setAddress(address(addressBook));
+
+        //订单明细
+        List<OrderDetail> orderDetailList = new ArrayList<>(shoppingCartList.size());
+        List<Long> shoppingCartIds = new ArrayList<>(shoppingCartList.size());
+        for (ShoppingCart cart : shoppingCartList) {
+            OrderDetail orderDetail = new OrderDetail();
+            BeanUtils.copyProperties(cart, orderDetail);
+            orderDetail.setId(snowflakeIdGenerator.nextId());
+            orderDetail.setOrderId(orderId);
+            orderDetailList.add(orderDetail);
+            shoppingCartIds.add(cart.getId());
+        }
+
+        //只删除本次下单读取到的购物车数据
+        return orderSubmitEngine.submit(orders, orderDetailList, shoppingCartIds).thenApply(submitted -> {
+            //订单写入后登记支付截止时间
+            orderTimeoutScheduler.schedulePayment(submitted);
+            return OrderSubmitVO.builder()
+                    .id(submitted.getId())
+                    .orderNumber(submitted.getNumber())
+                    .orderAmount(submitted.getAmount())
+                    .orderTime(submitted.getOrderTime())
+                    .build();
+        });
+    }
+
+    /**
+     * 支付成功，修改订单状态
+     * 只修改仍为待付款的订单，已超时取消的订单不受影响
+     * @param outTradeNo
+     */
+    public void paySuccess(String outTradeNo) {
+        Orders ordersDB = orderMapper.getByNumber(outTradeNo);
+        if (ordersDB == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+
+        Orders orders = new Orders();
+        orders.setStatus(Orders.TO_BE_CONFIRMED);
+        orders.setPayStatus(Orders.PAID);
+        orders.setCheckoutTime(LocalDateTime.now());
+        int updated = orderMapper.updateStatusBatch(Collections.singletonList(ordersDB.getId()), Orders.PENDING_PAYMENT, orders);
+        if (updated == 0) {
+            log.warn("订单{}不是待付款状态，支付结果未更新订单", outTradeNo);
+            return;
+        }
+        orderStatusCounters.transition(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, updated);
+        orderTimeoutScheduler.cancelPayment(ordersDB.getId());
+    }
+
+    /**
+     * 接单，只有待接单的订单可以接单
+     * @param ordersConfirmDTO
+     */
+    public void confirm(OrdersConfirmDTO ordersConfirmDTO) {
+        Orders orders = new Orders();
+        orders.setStatus(Orders.CONFIRMED);
+        int updated = orderMapper.updateStatusBatch(Collections.singletonList(ordersConfirmDTO.getId()), Orders.TO_BE_CONFIRMED, orders);
+        if (updated == 0) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+        orderStatusCounters.transition(Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, updated);
+    }
+
+    /**
+     * 派送订单，只有已接单的订单可以派送
+     * @param id
+     */
+    public void delivery(Long id) {
+        Orders ordersDB = orderMapper.getById(id);
+        if (ordersDB == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+
+        Orders orders = new Orders();
+        orders.setStatus(Orders.DELIVERY_IN_PROGRESS);
+        int updated = orderMapper.updateStatusBatch(Collections.singletonList(id), Orders.CONFIRMED, orders);
+        if (updated == 0) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+        orderStatusCounters.transition(Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS, updated);
+        //登记自动完成时间
+        orderTimeoutScheduler.scheduleDelivery(ordersDB);
+    }
+
+    /**
+     * 各个状态的订单数量，读取内存中的计数，不查询订单表
+     * @return
+     */
+    public OrderStatisticsVO statistics() {
+        return orderStatusCounters.statistics();
+    }
+
+    private static String address(AddressBook addressBook) {
+        StringBuilder address = new StringBuilder();
+        for (String part : new String[]{addressBook.getProvinceName(), addressBook.getCityName(),
+                addressBook.getDistrictName(), addressBook.getDetail()}) {
+            if (part != null) {
+                address.append(part);
+            }
+        }
+        return address.toString();
+    }
+}
@@ -0,0 +1,35 @@
+package com.sky.task;
+
+import com.sky.cluster.ClusteredJob;
+import com.sky.cluster.ShardLease;
+import com.sky.order.OrderStatusCounters;
+import com.sky.properties.OrderStatisticsProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定期与数据库核对订单数，集群中只由一个节点执行
+ */
+@Component
+public class OrderStatusReconcileJob implements ClusteredJob {
+
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+    @Autowired
+    private OrderStatisticsProperties orderStatisticsProperties;
+
+    @Override
+    public String name() {
+        return "order-status-reconcile";
+    }
+
+    @Override
+    public long interval() {
+        return orderStatisticsProperties.getReconcileInterval();
+    }
+
+    @Override
+    public void execute(ShardLease lease) {
+        orderStatusCounters.reconcile();
+    }
+}
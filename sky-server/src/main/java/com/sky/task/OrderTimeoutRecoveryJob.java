@@ -0,0 +1,41 @@
+package com.sky.task;
+
+import com.sky.cluster.ClusteredJob;
+import com.sky.cluster.ShardLease;
+import com.sky.order.OrderTimeoutScheduler;
+import com.sky.properties.OrderTimeoutProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 接管已下线节点时间轮中的超时订单，集群中只由一个节点执行
+ * 订单的超时只登记在下单(或开始派送)的节点上，该节点宕机后由这里按下单时间查出已过期的订单处理
+ */
+@Component
+@Slf4j
+public class OrderTimeoutRecoveryJob implements ClusteredJob {
+
+    @Autowired
+    private OrderTimeoutScheduler orderTimeoutScheduler;
+    @Autowired
+    private OrderTimeoutProperties orderTimeoutProperties;
+
+    @Override
+    public String name() {
+        return "order-timeout-recovery";
+    }
+
+    @Override
+    public long interval() {
+        return orderTimeoutProperties.getRecoveryInterval();
+    }
+
+    @Override
+    public void execute(ShardLease lease) {
+        int recovered = orderTimeoutScheduler.recover(lease::isHeld);
+        if (recovered > 0) {
+            log.info("接管超时订单{}个", recovered);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.sky.task;
+
+import com.sky.cluster.ClusteredJob;
+import com.sky.cluster.ShardLease;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.properties.ShoppingCartProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 清理长时间未下单的购物车，按用户id分片，由集群中的节点分别处理
+ */
+@Component
+@Slf4j
+public class ShoppingCartCleanupJob implements ClusteredJob {
+
+    @Autowired
+    private ShoppingCartProperties shoppingCartProperties;
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+    @Override
+    public String name() {
+        return "shopping-cart-cleanup";
+    }
+
+    @Override
+    public int shardCount() {
+        return shoppingCartProperties.getCleanupShards();
+    }
+
+    @Override
+    public long interval() {
+        return shoppingCartProperties.getCleanupInterval();
+    }
+
+    @Override
+    public void execute(ShardLease lease) {
+        int shard = lease.getShard();
+        int shardCount = lease.getShardCount();
+        LocalDateTime before = LocalDateTime.now().minusDays(shoppingCartProperties.getRetentionDays());
+        int limit = shoppingCartProperties.getCleanupBatchSize();
+        int total = 0;
+        int deleted;
+        //分批删除，避免一次删除过多行长时间持有锁；租约失效后不再继续，由新的负责节点处理
+        do {
+            if (!lease.isHeld()) {
+                log.warn("购物车清理分片{}/{}的租约已失效，停止清理", shard, shardCount);
+                break;
+            }
+            deleted = shoppingCartMapper.deleteExpired(before, shard, shardCount, limit);
+            total += deleted;
+        } while (deleted == limit);
+        if (total > 0) {
+            log.info("清理过期购物车，分片{}/{}，删除{}条", shard, shardCount, total);
+        }
+    }
+}
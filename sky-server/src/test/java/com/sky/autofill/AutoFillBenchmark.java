@@ -0,0 +1,77 @@
+package com.sky.autofill;
+
+import com.sky.constant.AutoFillConstant;
+import com.sky.entity.Employee;
+import com.sky.enumeration.OperationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmployeeMapper.insert/update公共字段填充耗时对比：
+ * 每次调用getDeclaredMethod+Method.invoke(原AutoFillAspect) vs 缓存的AutoFillAccessor vs 编译期生成的填充器
+ * 运行：mvn -pl sky-server -am test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *      -Dexec.args="-cp %classpath org.openjdk.jmh.Main AutoFillBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoFillBenchmark {
+
+    private final Employee employee = new Employee();
+    private final LocalDateTime now = LocalDateTime.now();
+    private final Long currentId = 1L;
+
+    @Benchmark
+    public Employee insertReflection() throws Exception {
+        Method setCreateTime = employee.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
+        Method setUpdateTime = employee.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
+        Method setCreateUser = employee.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_USER, Long.class);
+        Method setUpdateUser = employee.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
+        setCreateTime.invoke(employee, now);
+        setCreateUser.invoke(employee, currentId);
+        setUpdateTime.invoke(employee, now);
+        setUpdateUser.invoke(employee, currentId);
+        return employee;
+    }
+
+    @Benchmark
+    public Employee insertAccessor() {
+        AutoFillAccessor.of(employee.getClass()).fillInsert(employee, now, currentId);
+        return employee;
+    }
+
+    @Benchmark
+    public Employee insertGenerated() {
+        GeneratedAutoFillers.fill(employee, OperationType.INSERT, now, currentId);
+        return employee;
+    }
+
+    @Benchmark
+    public Employee updateReflection() throws Exception {
+        Method setUpdateTime = employee.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
+        Method setUpdateUser = employee.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
+        setUpdateTime.invoke(employee, now);
+        setUpdateUser.invoke(employee, currentId);
+        return employee;
+    }
+
+    @Benchmark
+    public Employee updateAccessor() {
+        AutoFillAccessor.of(employee.getClass()).fillUpdate(employee, now, currentId);
+        return employee;
+    }
+}
@@ -0,0 +1,118 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sky.handler.VaryAcceptAdvice;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.properties.TwoLevelCacheProperties;
+import com.sky.result.Result;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * 预序列化响应体只按json返回，请求Smile、CBOR时交给消息转换器；所有格式协商的响应都带Vary: Accept
+ */
+public class ResponseBodyCacheTest {
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        TwoLevelCacheProperties properties = new TwoLevelCacheProperties();
+        properties.setResponseGzipMinSize(-1);
+        ResponseBodyCache responseBodyCache = new ResponseBodyCache();
+        ReflectionTestUtils.setField(responseBodyCache, "twoLevelCacheProperties", properties);
+        responseBodyCache.init();
+        mockMvc = MockMvcBuilders.standaloneSetup(new ListController(responseBodyCache))
+                .setControllerAdvice(new VaryAcceptAdvice())
+                .setMessageConverters(
+                        new MappingJackson2HttpMessageConverter(new JacksonObjectMapper()),
+                        new MappingJackson2SmileHttpMessageConverter(new JacksonObjectMapper(new SmileFactory())),
+                        new MappingJackson2CborHttpMessageConverter(new JacksonObjectMapper(new CBORFactory())))
+                .build();
+    }
+
+    @Test
+    public void jsonIsServedFromCacheWithVaryAccept() throws Exception {
+        MvcResult first = mockMvc.perform(get("/list").accept(MediaType.APPLICATION_JSON)).andReturn();
+        MvcResult second = mockMvc.perform(get("/list")).andReturn();
+
+        assertEquals(MediaType.APPLICATION_JSON, contentType(first));
+        assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+        assertEquals(1, queries.get());
+        assertEquals(Collections.singletonList(HttpHeaders.ACCEPT), first.getResponse().getHeaders(HttpHeaders.VARY));
+
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult notModified = mockMvc.perform(get("/list").header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, notModified.getResponse().getStatus());
+        assertEquals(Collections.singletonList(HttpHeaders.ACCEPT), notModified.getResponse().getHeaders(HttpHeaders.VARY));
+    }
+
+    @Test
+    public void binaryFormatsBypassJsonCache() throws Exception {
+        MvcResult smile = mockMvc.perform(get("/list").accept(SMILE)).andReturn();
+        assertEquals(SMILE, contentType(smile));
+        assertEquals(Collections.singletonList(HttpHeaders.ACCEPT), smile.getResponse().getHeaders(HttpHeaders.VARY));
+        //Smile以":)\n"开头
+        assertTrue(smile.getResponse().getContentAsString().startsWith(":)"));
+
+        MvcResult cbor = mockMvc.perform(get("/list").header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor")).andReturn();
+        assertEquals(MediaType.APPLICATION_CBOR, contentType(cbor));
+
+        //json优先或同样优先时仍使用缓存
+        MvcResult json = mockMvc.perform(get("/list").header(HttpHeaders.ACCEPT, "application/cbor;q=0.5, */*")).andReturn();
+        assertEquals(MediaType.APPLICATION_JSON, contentType(json));
+    }
+
+    private static MediaType contentType(MvcResult result) {
+        MediaType type = MediaType.valueOf(result.getResponse().getContentType());
+        return new MediaType(type.getType(), type.getSubtype());
+    }
+
+    @RestController
+    private class ListController {
+
+        private final ResponseBodyCache responseBodyCache;
+
+        private ListController(ResponseBodyCache responseBodyCache) {
+            this.responseBodyCache = responseBodyCache;
+        }
+
+        @GetMapping("/list")
+        public Result<String> list(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            if (responseBodyCache.write("test", "list", this::query, request, response)) {
+                return null;
+            }
+            return query();
+        }
+
+        private Result<String> query() {
+            queries.incrementAndGet();
+            return Result.success("分类");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.sky.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
+import com.sky.entity.Employee;
+import com.sky.result.PageResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
+
+/**
+ * 500行员工分页结果的序列化、反序列化耗时对比：
+ * jsr310序列化器+DateTimeFormatter(原JacksonObjectMapper) vs 定长格式的FixedWidthTimeCodecs
+ * 运行：mvn -pl sky-server -am test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *      -Dexec.args="-cp %classpath org.openjdk.jmh.Main PageResultSerializationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageResultSerializationBenchmark {
+
+    private static final int ROWS = 500;
+
+    private ObjectMapper formatterMapper;
+    private ObjectMapper fixedWidthMapper;
+    private PageResult pageResult;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws Exception {
+        formatterMapper = formatterMapper();
+        fixedWidthMapper = new JacksonObjectMapper();
+
+        List<Employee> records = new ArrayList<>(ROWS);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < ROWS; i++) {
+            records.add(Employee.builder()
+                    .id((long) i)
+                    .username("user" + i)
+                    .name("员工" + i)
+                    .phone("1380000" + String.format("%04d", i))
+                    .sex(i % 2 == 0 ? "1" : "0")
+                    .idNumber("11010119900101" + String.format("%04d", i))
+                    .status(1)
+                    .createTime(base.plusMinutes(i * 37L))
+                    .updateTime(base.plusMinutes(i * 53L))
+                    .createUser(1L)
+                    .updateUser(1L)
+                    .build());
+        }
+        pageResult = new PageResult(ROWS, records);
+        json = fixedWidthMapper.writeValueAsBytes(records);
+    }
+
+    @Benchmark
+    public byte[] serializeFormatter() throws Exception {
+        return formatterMapper.writeValueAsBytes(pageResult);
+    }
+
+    @Benchmark
+    public byte[] serializeFixedWidth() throws Exception {
+        return fixedWidthMapper.writeValueAsBytes(pageResult);
+    }
+
+    @Benchmark
+    public Employee[] deserializeFormatter() throws Exception {
+        return formatterMapper.readValue(json, Employee[].class);
+    }
+
+    @Benchmark
+    public Employee[] deserializeFixedWidth() throws Exception {
+        return fixedWidthMapper.readValue(json, Employee[].class);
+    }
+
+    /**
+     * 原JacksonObjectMapper的配置
+     */
+    private static ObjectMapper formatterMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(FAIL_ON_UNKNOWN_PROPERTIES, false);
+        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern(JacksonObjectMapper.DEFAULT_DATE_TIME_FORMAT);
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern(JacksonObjectMapper.DEFAULT_DATE_FORMAT);
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern(JacksonObjectMapper.DEFAULT_TIME_FORMAT);
+        SimpleModule simpleModule = new SimpleModule()
+                .addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer(dateTimeFormatter))
+                .addDeserializer(LocalDate.class, new LocalDateDeserializer(dateFormatter))
+                .addDeserializer(LocalTime.class, new LocalTimeDeserializer(timeFormatter))
+                .addSerializer(LocalDateTime.class, new LocalDateTimeSerializer(dateTimeFormatter))
+                .addSerializer(LocalDate.class, new LocalDateSerializer(dateFormatter))
+                .addSerializer(LocalTime.class, new LocalTimeSerializer(timeFormatter));
+        mapper.registerModule(simpleModule);
+        return mapper;
+    }
+}
@@ -0,0 +1,211 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.ClusterProperties;
+import com.sky.properties.OrderStatisticsProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 集群计数：核对前记录、未写入redis的变化量在核对后丢弃，同一版本内的变化量只累加一次，
+ * 统计时只计入当前版本的本节点变化量
+ * 两个节点共用一个模拟的redis hash，按脚本的语义执行
+ */
+public class OrderStatusCountersTest {
+
+    private static final String KEY = "sky:order:status-counts";
+
+    //模拟的redis hash
+    private final Map<String, Long> hash = new HashMap<>();
+    private boolean redisDown;
+    //数据库中的各状态订单数
+    private final Map<Integer, Long> database = new HashMap<>();
+
+    private OrderStatusCounters nodeA;
+    private OrderStatusCounters nodeB;
+
+    @BeforeEach
+    public void setUp() {
+        database.put(Orders.TO_BE_CONFIRMED, 4L);
+        nodeA = node();
+        nodeB = node();
+        nodeA.reconcile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        redisDown = true;
+        nodeA.stop();
+        nodeB.stop();
+    }
+
+    @Test
+    public void transitionsAreAppliedImmediately() {
+        nodeA.transition(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, 1);
+        nodeB.transition(Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, 2);
+
+        assertEquals(3L, hash.get("2"));
+        assertEquals(2L, hash.get("3"));
+        assertEquals(3, nodeB.statistics().getToBeConfirmed());
+        assertEquals(2, nodeA.statistics().getConfirmed());
+    }
+
+    @Test
+    public void deltaDeferredBeforeReconcileIsDropped() {
+        redisDown = true;
+        nodeA.transition(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, 1);
+        redisDown = false;
+
+        //数据库中已经包含这个订单，另一个节点核对后再重试，不能重复累加
+        database.put(Orders.TO_BE_CONFIRMED, 5L);
+        nodeB.reconcile();
+        flush(nodeA);
+        flush(nodeA);
+
+        assertEquals(5L, hash.get("2"));
+        assertEquals(5, nodeA.statistics().getToBeConfirmed());
+    }
+
+    @Test
+    public void deltaDeferredInSameEpochIsAppliedOnce() {
+        redisDown = true;
+        nodeA.transition(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, 1);
+        nodeA.transition(Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, 1);
+        flush(nodeA);
+        redisDown = false;
+
+        flush(nodeA);
+        flush(nodeA);
+
+        assertEquals(4L, hash.get("2"));
+        assertEquals(1L, hash.get("3"));
+    }
+
+    @Test
+    public void statisticsCountPendingDeltasOnlyFromCurrentEpoch() {
+        redisDown = true;
+        nodeA.transition(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, 2);
+        redisDown = false;
+
+        //等待重试的变化量与redis中的版本相同，计入统计
+        assertEquals(6, nodeA.statistics().getToBeConfirmed());
+        assertEquals(4, nodeB.statistics().getToBeConfirmed());
+
+        //核对后版本变化，等待重试的变化量已作废，在重试之前也不再计入
+        database.put(Orders.TO_BE_CONFIRMED, 6L);
+        nodeB.reconcile();
+        assertEquals(6, nodeA.statistics().getToBeConfirmed());
+        flush(nodeA);
+        assertEquals(6, nodeA.statistics().getToBeConfirmed());
+    }
+
+    private OrderStatusCounters node() {
+        OrderStatisticsProperties properties = new OrderStatisticsProperties();
+        properties.setRedisKey(KEY);
+        //重试由测试调用，不让后台线程参与
+        properties.setFlushInterval(3600000);
+        OrderMapper orderMapper = mock(OrderMapper.class);
+        when(orderMapper.countByStatus(anyList())).thenAnswer(invocation -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Map.Entry<Integer, Long> entry : database.entrySet()) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("status", entry.getKey());
+                row.put("number", entry.getValue());
+                rows.add(row);
+            }
+            return rows;
+        });
+        OrderStatusCounters counters = new OrderStatusCounters();
+        ReflectionTestUtils.setField(counters, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(counters, "orderStatisticsProperties", properties);
+        ReflectionTestUtils.setField(counters, "clusterProperties", new ClusterProperties());
+        ReflectionTestUtils.setField(counters, "stringRedisTemplate", redis());
+        counters.start();
+        return counters;
+    }
+
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate redis() {
+        RedisScript<Long> apply = (RedisScript<Long>) ReflectionTestUtils.getField(OrderStatusCounters.class, "APPLY");
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(template.opsForHash()).thenReturn((HashOperations) hashOperations);
+        when(hashOperations.get(eq(KEY), any())).thenAnswer(invocation -> {
+            checkAvailable();
+            Long value = hash.get(invocation.<String>getArgument(1));
+            return value == null ? null : value.toString();
+        });
+        when(hashOperations.multiGet(eq(KEY), any())).thenAnswer(invocation -> {
+            checkAvailable();
+            List<Object> values = new ArrayList<>();
+            for (Object field : invocation.<Collection<Object>>getArgument(1)) {
+                Long value = hash.get(field.toString());
+                values.add(value == null ? null : value.toString());
+            }
+            return values;
+        });
+        doAnswer(invocation -> {
+            checkAvailable();
+            Object[] args = invocation.getArguments();
+            Object[] argv = new Object[args.length - 2];
+            System.arraycopy(args, 2, argv, 0, argv.length);
+            return invocation.getArgument(0) == apply ? apply(argv) : reconcile(argv);
+        }).when(template).execute(any(RedisScript.class), anyList(), (Object[]) any());
+        return template;
+    }
+
+    /**
+     * APPLY脚本：版本不一致时返回-1，否则累加并返回当前版本
+     */
+    private long apply(Object[] argv) {
+        long epoch = hash.getOrDefault("epoch", 0L);
+        if (!"".equals(argv[0]) && Long.parseLong(argv[0].toString()) != epoch) {
+            return -1;
+        }
+        for (int i = 1; i < argv.length; i += 2) {
+            hash.merge(argv[i].toString(), Long.parseLong(argv[i + 1].toString()), Long::sum);
+        }
+        return epoch;
+    }
+
+    /**
+     * RECONCILE脚本：覆盖计数并递增版本
+     */
+    private long reconcile(Object[] argv) {
+        for (int i = 0; i < argv.length; i += 2) {
+            hash.put(argv[i].toString(), Long.parseLong(argv[i + 1].toString()));
+        }
+        return hash.merge("epoch", 1L, Long::sum);
+    }
+
+    private void checkAvailable() {
+        if (redisDown) {
+            throw new RedisConnectionFailureException("redis不可用");
+        }
+    }
+
+    private static void flush(OrderStatusCounters counters) {
+        ReflectionTestUtils.invokeMethod(counters, "flush");
+    }
+}
@@ -0,0 +1,165 @@
+package com.sky.order;
+
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.properties.OrderSubmitProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 下单吞吐量：每个订单一个事务 vs OrderSubmitEngine分组提交
+ * 两者使用同样的mapper和事务管理器：mapper不做任何事，事务提交时在一把锁内等待commitMicros微秒，
+ * 模拟数据库串行刷日志的耗时(不考虑数据库自身对并发提交的合并)；
+ * 对比的是事务数量减少带来的差别，不包含真实数据库中多行insert本身的耗时
+ * 运行：mvn -pl sky-server -am test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *      -Dexec.args="-cp %classpath org.openjdk.jmh.Main OrderSubmitBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(32)
+@Fork(1)
+public class OrderSubmitBenchmark {
+
+    @Param({"1000"})
+    private long commitMicros;
+
+    private final AtomicLong ids = new AtomicLong();
+    private OrderMapper orderMapper;
+    private OrderDetailMapper orderDetailMapper;
+    private ShoppingCartMapper shoppingCartMapper;
+    private TransactionTemplate transactionTemplate;
+    private OrderSubmitEngine engine;
+
+    @Setup
+    public void setup() {
+        orderMapper = noOp(OrderMapper.class);
+        orderDetailMapper = noOp(OrderDetailMapper.class);
+        shoppingCartMapper = noOp(ShoppingCartMapper.class);
+        SlowCommitTransactionManager transactionManager = new SlowCommitTransactionManager(commitMicros);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        OrderSubmitProperties properties = new OrderSubmitProperties();
+        engine = new OrderSubmitEngine();
+        ReflectionTestUtils.setField(engine, "orderSubmitProperties", properties);
+        ReflectionTestUtils.setField(engine, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(engine, "orderDetailMapper", orderDetailMapper);
+        ReflectionTestUtils.setField(engine, "shoppingCartMapper", shoppingCartMapper);
+        ReflectionTestUtils.setField(engine, "transactionManager", transactionManager);
+        engine.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        engine.stop();
+    }
+
+    /**
+     * 原方式：每个订单在自己的事务中写入订单、明细并清空购物车
+     */
+    @Benchmark
+    public Orders perOrder() {
+        long id = ids.incrementAndGet();
+        Orders orders = orders(id);
+        List<OrderDetail> orderDetails = details(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            orderMapper.insertBatch(Collections.singletonList(orders));
+            orderDetailMapper.insertBatch(orderDetails);
+            shoppingCartMapper.deleteByIds(Collections.singletonList(id));
+        });
+        return orders;
+    }
+
+    @Benchmark
+    public Orders groupCommit() {
+        long id = ids.incrementAndGet();
+        return engine.submit(orders(id), details(id), Collections.singletonList(id)).join();
+    }
+
+    private static Orders orders(long id) {
+        Orders orders = new Orders();
+        orders.setId(id);
+        //每个请求使用不同的用户
+        orders.setUserId(id);
+        orders.setNumber(String.valueOf(id));
+        return orders;
+    }
+
+    private static List<OrderDetail> details(long orderId) {
+        List<OrderDetail> orderDetails = new ArrayList<>(2);
+        for (int i = 0; i < 2; i++) {
+            OrderDetail orderDetail = new OrderDetail();
+            orderDetail.setId(orderId * 10 + i);
+            orderDetail.setOrderId(orderId);
+            orderDetails.add(orderDetail);
+        }
+        return orderDetails;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T noOp(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> null);
+    }
+
+    /**
+     * 提交时串行等待固定时间的事务管理器，相当于只有一个日志设备
+     */
+    private static class SlowCommitTransactionManager extends AbstractPlatformTransactionManager {
+
+        private final long commitNanos;
+        private final Object log = new Object();
+
+        private SlowCommitTransactionManager(long commitMicros) {
+            this.commitNanos = TimeUnit.MICROSECONDS.toNanos(commitMicros);
+        }
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            synchronized (log) {
+                LockSupport.parkNanos(commitNanos);
+            }
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
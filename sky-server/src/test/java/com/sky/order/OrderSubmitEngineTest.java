@@ -0,0 +1,234 @@
+package com.sky.order;
+
+import com.sky.constant.MessageConstant;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.exception.OrderBusinessException;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.properties.OrderSubmitProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 分组提交：批量失败后逐个重试、只删除下单时的购物车数据、同一用户不能重复提交、等待超时不提前报告成功
+ * mapper和事务管理器使用mock
+ */
+public class OrderSubmitEngineTest {
+
+    private OrderSubmitProperties properties;
+    private OrderMapper orderMapper;
+    private OrderDetailMapper orderDetailMapper;
+    private ShoppingCartMapper shoppingCartMapper;
+    private OrderSubmitEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new OrderSubmitProperties();
+        properties.setBatchSize(10);
+        properties.setMaxLinger(50);
+        properties.setTimeout(5000);
+        orderMapper = mock(OrderMapper.class);
+        orderDetailMapper = mock(OrderDetailMapper.class);
+        shoppingCartMapper = mock(ShoppingCartMapper.class);
+        engine = new OrderSubmitEngine();
+        ReflectionTestUtils.setField(engine, "orderSubmitProperties", properties);
+        ReflectionTestUtils.setField(engine, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(engine, "orderDetailMapper", orderDetailMapper);
+        ReflectionTestUtils.setField(engine, "shoppingCartMapper", shoppingCartMapper);
+        ReflectionTestUtils.setField(engine, "transactionManager", mock(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        engine.stop();
+    }
+
+    @Test
+    public void failedBatchIsRetriedOrderByOrder() throws Exception {
+        //含有id为2的订单的insert失败
+        List<List<Long>> inserts = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            List<Orders> orders = invocation.getArgument(0);
+            List<Long> ids = new ArrayList<>();
+            for (Orders o : orders) {
+                ids.add(o.getId());
+            }
+            inserts.add(ids);
+            if (ids.contains(2L)) {
+                throw new IllegalStateException("Duplicate entry");
+            }
+            return null;
+        }).when(orderMapper).insertBatch(anyList());
+        engine.start();
+
+        List<CompletableFuture<Orders>> futures = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            futures.add(engine.submit(orders(id, 100 + id), details(id), Collections.singletonList(1000 + id)));
+        }
+
+        assertEquals(1L, futures.get(0).get(5, TimeUnit.SECONDS).getId());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> futures.get(1).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(3L, futures.get(2).get(5, TimeUnit.SECONDS).getId());
+
+        //一次批量写入，失败后每个订单单独写入一次
+        assertEquals(Arrays.asList(1L, 2L, 3L), inserts.get(0));
+        assertEquals(Arrays.asList(Arrays.asList(1L), Arrays.asList(2L), Arrays.asList(3L)), inserts.subList(1, 4));
+        verify(shoppingCartMapper).deleteByIds(Collections.singletonList(1001L));
+        verify(shoppingCartMapper).deleteByIds(Collections.singletonList(1003L));
+        verify(shoppingCartMapper, never()).deleteByIds(Collections.singletonList(1002L));
+    }
+
+    @Test
+    public void deletesOnlySnapshotCartIds() throws Exception {
+        List<Collection<Long>> deleted = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            deleted.add(new ArrayList<>(invocation.<Collection<Long>>getArgument(0)));
+            return null;
+        }).when(shoppingCartMapper).deleteByIds(anyList());
+        engine.start();
+
+        CompletableFuture<Orders> first = engine.submit(orders(1, 101), details(1), Arrays.asList(11L, 12L));
+        CompletableFuture<Orders> second = engine.submit(orders(2, 102), details(2), Collections.singletonList(21L));
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        List<Long> all = new ArrayList<>();
+        for (Collection<Long> ids : deleted) {
+            all.addAll(ids);
+        }
+        assertEquals(Arrays.asList(11L, 12L, 21L), all);
+        verify(orderDetailMapper, times(deleted.size())).insertBatch(anyList());
+    }
+
+    @Test
+    public void secondPendingOrderOfSameUserIsRejected() throws Exception {
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        blockInsert(committing, proceed, new ArrayList<>());
+        engine.start();
+
+        CompletableFuture<Orders> first = engine.submit(orders(1, 101), details(1), Collections.singletonList(11L));
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Orders> duplicate = engine.submit(orders(2, 101), details(2), Collections.singletonList(11L));
+        assertBusinessFailure(duplicate, MessageConstant.ORDER_SUBMITTING);
+
+        proceed.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        //上一个订单提交完成后可以再次下单
+        assertEquals(3L, engine.submit(orders(3, 101), details(3), Collections.singletonList(12L)).get(5, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    public void timeoutRemovesQueuedOrderAndWaitsForCommittingOrder() throws Exception {
+        properties.setTimeout(200);
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        List<Long> inserted = Collections.synchronizedList(new ArrayList<>());
+        blockInsert(committing, proceed, inserted);
+        engine.start();
+
+        CompletableFuture<Orders> inFlight = engine.submit(orders(1, 101), details(1), Collections.singletonList(11L));
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Orders> queued = engine.submit(orders(2, 102), details(2), Collections.singletonList(21L));
+
+        //仍在队列中的订单被移出并失败，已在提交中的订单超时后仍等待提交结果
+        assertBusinessFailure(queued, MessageConstant.ORDER_SUBMIT_TIMEOUT);
+        assertEquals(0, engine.pending());
+        assertFalse(inFlight.isDone());
+
+        proceed.countDown();
+        assertEquals(1L, inFlight.get(5, TimeUnit.SECONDS).getId());
+        //被移出队列的订单不再写入，该用户可以重新下单
+        CompletableFuture<Orders> retry = engine.submit(orders(3, 102), details(3), Collections.singletonList(21L));
+        assertEquals(3L, retry.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(Arrays.asList(1L, 3L), inserted);
+    }
+
+    @Test
+    public void commitFailingAfterTimeoutIsReportedAsFailure() throws Exception {
+        properties.setTimeout(200);
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            committing.countDown();
+            assertTrue(proceed.await(5, TimeUnit.SECONDS));
+            throw new IllegalStateException("Lock wait timeout exceeded");
+        }).when(orderMapper).insertBatch(anyList());
+        engine.start();
+
+        CompletableFuture<Orders> inFlight = engine.submit(orders(1, 101), details(1), Collections.singletonList(11L));
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+        Thread.sleep(400);
+        assertFalse(inFlight.isDone());
+
+        proceed.countDown();
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> inFlight.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+    }
+
+    /**
+     * 记录写入的订单id，第一次insert时阻塞，直到proceed
+     */
+    private void blockInsert(CountDownLatch committing, CountDownLatch proceed, List<Long> inserted) {
+        doAnswer(invocation -> {
+            for (Orders o : invocation.<List<Orders>>getArgument(0)) {
+                inserted.add(o.getId());
+            }
+            if (committing.getCount() > 0) {
+                committing.countDown();
+                assertTrue(proceed.await(5, TimeUnit.SECONDS));
+            }
+            return null;
+        }).when(orderMapper).insertBatch(anyList());
+    }
+
+    private static void assertBusinessFailure(CompletableFuture<Orders> future, String message) throws Exception {
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OrderBusinessException.class, failure.getCause());
+        assertEquals(message, failure.getCause().getMessage());
+        assertFalse(future.isCancelled());
+    }
+
+    private static Orders orders(long id, long userId) {
+        Orders orders = new Orders();
+        orders.setId(id);
+        orders.setUserId(userId);
+        orders.setNumber(String.valueOf(id));
+        return orders;
+    }
+
+    private static List<OrderDetail> details(long orderId) {
+        OrderDetail orderDetail = new OrderDetail();
+        orderDetail.setId(orderId * 10);
+        orderDetail.setOrderId(orderId);
+        return Collections.singletonList(orderDetail);
+    }
+}
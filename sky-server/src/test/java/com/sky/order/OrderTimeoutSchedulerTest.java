@@ -0,0 +1,102 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderTimeoutProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 接管其他节点的超时订单：按下单时间分页查出已过期的订单，在本节点的时间轮中立即处理
+ * mapper使用mock
+ */
+public class OrderTimeoutSchedulerTest {
+
+    private OrderMapper orderMapper;
+    private OrderStatusCounters orderStatusCounters;
+    private OrderTimeoutScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        OrderTimeoutProperties properties = new OrderTimeoutProperties();
+        properties.setTick(10);
+        properties.setBatchSize(2);
+        orderMapper = mock(OrderMapper.class);
+        orderStatusCounters = mock(OrderStatusCounters.class);
+        when(orderMapper.listDeadlines(anyList())).thenReturn(Collections.emptyList());
+        when(orderMapper.listDeadlinesBefore(any(), any(), anyInt())).thenReturn(Collections.emptyList());
+        scheduler = new OrderTimeoutScheduler();
+        ReflectionTestUtils.setField(scheduler, "orderTimeoutProperties", properties);
+        ReflectionTestUtils.setField(scheduler, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(scheduler, "orderStatusCounters", orderStatusCounters);
+        scheduler.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    public void overdueUnpaidOrdersOfOtherNodesAreCancelledHere() throws Exception {
+        LocalDateTime old = LocalDateTime.now().minusHours(1);
+        //第一页满，按最后一个订单的下单时间查询下一页
+        when(orderMapper.listDeadlinesBefore(eq(Orders.PENDING_PAYMENT), any(), eq(2)))
+                .thenReturn(Arrays.asList(unpaid(1, old), unpaid(2, old.minusMinutes(1))));
+        when(orderMapper.listDeadlinesBefore(Orders.PENDING_PAYMENT, old.minusMinutes(1), 2))
+                .thenReturn(Collections.singletonList(unpaid(3, old.minusMinutes(2))));
+        Set<Long> cancelled = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(3);
+        when(orderMapper.updateStatusBatch(anyList(), eq(Orders.PENDING_PAYMENT), any())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            for (Long id : ids) {
+                cancelled.add(id);
+                done.countDown();
+            }
+            return ids.size();
+        });
+
+        assertEquals(3, scheduler.recover(() -> true));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L)), cancelled);
+        assertEquals(0, scheduler.pendingPayments());
+    }
+
+    @Test
+    public void stopsWhenLeaseIsLost() {
+        assertEquals(0, scheduler.recover(() -> false));
+        verify(orderMapper, never()).listDeadlinesBefore(any(), any(), anyInt());
+    }
+
+    private static Orders unpaid(long id, LocalDateTime orderTime) {
+        Orders orders = new Orders();
+        orders.setId(id);
+        orders.setStatus(Orders.PENDING_PAYMENT);
+        orders.setOrderTime(orderTime);
+        return orders;
+    }
+}